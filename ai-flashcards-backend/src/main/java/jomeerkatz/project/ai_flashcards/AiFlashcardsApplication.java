@@ -2,8 +2,10 @@ package jomeerkatz.project.ai_flashcards;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class AiFlashcardsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,82 @@
+package jomeerkatz.project.ai_flashcards.ai;
+
+import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Picks complete cards out of the model answer while it is still streaming in.
+ * The answer has the shape {"flashcards": [{"question": "...", "answer": "..."}, ...]}, so every object which
+ * opens and closes inside the array is one card and can be stored before the rest of the answer arrived.
+ */
+public class FlashcardStreamParser {
+    // the object itself and the flashcards array around it
+    private static final int CARD_DEPTH = 2;
+
+    private final ObjectMapper objectMapper;
+    private final StringBuilder buffer = new StringBuilder();
+    private int position;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int cardStart = -1;
+
+    public FlashcardStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // returns the cards completed by this piece of the answer
+    public List<CardCreateUpdateRequest> accept(String content) {
+        buffer.append(content);
+        List<CardCreateUpdateRequest> cards = new ArrayList<>();
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> inString = true;
+                case '{', '[' -> {
+                    if (c == '{' && depth == CARD_DEPTH) {
+                        cardStart = position;
+                    }
+                    depth++;
+                }
+                case '}', ']' -> {
+                    depth--;
+                    if (c == '}' && depth == CARD_DEPTH && cardStart >= 0) {
+                        toCard(buffer.substring(cardStart, position + 1)).ifPresent(cards::add);
+                        cardStart = -1;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return cards;
+    }
+
+    private Optional<CardCreateUpdateRequest> toCard(String json) {
+        JsonNode card = objectMapper.readTree(json);
+        String question = card.path("question").asString("").trim();
+        String answer = card.path("answer").asString("").trim();
+        if (question.isEmpty() || answer.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(CardCreateUpdateRequest.builder()
+                .question(question)
+                .answer(answer)
+                .build());
+    }
+}
@@ -0,0 +1,116 @@
+package jomeerkatz.project.ai_flashcards.ai;
+
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.exceptions.AiGenerationException;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Calls the chat completions endpoint of an OpenAI compatible api with streaming turned on.
+ */
+@Component
+public class OpenAiCompatibleClient {
+    private static final String SYSTEM_MESSAGE = """
+            You are a flashcard generator. Create educational flashcards with clear questions and comprehensive answers.
+
+            IMPORTANT RULES:
+            - You can create a MAXIMUM of %d flashcards
+            - Each flashcard must have a clear, specific question
+            - Each answer must be comprehensive and educational
+            - Questions should test understanding, not just recall
+            - Return ONLY valid JSON in this exact format: { "flashcards": [{"question": "...", "answer": "..."}] }
+            - Do not include any explanatory text outside the JSON
+            - Ensure the JSON is valid and parseable""";
+
+    private final AiGenerationProperties properties;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public OpenAiCompatibleClient(AiGenerationProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getConnectTimeout())
+                .build();
+    }
+
+    // hands every piece of the answer to the consumer as soon as it arrives instead of waiting for the whole answer
+    public void streamFlashcards(String prompt, Consumer<String> contentConsumer) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(properties.getBaseUrl() + "/chat/completions"))
+                .timeout(properties.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(requestBody(prompt))));
+        if (properties.getApiKey() != null && !properties.getApiKey().isBlank()) {
+            request.header("Authorization", "Bearer " + properties.getApiKey());
+        }
+
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new AiGenerationException("model api answered with status " + response.statusCode() + ": "
+                            + lines.collect(Collectors.joining("\n")));
+                }
+                Iterator<String> events = lines.iterator();
+                while (events.hasNext()) {
+                    String line = events.next();
+                    // server sent events: "data: <chunk>" lines, everything else are comments or keep-alives
+                    if (!line.startsWith("data:")) {
+                        continue;
+                    }
+                    String data = line.substring("data:".length()).trim();
+                    if (data.equals("[DONE]")) {
+                        return;
+                    }
+                    JsonNode content = objectMapper.readTree(data).path("choices").path(0).path("delta").path("content");
+                    if (content.isString() && !content.asString().isEmpty()) {
+                        contentConsumer.accept(content.asString());
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new AiGenerationException("could not reach the model api", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiGenerationException("model call was interrupted", ex);
+        }
+    }
+
+    private Map<String, Object> requestBody(String prompt) {
+        Map<String, Object> card = Map.of(
+                "type", "object",
+                "properties", Map.of(
+                        "question", Map.of("type", "string"),
+                        "answer", Map.of("type", "string")),
+                "required", List.of("question", "answer"),
+                "additionalProperties", false);
+        Map<String, Object> schema = Map.of(
+                "type", "object",
+                "properties", Map.of("flashcards", Map.of("type", "array", "items", card)),
+                "required", List.of("flashcards"),
+                "additionalProperties", false);
+        return Map.of(
+                "model", properties.getModel(),
+                "stream", true,
+                "messages", List.of(
+                        Map.of("role", "system", "content", SYSTEM_MESSAGE.formatted(properties.getMaxCards())),
+                        Map.of("role", "user", "content", "Create flashcards about: " + prompt + ". Return only valid JSON.")),
+                "response_format", Map.of(
+                        "type", "json_schema",
+                        "json_schema", Map.of("name", "flashcard_generator", "strict", true, "schema", schema)));
+    }
+}
@@ -0,0 +1,86 @@
+package jomeerkatz.project.ai_flashcards.ai;
+
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation jobs only live in the worker queue of the node they were submitted to, when that node dies
+ * they would stay QUEUED or RUNNING forever. On startup and then every stale-job-timeout the jobs of every database
+ * which weren't updated for that long are marked as FAILED. They are not requeued, the cards a job already
+ * stored would be created a second time.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaleGenerationJobSweeper implements SmartLifecycle {
+    static final String INTERRUPTED_MESSAGE = "the generation was interrupted, please start a new job";
+
+    private final DataSource dataSource;
+    private final ObjectProvider<ShardDataSources> shardDataSources;
+    private final AiGenerationProperties properties;
+
+    private ScheduledExecutorService sweeper;
+
+    @Override
+    public void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("generation-job-sweeper").factory());
+        long interval = properties.getStaleJobTimeout().toMillis();
+        sweeper.scheduleWithFixedDelay(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, this::sweep),
+                0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        sweeper.shutdownNow();
+        sweeper = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return sweeper != null;
+    }
+
+    public int failStaleJobs() {
+        int failed = 0;
+        for (DataSource database : ShardDataSources.allDatabases(dataSource, shardDataSources)) {
+            // updated_at is written with the clock of the nodes, so the cutoff is taken from it as well
+            LocalDateTime now = LocalDateTime.now();
+            failed += new JdbcTemplate(database).update(
+                    "update generation_jobs set status = ?, error_message = ?, finished_at = ?, updated_at = ? " +
+                            "where status in (?, ?) and updated_at < ?",
+                    GenerationJobStatus.FAILED.name(), INTERRUPTED_MESSAGE, Timestamp.valueOf(now), Timestamp.valueOf(now),
+                    GenerationJobStatus.QUEUED.name(), GenerationJobStatus.RUNNING.name(),
+                    Timestamp.valueOf(now.minus(properties.getStaleJobTimeout())));
+        }
+        return failed;
+    }
+
+    private void sweep() {
+        try {
+            int failed = failStaleJobs();
+            if (failed > 0) {
+                log.warn("marked {} interrupted generation jobs as failed", failed);
+            }
+        } catch (RuntimeException ex) {
+            // e.g. a shard is down, the next sweep tries again
+            log.warn("could not sweep the stale generation jobs", ex);
+        }
+    }
+}
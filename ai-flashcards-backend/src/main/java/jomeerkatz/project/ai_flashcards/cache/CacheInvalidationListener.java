@@ -0,0 +1,128 @@
+package jomeerkatz.project.ai_flashcards.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import jomeerkatz.project.ai_flashcards.config.CacheInvalidationProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.services.FolderCapabilityService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps one connection per database in LISTEN mode and evicts the entities other nodes changed
+ * (see {@link CacheInvalidationPublisher}) from the local second level cache.
+ */
+@Component
+@ConditionalOnProperty(prefix = "flashcards.cache.invalidation", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener implements SmartLifecycle {
+    private static final Map<String, Class<?>> CACHED_ENTITIES = Map.of(
+            Folder.class.getSimpleName(), Folder.class,
+            User.class.getSimpleName(), User.class
+    );
+
+    private final DataSource dataSource;
+    private final ObjectProvider<ShardDataSources> shardDataSources;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheInvalidationProperties properties;
+    private final ObjectProvider<FolderCapabilityService> folderCapabilityService;
+
+    private final List<Thread> listeners = new ArrayList<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        int number = 0;
+        for (DataSource database : ShardDataSources.allDatabases(dataSource, shardDataSources)) {
+            listeners.add(Thread.ofPlatform()
+                    .daemon()
+                    .name("cache-invalidation-listener-" + number++)
+                    .start(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, () -> listen(database))));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        listeners.forEach(Thread::interrupt);
+        listeners.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen(DataSource database) {
+        while (running) {
+            // the connection is taken from the pool for as long as the node runs
+            try (Connection connection = database.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CacheInvalidationPublisher.CHANNEL);
+                }
+                // notifications sent while we were not listening are lost, start from an empty cache
+                evictAll();
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) properties.getPollTimeout().toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            evict(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("cache invalidation listener lost its connection, reconnecting", ex);
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evict(String payload) {
+        // payload is "<entity>:<id>", e.g. "Folder:42"
+        int separator = payload.indexOf(':');
+        Class<?> entityClass = separator < 0 ? null : CACHED_ENTITIES.get(payload.substring(0, separator));
+        if (entityClass == null) {
+            log.warn("ignoring unknown cache invalidation {}", payload);
+            return;
+        }
+        Long id = Long.valueOf(payload.substring(separator + 1));
+        entityManagerFactory.getCache().evict(entityClass, id);
+        // the folder may have been deleted on the other node, its capabilities are issued again after one more check
+        if (entityClass == Folder.class) {
+            folderCapabilityService.ifAvailable(service -> service.revoke(id));
+        }
+    }
+
+    private void evictAll() {
+        CACHED_ENTITIES.values().forEach(entityManagerFactory.getCache()::evict);
+    }
+}
@@ -0,0 +1,32 @@
+package jomeerkatz.project.ai_flashcards.cache;
+
+import jomeerkatz.project.ai_flashcards.config.CacheInvalidationProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the other backend nodes to drop an entity from their second level cache.
+ * pg_notify runs on the connection of the current transaction and postgres only delivers it on commit,
+ * so other nodes never evict too early and never hear about changes which were rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationPublisher {
+    public static final String CHANNEL = "flashcards_cache_invalidation";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheInvalidationProperties properties;
+
+    public void folderChanged(Long folderId) {
+        publish(Folder.class, folderId);
+    }
+
+    private void publish(Class<?> entityClass, Long id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, CHANNEL, entityClass.getSimpleName() + ":" + id);
+    }
+}
@@ -0,0 +1,23 @@
+package jomeerkatz.project.ai_flashcards.capabilities;
+
+/**
+ * Holds the folder the current request has proven access to with a capability token.
+ * Set by the {@link FolderCapabilityInterceptor}, read by the services instead of checking the ownership again.
+ */
+public final class FolderCapabilityContext {
+    private static final ThreadLocal<Long> GRANTED_FOLDER = new ThreadLocal<>();
+
+    private FolderCapabilityContext() {}
+
+    public static boolean isGranted(Long folderId) {
+        return folderId != null && folderId.equals(GRANTED_FOLDER.get());
+    }
+
+    public static void grant(Long folderId) {
+        GRANTED_FOLDER.set(folderId);
+    }
+
+    public static void clear() {
+        GRANTED_FOLDER.remove();
+    }
+}
@@ -0,0 +1,83 @@
+package jomeerkatz.project.ai_flashcards.capabilities;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.services.FolderCapabilityService;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grants the request access to the folder in its path when it carries a valid capability token.
+ * Without one the ownership is checked once here and a token for the next calls is sent back in the same header.
+ * When the user doesn't own the folder nothing is granted, the service then answers with the usual error.
+ */
+public class FolderCapabilityInterceptor implements AsyncHandlerInterceptor {
+    public static final String HEADER = "X-Folder-Capability";
+
+    private final FolderCapabilityService folderCapabilityService;
+    // requests with other methods keep the full ownership check of the service, every method is handled when empty
+    private final Set<HttpMethod> methods;
+
+    public FolderCapabilityInterceptor(FolderCapabilityService folderCapabilityService) {
+        this(folderCapabilityService, Set.of());
+    }
+
+    public FolderCapabilityInterceptor(FolderCapabilityService folderCapabilityService, Set<HttpMethod> methods) {
+        this.folderCapabilityService = folderCapabilityService;
+        this.methods = methods;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!methods.isEmpty() && !methods.contains(HttpMethod.valueOf(request.getMethod()))) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Long folderId = folderIdOf(request);
+        if (!(authentication instanceof JwtAuthenticationToken jwtAuthentication) || folderId == null) {
+            return true;
+        }
+        String keycloakId = jwtAuthentication.getToken().getSubject();
+        String token = request.getHeader(HEADER);
+        if (token != null && folderCapabilityService.verify(token, keycloakId, folderId)) {
+            FolderCapabilityContext.grant(folderId);
+            return true;
+        }
+        folderCapabilityService.issueIfOwner(keycloakId, folderId).ifPresent(issued -> {
+            response.setHeader(HEADER, issued);
+            FolderCapabilityContext.grant(folderId);
+        });
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        FolderCapabilityContext.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        FolderCapabilityContext.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Long folderIdOf(HttpServletRequest request) {
+        Map<String, String> pathVariables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String folderId = pathVariables == null ? null : pathVariables.get("folderId");
+        if (folderId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(folderId);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
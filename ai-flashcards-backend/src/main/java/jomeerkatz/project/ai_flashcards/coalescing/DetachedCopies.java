@@ -0,0 +1,60 @@
+package jomeerkatz.project.ai_flashcards.coalescing;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * Copies of read entities which belong to no persistence context, for results handed to other requests
+ * than the one which read them. The entities of a read stay bound to the session of its request,
+ * sharing them would let other requests change them or load their lazy fields on a foreign session.
+ * Users are copied as their id only, the mappers never read more of them.
+ */
+public final class DetachedCopies {
+    private DetachedCopies() {}
+
+    public static Page<Card> ofCards(Page<Card> cards) {
+        return new PageImpl<>(cards.getContent().stream().map(DetachedCopies::copy).toList(),
+                cards.getPageable(), cards.getTotalElements());
+    }
+
+    public static Page<Folder> ofFolders(Page<Folder> folders) {
+        return new PageImpl<>(folders.getContent().stream().map(DetachedCopies::copy).toList(),
+                folders.getPageable(), folders.getTotalElements());
+    }
+
+    // reads with ?fields= only carry some of the fields, the others stay null
+    private static Card copy(Card card) {
+        return Card.builder()
+                .id(card.getId())
+                .user(reference(card.getUser()))
+                .folder(card.getFolder() == null ? null : copy(card.getFolder()))
+                .question(card.getQuestion())
+                .answer(card.getAnswer())
+                .status(card.getStatus())
+                .createdAt(card.getCreatedAt())
+                .updatedAt(card.getUpdatedAt())
+                .version(card.getVersion())
+                .easeFactor(card.getEaseFactor())
+                .intervalDays(card.getIntervalDays())
+                .repetitions(card.getRepetitions())
+                .dueAt(card.getDueAt())
+                .build();
+    }
+
+    private static Folder copy(Folder folder) {
+        return Folder.builder()
+                .id(folder.getId())
+                .user(reference(folder.getUser()))
+                .name(folder.getName())
+                .createdAt(folder.getCreatedAt())
+                .updatedAt(folder.getUpdatedAt())
+                .build();
+    }
+
+    private static User reference(User user) {
+        return user == null ? null : User.builder().id(user.getId()).build();
+    }
+}
@@ -0,0 +1,125 @@
+package jomeerkatz.project.ai_flashcards.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jomeerkatz.project.ai_flashcards.config.ReadCoalescingProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single flight for reads: while a read of a user is running, identical reads of the same user wait for it
+ * and get its result instead of sending the same query again (several tabs, re-renders of the frontend).
+ * Only reads which are running right now are shared, nothing is kept once the first one returned.
+ * The waiting reads get copies of the result (see {@link DetachedCopies}), never the objects of the first read,
+ * and don't wait longer than the deadline of their own request.
+ */
+@Component
+public class ReadCoalescer {
+    private static final String METRIC_NAME = "flashcards.reads";
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<ReadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public ReadCoalescer(ReadCoalescingProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(METRIC_NAME + ".in.flight", inFlight, Map::size)
+                .description("distinct reads running right now, each shared by all identical ones")
+                .register(meterRegistry);
+    }
+
+    // for reads of immutable values, e.g. counts
+    public <T> T read(String operation, String keycloakId, List<?> arguments, Supplier<T> read) {
+        return read(operation, keycloakId, arguments, read, UnaryOperator.identity());
+    }
+
+    /**
+     * Runs the read, or waits for the identical one of the user which is already running.
+     * The arguments have to identify the read completely, e.g. folder id and pageable.
+     * copy turns a result into one which can be handed to another request, e.g. {@link DetachedCopies#ofCards}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read(String operation, String keycloakId, List<?> arguments, Supplier<T> read, UnaryOperator<T> copy) {
+        if (!enabled) {
+            return read.get();
+        }
+        ReadKey key = new ReadKey(operation, keycloakId, arguments);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            counter(operation, "coalesced").increment();
+            // every waiting read gets its own copy, they may change what they got
+            return copy.apply((T) await(running));
+        }
+
+        counter(operation, "executed").increment();
+        try {
+            T result = read.get();
+            // the first read keeps its own entities, the others share a copy of them
+            call.complete(copy.apply(result));
+            return result;
+        } catch (RuntimeException | Error ex) {
+            // the waiting reads fail the same way, e.g. with FolderAccessDeniedException
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    // a read which started before a change of the user may miss it, reads coming in afterwards start a new one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        inFlight.keySet().removeIf(key -> key.keycloakId().equals(event.getKeycloakId()));
+    }
+
+    private Counter counter(String operation, String outcome) {
+        return Counter.builder(METRIC_NAME)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    // waits as long as the deadline of the own request allows, the first read may have a longer one
+    private static Object await(CompletableFuture<Object> running) {
+        Duration remaining = RequestDeadline.remaining();
+        try {
+            if (remaining == null) {
+                return running.get();
+            }
+            return running.get(remaining.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw new QueryTimeoutException("deadline of the request passed while waiting for an identical read", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for an identical read", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private record ReadKey(String operation, String keycloakId, List<?> arguments) {
+    }
+}
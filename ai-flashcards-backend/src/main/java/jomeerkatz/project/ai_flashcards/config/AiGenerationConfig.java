@@ -0,0 +1,27 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AiGenerationConfig {
+
+    // bounded on purpose: slow model calls pile up in the queue and are rejected there, not in the web threads
+    // not a default candidate, so it only gets injected by name and boot still sets up its own application task executor
+    @Bean(defaultCandidate = false)
+    public ThreadPoolTaskExecutor generationJobExecutor(AiGenerationProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkerThreads());
+        executor.setMaxPoolSize(properties.getWorkerThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("generation-job-");
+        // the jobs write many cards, they take their connections from the bulk pool
+        executor.setTaskDecorator(task -> () -> WorkloadContext.runAs(WorkloadClass.BULK, task));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(properties.getRequestTimeout().toMillis());
+        return executor;
+    }
+}
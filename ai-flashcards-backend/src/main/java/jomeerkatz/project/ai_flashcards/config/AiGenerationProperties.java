@@ -0,0 +1,37 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.ai")
+public class AiGenerationProperties {
+    // any OpenAI compatible api, e.g. https://openrouter.ai/api/v1 or a local model server
+    private String baseUrl = "https://openrouter.ai/api/v1";
+
+    private String apiKey;
+
+    private String model = "openai/gpt-5-nano";
+
+    // same limit as the bulk endpoint
+    private int maxCards = 10;
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    // upper bound for one whole model call, including streaming the answer
+    private Duration requestTimeout = Duration.ofMinutes(3);
+
+    // generation jobs running at the same time on this node
+    private int workerThreads = 4;
+
+    // jobs waiting for a worker, submits above this are rejected with a 503
+    private int queueCapacity = 50;
+
+    // how long a client may stay subscribed to the events of a job
+    private Duration subscriptionTimeout = Duration.ofMinutes(5);
+
+    // queued or running jobs not updated for this long belong to a node which died, they are marked as failed
+    private Duration staleJobTimeout = Duration.ofMinutes(15);
+}
@@ -0,0 +1,18 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.cache.invalidation")
+public class CacheInvalidationProperties {
+    // broadcast second level cache evictions to the other backend nodes through postgres LISTEN/NOTIFY
+    private boolean enabled = true;
+
+    // how long the listener blocks waiting for notifications before checking whether it should stop
+    private Duration pollTimeout = Duration.ofSeconds(1);
+
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.card-fragments")
+public class CardFragmentCacheProperties {
+    private boolean enabled = true;
+
+    // json of all cached cards together, the least used cards are dropped above it
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.changes")
+public class ChangeStreamProperties {
+    // clients reconnect after this and refetch, so a stream never lives forever
+    private Duration timeout = Duration.ofMinutes(30);
+
+    // keeps proxies from closing idle streams and finds connections of clients which went away
+    private Duration heartbeatInterval = Duration.ofSeconds(25);
+
+    // e.g. several browser tabs, the oldest stream is closed when a user opens one more
+    private int maxConnectionsPerUser = 5;
+}
@@ -0,0 +1,32 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.deadlines")
+public class DeadlineProperties {
+    // every request under /api gets a deadline, its database work is cancelled once it passed
+    private boolean enabled = true;
+
+    // for requests matching no route
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+
+    // a client may ask for a shorter deadline (X-Request-Timeout in milliseconds), never for a longer one
+    private String header = "X-Request-Timeout";
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+        // empty for every method
+        private String method;
+        private String pattern;
+        // zero for no deadline at all, e.g. for the admin migrations
+        private Duration timeout;
+    }
+}
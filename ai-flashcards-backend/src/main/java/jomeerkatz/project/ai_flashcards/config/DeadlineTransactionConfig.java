@@ -0,0 +1,41 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.deadline.DeadlineDataSource;
+import jomeerkatz.project.ai_flashcards.deadline.DeadlineJpaTransactionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.transaction.autoconfigure.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.deadlines", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DeadlineTransactionConfig {
+    // the @Primary one of the plain, workload or shard routing setup, the pools behind it are reached through it
+    private static final String PRIMARY_DATA_SOURCE = "dataSource";
+
+    // replaces the transaction manager spring boot would create, set up the same way
+    @Bean
+    public JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new DeadlineJpaTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    // wraps the data source in use, static so it sees it before anything else got it
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return PRIMARY_DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)
+                        ? new DeadlineDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
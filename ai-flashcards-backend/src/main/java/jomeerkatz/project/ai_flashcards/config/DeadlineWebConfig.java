@@ -0,0 +1,32 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.deadline.DeadlineInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.deadlines", name = "enabled", havingValue = "true", matchIfMissing = true)
+// registered here as well, web slice tests pick up this configurer but not the properties scan
+@EnableConfigurationProperties(DeadlineProperties.class)
+@RequiredArgsConstructor
+public class DeadlineWebConfig implements WebMvcConfigurer {
+    private final DeadlineProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        DeadlineInterceptor interceptor = new DeadlineInterceptor(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+        registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/**")
+                // first, the time waiting for a bulkhead or a shard lookup counts against the deadline as well
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
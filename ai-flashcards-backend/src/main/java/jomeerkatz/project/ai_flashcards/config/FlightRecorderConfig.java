@@ -0,0 +1,17 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.flightrecorder.ServiceCallPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.flight-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class FlightRecorderConfig {
+
+    // static, so the post processor exists before the services are created
+    @Bean
+    public static ServiceCallPostProcessor serviceCallPostProcessor() {
+        return new ServiceCallPostProcessor();
+    }
+}
@@ -0,0 +1,25 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.flight-recorder")
+public class FlightRecorderProperties {
+    // an always running jfr recording, GET /api/admin/flight-recordings dumps its last minutes
+    private boolean enabled = true;
+
+    // jfr settings the recording starts from, "default" stays around 1% overhead, "profile" samples more
+    private String settings = "default";
+
+    // the recording drops its oldest data beyond either bound
+    private Duration maxAge = Duration.ofMinutes(30);
+
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+
+    // service calls faster than this are not recorded, zero records every call
+    private Duration serviceCallThreshold = Duration.ZERO;
+}
@@ -0,0 +1,18 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.folder-capabilities")
+public class FolderCapabilityProperties {
+    private boolean enabled = true;
+
+    // shared by all nodes, without one every node signs with its own random key and only accepts its own tokens
+    private String secret;
+
+    // also how long a deleted folder stays on the denylist
+    private Duration ttl = Duration.ofMinutes(10);
+}
@@ -0,0 +1,37 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.capabilities.FolderCapabilityInterceptor;
+import jomeerkatz.project.ai_flashcards.services.FolderCapabilityService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+@Configuration
+@RequiredArgsConstructor
+public class FolderCapabilityWebConfig implements WebMvcConfigurer {
+    // missing when the capabilities are disabled and in web slice tests
+    private final ObjectProvider<FolderCapabilityService> folderCapabilityService;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        FolderCapabilityService service = folderCapabilityService.getIfAvailable();
+        if (service == null) {
+            return;
+        }
+        registry.addInterceptor(new FolderCapabilityInterceptor(service))
+                .addPathPatterns("/api/folders/*/cards", "/api/folders/*/cards/**", "/api/folders/*/learn-cards/*",
+                        "/api/folders/*/due-cards", "/api/folders/*/update-learning-card/**")
+                // after the shard routing, the ownership check reads the database of the user
+                .order(Ordered.LOWEST_PRECEDENCE);
+        // GET /{folderId} pages through the cards, PUT and DELETE on the same path change the folder itself
+        registry.addInterceptor(new FolderCapabilityInterceptor(service, Set.of(HttpMethod.GET)))
+                .addPathPatterns("/api/folders/*")
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.learning-queue")
+public class LearningQueueProperties {
+    // folders merged into one cross folder learning queue, without ?folderIds= the ones changed last take part.
+    // every folder costs a head query, so this bounds the queries of one request
+    private int maxFolders = 50;
+}
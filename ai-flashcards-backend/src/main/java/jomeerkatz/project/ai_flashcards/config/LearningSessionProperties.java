@@ -0,0 +1,28 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.sessions")
+public class LearningSessionProperties {
+    // a session nobody pulled from for this long is dropped, the client starts a new one
+    private Duration idleTimeout = Duration.ofMinutes(15);
+
+    // card ids a session holds at once, refilled in the background when half of them are used up
+    private int bufferSize = 200;
+
+    // upcoming cards whose question and answer are already loaded
+    private int prefetchSize = 20;
+
+    // e.g. several tabs, starting one more drops the oldest session of the user
+    private int maxSessionsPerUser = 3;
+
+    private int maxSessions = 10_000;
+
+    // for the prefetched cards of all sessions together, above it cards are loaded when pulled instead
+    private DataSize memoryBudget = DataSize.ofMegabytes(64);
+}
@@ -0,0 +1,27 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.outbox")
+public class OutboxProperties {
+    // the outbox is always written, this only turns the publishing off, e.g. on nodes which only serve requests
+    private boolean relayEnabled = true;
+
+    // how long the relay sleeps when it found less than a full batch
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    private int batchSize = 200;
+
+    // events are only relayed when they are older than this. the ids come from a sequence, so a transaction which
+    // started earlier can commit a smaller id after a later one was already relayed, waiting lets it finish first.
+    // the age is counted from the start of the writing transaction, so this has to cover the longest one
+    private Duration settleDelay = Duration.ofSeconds(2);
+
+    // appends every event as a json line to this file, unset means no file sink
+    private Path filePath;
+}
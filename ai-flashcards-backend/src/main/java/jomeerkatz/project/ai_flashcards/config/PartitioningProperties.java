@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.partitioning")
+public class PartitioningProperties {
+    // number of hash partitions of cards (by user_id), fixed once the table is migrated
+    private int partitions = 16;
+
+    // rows copied per statement while backfilling the partitioned table
+    private int batchSize = 5000;
+}
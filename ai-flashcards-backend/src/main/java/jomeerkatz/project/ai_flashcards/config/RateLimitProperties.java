@@ -0,0 +1,22 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.rate-limit")
+public class RateLimitProperties {
+    // per-user token buckets and load shedding for the write endpoints under /api/folders
+    private boolean enabled = true;
+
+    // burst a single user may send before being throttled
+    private double capacity = 30;
+
+    private double refillPerSecond = 0.5;
+
+    // the ai bulk import and ai generation jobs write many rows at once, so they take more tokens than a single card
+    private double bulkCost = 5;
+
+    // writes running at the same time over all users, anything above is shed with a 503
+    private int maxConcurrentWrites = 64;
+}
@@ -0,0 +1,29 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.ratelimit.WriteAdmissionInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+// registered here as well, web slice tests pick up this configurer but not the properties scan
+@EnableConfigurationProperties(RateLimitProperties.class)
+@RequiredArgsConstructor
+public class RateLimitWebConfig implements WebMvcConfigurer {
+    private final RateLimitProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // without actuator (e.g. in web slice tests) the metrics are simply kept locally
+        WriteAdmissionInterceptor interceptor = new WriteAdmissionInterceptor(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+        registry.addInterceptor(interceptor).addPathPatterns("/api/folders", "/api/folders/**");
+    }
+}
@@ -0,0 +1,10 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.read-coalescing")
+public class ReadCoalescingProperties {
+    private boolean enabled = true;
+}
@@ -0,0 +1,34 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.read-fallback")
+public class ReadFallbackProperties {
+    // circuit breaker on the database reads, while it is open reads get their last good result and writes a 503
+    private boolean enabled = true;
+
+    // a read slower than this counts against the database like a failed one
+    private Duration slowCallThreshold = Duration.ofMillis(500);
+
+    // the breaker decides over the last reads, but not before it has seen a few of them
+    private int windowSize = 20;
+
+    private int minimumCalls = 10;
+
+    // percentage of slow or failed reads in the window which opens the breaker
+    private int failureRateThreshold = 50;
+
+    // how long the database is left alone before one read is let through again to probe it
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    // older results are not served anymore, the read fails instead
+    private Duration maxStaleness = Duration.ofMinutes(15);
+
+    // estimated heap size of all cached results, mostly card texts, the least used results are dropped above it
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+}
@@ -0,0 +1,28 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.resilience.DatabaseCircuitInterceptor;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class ReadFallbackWebConfig implements WebMvcConfigurer {
+    // missing in web slice tests
+    private final ObjectProvider<StaleReadCache> staleReadCache;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        StaleReadCache cache = staleReadCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        // after the shard routing, the breaker of the shard of the user decides
+        registry.addInterceptor(new DatabaseCircuitInterceptor(cache)).addPathPatterns("/api/**")
+                .order(Ordered.LOWEST_PRECEDENCE);
+    }
+}
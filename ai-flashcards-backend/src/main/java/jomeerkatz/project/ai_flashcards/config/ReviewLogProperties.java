@@ -0,0 +1,22 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.reviews")
+public class ReviewLogProperties {
+    // reviews counted into the rollups per batch
+    private int batchSize = 500;
+
+    // a review waits at most this long before it is counted, failed batches are retried after a multiple of it
+    private Duration flushInterval = Duration.ofSeconds(1);
+
+    // reviews waiting in memory, above it the learning requests count their reviews themselves
+    private int queueCapacity = 20_000;
+
+    // longest range one progress request may cover, in buckets
+    private int maxBuckets = 400;
+}
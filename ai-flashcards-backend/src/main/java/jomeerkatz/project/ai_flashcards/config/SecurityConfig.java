@@ -1,19 +1,25 @@
 package jomeerkatz.project.ai_flashcards.config;
 
 
+import jomeerkatz.project.ai_flashcards.capabilities.FolderCapabilityInterceptor;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -22,7 +28,8 @@ public class SecurityConfig {
     // securityfilterchain gets into the spring context (gets a bean), where all request will go through
     // each filter we will create with the builder HttpSecurity (http), which has different "filter fields" which we can
     // configure.
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           UserProvisioningJwtAuthenticationConverter jwtAuthenticationConverter) throws Exception {
         // HttpSecurity (http) is the builder object
         // where we can create the filter -> the result with .build is from type SecurityFilterChain
         http
@@ -41,6 +48,8 @@ public class SecurityConfig {
                                 // means, browser can ask, can i really send this request. that's the meaning of OPTIONS
                                 // is like GET, DELETE etc. (method)
                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                                // operational endpoints (e.g. moving users between shards) need the admin scope in the token
+                                .requestMatchers("/api/admin/**").hasAuthority("SCOPE_flashcards-admin")
                                 // every other request must be authenticated
                                 .anyRequest().authenticated()
                 )
@@ -55,7 +64,7 @@ public class SecurityConfig {
                                         // now we are going to the JWT configuration block (which is also a builder object)
                                         // and this also says, we expect now JWT format tokens
                                         // we access the settings for jwt
-                                        jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()) // use this custom converter
+                                        jwt.jwtAuthenticationConverter(jwtAuthenticationConverter) // use this custom converter
                                 // when creating authentification objects
                         ))
                 .sessionManagement(session ->
@@ -86,6 +95,8 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(Arrays.asList("*"));
         // allow credentials (Authorization header / cookies) to be sent
         configuration.setAllowCredentials(true);
+        // the browser only lets the frontend read the folder capability and the stale marker when they are exposed
+        configuration.setExposedHeaders(List.of(FolderCapabilityInterceptor.HEADER, StaleReadCache.STALE_HEADER, HttpHeaders.AGE));
         // cache preflight responses for 1 hour
         configuration.setMaxAge(3600L);
 
@@ -94,9 +105,11 @@ public class SecurityConfig {
         return source;
     }
 
+    // the usual jwt conversion, plus creating the user the first time a token of them comes in
     @Bean
-    public JwtAuthenticationConverter jwtAuthenticationConverter() {
-        return new JwtAuthenticationConverter();
+    public UserProvisioningJwtAuthenticationConverter jwtAuthenticationConverter(UserService userService,
+                                                                                ObjectProvider<ShardDirectory> shardDirectory) {
+        return new UserProvisioningJwtAuthenticationConverter(userService, shardDirectory);
     }
 }
 
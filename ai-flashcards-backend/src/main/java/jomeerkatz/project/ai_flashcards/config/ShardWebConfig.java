@@ -0,0 +1,21 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.sharding.ShardRoutingInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardWebConfig implements WebMvcConfigurer {
+    private final ShardDirectory shardDirectory;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ShardRoutingInterceptor(shardDirectory)).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,33 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.sharding.ShardRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardDataSources shardDataSources(ShardingProperties properties) {
+        return new ShardDataSources(properties);
+    }
+
+    // replaces the data source spring boot would build from spring.datasource.*, so JPA and JdbcTemplate are routed too
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardingProperties properties, ShardDataSources shardDataSources) {
+        ShardRoutingDataSource routingDataSource = new ShardRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>(shardDataSources.asMap());
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(shardDataSources.get(properties.getDirectoryShard()));
+        return routingDataSource;
+    }
+}
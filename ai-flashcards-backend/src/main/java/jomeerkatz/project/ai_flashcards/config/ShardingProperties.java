@@ -0,0 +1,39 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.sharding")
+public class ShardingProperties {
+    // when disabled, everything keeps running on spring.datasource like before
+    private boolean enabled = false;
+
+    // shard which holds the user -> shard directory (and all users from before sharding was enabled)
+    private int directoryShard = 0;
+
+    // how long a node trusts its cached user -> shard assignment before asking the directory again
+    private Duration assignmentCacheTtl = Duration.ofSeconds(5);
+
+    // rows read and inserted at once when a user is moved to another shard
+    private int copyBatchSize = 1000;
+
+    // how long a move waits for the running generation jobs of the user before it gives up
+    private Duration drainTimeout = Duration.ofMinutes(5);
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        // stable id, it is encoded into every generated primary key, so never renumber a shard
+        private int id;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,61 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+/**
+ * Creates the user of a token the first time its subject is seen, so clients don't have to call POST /api/users first.
+ * That is one insert ... on conflict do nothing per subject and node, afterwards the subject is remembered.
+ */
+@Slf4j
+public class UserProvisioningJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
+    // a forgotten subject costs one more insert which does nothing
+    private static final int MAX_REMEMBERED_SUBJECTS = 100_000;
+
+    private final JwtAuthenticationConverter delegate = new JwtAuthenticationConverter();
+    private final UserService userService;
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+    private final Cache<String, Boolean> provisionedSubjects = Caffeine.newBuilder()
+            .maximumSize(MAX_REMEMBERED_SUBJECTS)
+            .build();
+
+    public UserProvisioningJwtAuthenticationConverter(UserService userService, ObjectProvider<ShardDirectory> shardDirectory) {
+        this.userService = userService;
+        this.shardDirectory = shardDirectory;
+    }
+
+    @Override
+    public AbstractAuthenticationToken convert(Jwt jwt) {
+        AbstractAuthenticationToken authentication = delegate.convert(jwt);
+        String subject = jwt.getSubject();
+        if (subject != null && provisionedSubjects.getIfPresent(subject) == null) {
+            try {
+                // concurrent first requests of a subject wait for the same insert
+                provisionedSubjects.get(subject, this::provision);
+            } catch (DataAccessException ex) {
+                // not remembered, the next request tries again. this one fails later with a missing user at worst
+                log.warn("could not provision user {}", subject, ex);
+            }
+        }
+        return authentication;
+    }
+
+    // runs before the shard routing of the request, so the shard of the subject is looked up here
+    private Boolean provision(String subject) {
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory == null) {
+            return userService.provisionUser(subject);
+        }
+        return ShardContext.callOn(directory.resolve(subject).getShardId(), () -> userService.provisionUser(subject));
+    }
+}
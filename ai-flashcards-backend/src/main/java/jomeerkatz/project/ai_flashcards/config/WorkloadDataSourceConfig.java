@@ -0,0 +1,38 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadDataSources;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.workloads", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WorkloadDataSourceConfig {
+
+    // with sharding every shard keeps its single pool, the workload classes are then only limited by their permits
+    @Bean
+    @ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public WorkloadDataSources workloadDataSources(DataSourceProperties dataSourceProperties, WorkloadProperties properties) {
+        return new WorkloadDataSources(dataSourceProperties, properties);
+    }
+
+    // replaces the data source spring boot would build from spring.datasource.*, so JPA and JdbcTemplate are routed too
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public DataSource dataSource(WorkloadDataSources workloadDataSources) {
+        WorkloadRoutingDataSource routingDataSource = new WorkloadRoutingDataSource();
+        Map<Object, Object> targets = new HashMap<>(workloadDataSources.asMap());
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(workloadDataSources.get(WorkloadClass.INTERACTIVE));
+        return routingDataSource;
+    }
+}
@@ -0,0 +1,56 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "flashcards.workloads")
+public class WorkloadProperties {
+    // interactive, bulk and maintenance requests each get their own connection pool and concurrency limit
+    private boolean enabled = true;
+
+    // a GET asking for bigger pages than this is a bulk read
+    private int bulkPageSize = 200;
+
+    private Bulkhead interactive = new Bulkhead(10, 200, Duration.ofMillis(100), new ArrayList<>());
+
+    private Bulkhead bulk = new Bulkhead(4, 4, Duration.ofSeconds(2), new ArrayList<>(List.of(
+            "POST /api/folders/*/cards/bulk",
+            "POST /api/folders/*/generation-jobs",
+            "GET /api/folders/*/cards/export",
+            "DELETE /api/folders/*")));
+
+    private Bulkhead maintenance = new Bulkhead(4, 2, Duration.ofSeconds(5), new ArrayList<>(List.of(
+            "/api/admin/**")));
+
+    public Bulkhead get(WorkloadClass workloadClass) {
+        return switch (workloadClass) {
+            case INTERACTIVE -> interactive;
+            case BULK -> bulk;
+            case MAINTENANCE -> maintenance;
+        };
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bulkhead {
+        // connections of the own pool, only used when sharding is disabled
+        private int poolSize;
+
+        // requests of this class running at the same time, anything above waits for max-wait and is then shed with a 503
+        private int maxConcurrent;
+
+        private Duration maxWait;
+
+        // "METHOD /pattern" or "/pattern" for every method, requests matching no route are interactive
+        private List<String> routes;
+    }
+}
@@ -0,0 +1,28 @@
+package jomeerkatz.project.ai_flashcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@ConditionalOnProperty(prefix = "flashcards.workloads", name = "enabled", havingValue = "true", matchIfMissing = true)
+// registered here as well, web slice tests pick up this configurer but not the properties scan
+@EnableConfigurationProperties(WorkloadProperties.class)
+@RequiredArgsConstructor
+public class WorkloadWebConfig implements WebMvcConfigurer {
+    private final WorkloadProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WorkloadInterceptor interceptor = new WorkloadInterceptor(properties, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,32 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.events.ChangeStreamBroadcaster;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.utility.JwtMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping(path = "/api/changes")
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeStreamController {
+    private final UserService userService;
+    private final ChangeStreamBroadcaster changeStreamBroadcaster;
+
+    // pushes "change" events for the folders and cards of the user, the client patches its state instead of refetching
+    // only changes made through the node holding the stream reach it, so the client refetches once after every (re)connect
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@AuthenticationPrincipal Jwt jwt) {
+        User savedUser = userService.getUserOrThrow(JwtMapper.toUser(jwt));
+        return changeStreamBroadcaster.connect(savedUser.getKeycloakId());
+    }
+}
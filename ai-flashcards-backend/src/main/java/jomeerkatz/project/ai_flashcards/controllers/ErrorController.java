@@ -3,13 +3,18 @@ package jomeerkatz.project.ai_flashcards.controllers;
 import jomeerkatz.project.ai_flashcards.domain.dtos.ErrorDto;
 import jomeerkatz.project.ai_flashcards.exceptions.*;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
+import java.time.Duration;
 import java.util.stream.Collectors;
 
 @RestController
@@ -67,6 +72,113 @@ public class ErrorController {
         return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(CardVersionConflictException.class)
+    public ResponseEntity<ErrorDto> handleCardVersionConflictException(CardVersionConflictException ex) {
+        log.error("caught CardVersionConflictException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(PartitionMigrationInProgressException.class)
+    public ResponseEntity<ErrorDto> handlePartitionMigrationInProgressException(PartitionMigrationInProgressException ex) {
+        log.error("caught PartitionMigrationInProgressException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.CONFLICT.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(GenerationJobNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleGenerationJobNotFoundException(GenerationJobNotFoundException ex) {
+        log.error("caught GenerationJobNotFoundException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(LearningSessionNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleLearningSessionNotFoundException(LearningSessionNotFoundException ex) {
+        log.error("caught LearningSessionNotFoundException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.NOT_FOUND.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ShardUnavailableException.class)
+    public ResponseEntity<ErrorDto> handleShardUnavailableException(ShardUnavailableException ex) {
+        log.error("caught ShardUnavailableException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ShardMigrationException.class)
+    public ResponseEntity<ErrorDto> handleShardMigrationException(ShardMigrationException ex) {
+        log.error("caught ShardMigrationException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorDto> handleRateLimitExceededException(RateLimitExceededException ex) {
+        log.error("caught RateLimitExceededException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+                .body(errorDto);
+    }
+
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<ErrorDto> handleDatabaseUnavailableException(DatabaseUnavailableException ex) {
+        log.error("caught DatabaseUnavailableException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+                .body(errorDto);
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorDto> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        log.error("caught ServiceOverloadedException", ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+                .body(errorDto);
+    }
+
+    // cancelled by the deadline of the request, see RequestDeadline
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity<ErrorDto> handleDeadlineExceeded(Exception ex) {
+        log.error("caught {}", ex.getClass().getSimpleName(), ex);
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.GATEWAY_TIMEOUT.value())
+                .message("the request took too long and was cancelled")
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorDto> handleMethodArgumentNotValidException(MethodArgumentNotValidException ex) {
         log.error("caught MethodArgumentNotValidException", ex);
@@ -83,6 +195,22 @@ public class ErrorController {
         return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ErrorDto> handleHandlerMethodValidationException(HandlerMethodValidationException ex) {
+        log.error("caught HandlerMethodValidationException", ex);
+        String errorMessage = ex
+                .getParameterValidationResults()
+                .stream()
+                .flatMap(result -> result.getResolvableErrors().stream()
+                        .map(error -> result.getMethodParameter().getParameterName() + ": " + error.getDefaultMessage()))
+                .collect(Collectors.joining(", "));
+        ErrorDto errorDto = ErrorDto.builder()
+                .status(HttpStatus.BAD_REQUEST.value())
+                .message(errorMessage)
+                .build();
+        return new ResponseEntity<>(errorDto, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(BaseException.class)
     public ResponseEntity<ErrorDto> handleBaseException(BaseException ex) {
         log.error("caught BaseException", ex);
@@ -102,4 +230,9 @@ public class ErrorController {
                 .build();
         return new ResponseEntity<>(errorDto, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    // Retry-After only takes whole seconds, round up so clients never come back too early
+    private static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
 }
@@ -0,0 +1,39 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jomeerkatz.project.ai_flashcards.flightrecorder.ContinuousRecording;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@RestController
+@RequestMapping(path = "/api/admin/flight-recordings")
+@ConditionalOnProperty(prefix = "flashcards.flight-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class FlightRecordingAdminController {
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ContinuousRecording continuousRecording;
+
+    // the last minutes of the continuous recording as a .jfr file, e.g. jfr print --events ServiceCall
+    @GetMapping
+    public void dumpFlightRecording(@RequestParam(name = "minutes", defaultValue = "10") @Min(1) @Max(1440) int minutes,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"flashcards-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr\"");
+        continuousRecording.dump(Duration.ofMinutes(minutes), response.getOutputStream());
+    }
+}
@@ -1,31 +1,45 @@
 package jomeerkatz.project.ai_flashcards.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.FolderCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.dtos.*;
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
 import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
 import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
 import jomeerkatz.project.ai_flashcards.services.CardService;
 import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
 import jomeerkatz.project.ai_flashcards.utility.JwtMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.parameters.P;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping(path = "/api/folders")
@@ -36,6 +50,8 @@ public class FolderController {
     private final FolderMapper folderMapper;
     private final CardService cardService;
     private final CardMapper cardMapper;
+    private final GenerationJobService generationJobService;
+    private final GenerationJobMapper generationJobMapper;
 
     @PostMapping
     public ResponseEntity<FolderDto> createFolder(@AuthenticationPrincipal Jwt jwt, @Valid @RequestBody FolderCreateUpdateRequestDto folderCreateUpdateRequestDto) {
@@ -52,11 +68,57 @@ public class FolderController {
                 .map(folderMapper::toFolderDto);
     }
 
+    // everything the dashboard needs for several folders in one request
+    @GetMapping(path = "/summaries")
+    public List<FolderSummaryDto> getFolderSummaries(@AuthenticationPrincipal Jwt jwt,
+                                                     @RequestParam(name = "ids") @Size(min = 1, max = 50) List<Long> folderIds,
+                                                     @RequestParam(name = "cards", defaultValue = "3") @Min(0) @Max(20) int cardsPerFolder) {
+        User user = JwtMapper.toUser(jwt);
+        return folderService.getFolderSummaries(user, folderIds, cardsPerFolder).stream()
+                .map(folderMapper::toFolderSummaryDto)
+                .toList();
+    }
+
+    // the next cards to learn over several folders, bad cards first and the longest untouched first.
+    // ?folderIds= picks the folders, without it the folders of the user changed last take part (flashcards.learning-queue.max-folders)
+    @GetMapping(path = "/learn-cards")
+    public List<CardDto> getNextCardsForLearningAcrossFolders(@AuthenticationPrincipal Jwt jwt,
+                                                              @RequestParam(name = "folderIds", required = false) @Size(max = 50) List<Long> folderIds,
+                                                              @RequestParam(name = "limit", defaultValue = "20") @Min(1) @Max(100) int limit) {
+        User user = JwtMapper.toUser(jwt);
+        return cardService.getLearningQueue(user, folderIds, limit).stream()
+                .map(cardMapper::toDto)
+                .toList();
+    }
+
+    // ?fields=id,question selects only these columns, without it every field is returned
     @GetMapping(path = "/{folderId}")
     public Page<CardDto> getAllCardsOfFolder(@AuthenticationPrincipal Jwt jwt,
                                              @PathVariable(name = "folderId") Long folderId,
+                                             @RequestParam(name = "fields", required = false) List<String> fields,
                                              @PageableDefault(size = 10, page = 0) Pageable pageable) {
-        return cardService.getAllCards(JwtMapper.toUser(jwt), folderId, pageable).map(cardMapper::toDto);
+        Set<CardField> selectedFields = CardField.parse(fields);
+        return cardService.getAllCards(JwtMapper.toUser(jwt), folderId, selectedFields, pageable).map(toDto(selectedFields));
+    }
+
+    // same json as GET /{folderId}, the rows go from jdbc straight into the response without entities and dtos
+    @GetMapping(path = "/{folderId}/cards")
+    public void streamCardsOfFolder(@AuthenticationPrincipal Jwt jwt,
+                                    @PathVariable(name = "folderId") Long folderId,
+                                    @PageableDefault(size = 10, page = 0) Pageable pageable,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        cardService.writeCardPage(JwtMapper.toUser(jwt), folderId, pageable, response.getOutputStream());
+    }
+
+    // all cards of the folder as one json array, streamed however large the folder is
+    @GetMapping(path = "/{folderId}/cards/export")
+    public void exportCardsOfFolder(@AuthenticationPrincipal Jwt jwt,
+                                    @PathVariable(name = "folderId") Long folderId,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"folder-" + folderId + "-cards.json\"");
+        cardService.exportCards(JwtMapper.toUser(jwt), folderId, response.getOutputStream());
     }
 
     @PutMapping(path = "/{folderId}")
@@ -121,19 +183,33 @@ public class FolderController {
     public Page<CardDto> getAlNextCardsForLearning(@AuthenticationPrincipal Jwt jwt,
                                                    @PathVariable(name = "status") CardStatus status,
                                                    @PathVariable(name = "folderId") Long folderId,
+                                                   @RequestParam(name = "fields", required = false) List<String> fields,
                                                    @PageableDefault(size = 20, page = 0) Pageable pageable){
         User user = JwtMapper.toUser(jwt);
-        return cardService.getCardsByStatus(user, folderId, status, pageable).map(cardMapper::toDto);
+        Set<CardField> selectedFields = CardField.parse(fields);
+        return cardService.getCardsByStatus(user, folderId, status, selectedFields, pageable).map(toDto(selectedFields));
+    }
+
+    // the next study batch, cards whose due time has come, the ones due the longest first
+    @GetMapping(path = "/{folderId}/due-cards")
+    public List<CardDto> getDueCards(@AuthenticationPrincipal Jwt jwt,
+                                     @PathVariable(name = "folderId") Long folderId,
+                                     @RequestParam(name = "limit", defaultValue = "20") @Min(1) @Max(100) int limit) {
+        User user = JwtMapper.toUser(jwt);
+        return cardService.getDueCards(user, folderId, limit).stream()
+                .map(cardMapper::toDto)
+                .toList();
     }
 
     @PutMapping(path = "/{folderId}/update-learning-card/{cardId}/{status}")
     public ResponseEntity<Void> updateCardStatus(@AuthenticationPrincipal Jwt jwt,
                                                  @PathVariable(name = "status") CardStatus status,
                                                  @PathVariable(name = "folderId") Long folderId,
-                                                 @PathVariable(name = "cardId") Long cardId){
+                                                 @PathVariable(name = "cardId") Long cardId,
+                                                 @RequestParam(name = "version", required = false) Long version){
         User user = JwtMapper.toUser(jwt);
 
-        cardService.updatedCardStatus(user, folderId, cardId, status);
+        cardService.updatedCardStatus(user, folderId, cardId, status, version);
         return new ResponseEntity<Void>(HttpStatus.OK);
     }
 
@@ -151,4 +227,22 @@ public class FolderController {
         return ResponseEntity.ok(savedCards.stream().map(cardMapper::toDto).toList());
     }
 
+    // the cards are generated in the background, the client polls or subscribes to the returned job
+    @PostMapping(path = "/{folderId}/generation-jobs")
+    public ResponseEntity<GenerationJobDto> submitGenerationJob(
+            @AuthenticationPrincipal Jwt jwt,
+            @PathVariable(name = "folderId") Long folderId,
+            @Valid @RequestBody GenerationJobRequestDto generationJobRequestDto
+    ) {
+        User user = JwtMapper.toUser(jwt);
+        GenerationJob generationJob = generationJobService.submitJob(user, folderId, generationJobRequestDto.getPrompt());
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/generation-jobs/" + generationJob.getId()))
+                .body(generationJobMapper.toDto(generationJob));
+    }
+
+    // only a ?fields= answer leaves out the fields which were not selected
+    private Function<Card, CardDto> toDto(Set<CardField> selectedFields) {
+        return selectedFields.isEmpty() ? cardMapper::toDto : cardMapper::toSparseDto;
+    }
 }
@@ -0,0 +1,70 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.domain.dtos.GenerationJobDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import jomeerkatz.project.ai_flashcards.utility.JwtMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+@RestController
+@RequestMapping(path = "/api/generation-jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationJobController {
+    private final GenerationJobService generationJobService;
+    private final GenerationJobMapper generationJobMapper;
+    private final AiGenerationProperties aiGenerationProperties;
+
+    @GetMapping(path = "/{jobId}")
+    public ResponseEntity<GenerationJobDto> getJob(@AuthenticationPrincipal Jwt jwt,
+                                                   @PathVariable(name = "jobId") Long jobId) {
+        User user = JwtMapper.toUser(jwt);
+        return ResponseEntity.ok(generationJobMapper.toDto(generationJobService.getJob(user, jobId)));
+    }
+
+    // pushes the job every time a card got stored, until the job is finished
+    // only the node running the job can push, clients connected to another node get the current state and should poll
+    @GetMapping(path = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToJob(@AuthenticationPrincipal Jwt jwt,
+                                     @PathVariable(name = "jobId") Long jobId) {
+        User user = JwtMapper.toUser(jwt);
+        SseEmitter emitter = new SseEmitter(aiGenerationProperties.getSubscriptionTimeout().toMillis());
+        Consumer<GenerationJob> listener = job -> send(emitter, job);
+        GenerationJob currentJob = generationJobService.subscribe(user, jobId, listener);
+        emitter.onCompletion(() -> generationJobService.unsubscribe(jobId, listener));
+        emitter.onTimeout(() -> generationJobService.unsubscribe(jobId, listener));
+        emitter.onError(ex -> generationJobService.unsubscribe(jobId, listener));
+        send(emitter, currentJob);
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, GenerationJob job) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(job.getUpdatedAt()))
+                    .name("job")
+                    .data(generationJobMapper.toDto(job)));
+            if (job.getStatus().isFinished()) {
+                emitter.complete();
+            }
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+        }
+    }
+}
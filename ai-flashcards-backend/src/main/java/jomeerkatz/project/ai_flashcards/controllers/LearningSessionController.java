@@ -0,0 +1,61 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jomeerkatz.project.ai_flashcards.domain.dtos.CardDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.LearningSessionDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.LearningSessionRequestDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
+import jomeerkatz.project.ai_flashcards.mappers.LearningSessionMapper;
+import jomeerkatz.project.ai_flashcards.services.LearningSessionService;
+import jomeerkatz.project.ai_flashcards.sessions.LearningSession;
+import jomeerkatz.project.ai_flashcards.utility.JwtMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/api/learning-sessions")
+@RequiredArgsConstructor
+public class LearningSessionController {
+    private final LearningSessionService learningSessionService;
+    private final LearningSessionMapper learningSessionMapper;
+    private final CardMapper cardMapper;
+
+    @PostMapping
+    public ResponseEntity<LearningSessionDto> startSession(@AuthenticationPrincipal Jwt jwt,
+                                                           @Valid @RequestBody LearningSessionRequestDto learningSessionRequestDto) {
+        User user = JwtMapper.toUser(jwt);
+        LearningSession session = learningSessionService.startSession(user, learningSessionRequestDto.getFolderId(),
+                learningSessionRequestDto.getStatus(), learningSessionRequestDto.isShuffle(), learningSessionRequestDto.getSeed());
+        return ResponseEntity.created(URI.create("/api/learning-sessions/" + session.getId()))
+                .body(learningSessionMapper.toDto(session));
+    }
+
+    // an empty list means the session went through all cards
+    @GetMapping(path = "/{sessionId}/cards")
+    public List<CardDto> nextCards(@AuthenticationPrincipal Jwt jwt,
+                                   @PathVariable(name = "sessionId") String sessionId,
+                                   @RequestParam(name = "count", defaultValue = "1") @Min(1) @Max(50) int count) {
+        User user = JwtMapper.toUser(jwt);
+        return learningSessionService.nextCards(user, sessionId, count).stream()
+                .map(cardMapper::toDto)
+                .toList();
+    }
+
+    @DeleteMapping(path = "/{sessionId}")
+    public ResponseEntity<Void> endSession(@AuthenticationPrincipal Jwt jwt,
+                                           @PathVariable(name = "sessionId") String sessionId) {
+        User user = JwtMapper.toUser(jwt);
+        learningSessionService.endSession(user, sessionId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+}
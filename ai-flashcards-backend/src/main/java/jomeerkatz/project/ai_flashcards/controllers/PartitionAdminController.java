@@ -0,0 +1,45 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMaintenanceDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMigrationDto;
+import jomeerkatz.project.ai_flashcards.services.CardPartitioningService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/api/admin/cards/partitions")
+@RequiredArgsConstructor
+public class PartitionAdminController {
+    private final CardPartitioningService cardPartitioningService;
+
+    // the migration runs in the background, GET /migration shows its progress
+    @PostMapping(path = "/migrate")
+    public ResponseEntity<PartitionMigrationDto> migrateToPartitionedTable() {
+        return new ResponseEntity<>(cardPartitioningService.startMigration(), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(path = "/migration")
+    public ResponseEntity<PartitionMigrationDto> getMigration() {
+        return ResponseEntity.ok(cardPartitioningService.getMigration());
+    }
+
+    // drops the old table kept after the migration, once the partitioned table has proven itself
+    @DeleteMapping(path = "/unpartitioned")
+    public ResponseEntity<Void> dropUnpartitionedTable() {
+        cardPartitioningService.dropUnpartitionedTable();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    @PostMapping(path = "/vacuum")
+    public ResponseEntity<List<PartitionMaintenanceDto>> vacuumPartitions() {
+        return ResponseEntity.ok(cardPartitioningService.vacuumPartitions());
+    }
+}
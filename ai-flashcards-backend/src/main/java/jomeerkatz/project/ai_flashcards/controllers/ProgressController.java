@@ -0,0 +1,40 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.ProgressBucketDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.mappers.ProgressMapper;
+import jomeerkatz.project.ai_flashcards.services.ProgressService;
+import jomeerkatz.project.ai_flashcards.utility.JwtMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping(path = "/api/progress")
+@RequiredArgsConstructor
+public class ProgressController {
+    private final ProgressService progressService;
+    private final ProgressMapper progressMapper;
+
+    // e.g. /api/progress?granularity=HOUR&folderId=4&from=2026-01-01T00:00:00
+    @GetMapping
+    public List<ProgressBucketDto> getProgress(@AuthenticationPrincipal Jwt jwt,
+                                               @RequestParam(name = "granularity", defaultValue = "DAY") RollupGranularity granularity,
+                                               @RequestParam(name = "folderId", required = false) Long folderId,
+                                               @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        User user = JwtMapper.toUser(jwt);
+        return progressService.getProgress(user, folderId, granularity, from, to).stream()
+                .map(progressMapper::toDto)
+                .toList();
+    }
+}
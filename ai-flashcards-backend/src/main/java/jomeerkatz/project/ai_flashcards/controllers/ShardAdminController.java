@@ -0,0 +1,28 @@
+package jomeerkatz.project.ai_flashcards.controllers;
+
+import jakarta.validation.Valid;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ShardMoveRequestDto;
+import jomeerkatz.project.ai_flashcards.services.ShardMigrationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(path = "/api/admin/shards")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "true")
+public class ShardAdminController {
+    private final ShardMigrationService shardMigrationService;
+
+    // the copy runs in the background, the user is back to ACTIVE on the target shard once it is done
+    @PostMapping(path = "/move")
+    public ResponseEntity<Void> moveUser(@Valid @RequestBody ShardMoveRequestDto shardMoveRequestDto) {
+        shardMigrationService.moveUser(shardMoveRequestDto.getKeycloakId(), shardMoveRequestDto.getTargetShard());
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,81 @@
+package jomeerkatz.project.ai_flashcards.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Sets the query timeout of every statement to the time left until the {@link RequestDeadline}, also for the
+ * repository calls which don't run in a transaction (declared query methods of the repositories).
+ * Threads without a deadline get the plain statements.
+ */
+public class DeadlineDataSource extends DelegatingDataSource implements AutoCloseable {
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    // the wrapped bean is closed through this one, e.g. the hikari pool spring boot builds without workloads
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return deadlineAware(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return deadlineAware(super.getConnection(username, password));
+    }
+
+    private static Connection deadlineAware(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    // the statement timeout of the remaining time, whole seconds rounded up, or an exception once the deadline passed
+    static void applyDeadline(Statement statement) throws SQLException {
+        Duration remaining = RequestDeadline.remaining();
+        if (remaining == null) {
+            return;
+        }
+        if (remaining.isNegative() || remaining.isZero()) {
+            statement.close();
+            throw new SQLTimeoutException("the deadline of the request has passed");
+        }
+        int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining.toMillis() + 999) / 1000);
+        if (statement.getQueryTimeout() == 0 || statement.getQueryTimeout() > seconds) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    private record ConnectionHandler(Connection connection) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+            // createStatement, prepareStatement and prepareCall
+            if (result instanceof Statement statement) {
+                applyDeadline(statement);
+            }
+            return result;
+        }
+    }
+}
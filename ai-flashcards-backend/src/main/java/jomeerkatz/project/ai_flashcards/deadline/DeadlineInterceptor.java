@@ -0,0 +1,109 @@
+package jomeerkatz.project.ai_flashcards.deadline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.config.DeadlineProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Sets the {@link RequestDeadline} of every request, from its route or from the shorter timeout the client asked for.
+ */
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+    private static final String METRIC_NAME = "flashcards.deadlines.requests";
+
+    private final DeadlineProperties properties;
+    private final List<Route> routes;
+    private final Counter met;
+    private final Counter late;
+    private final Counter cancelled;
+
+    public DeadlineInterceptor(DeadlineProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.routes = properties.getRoutes().stream()
+                .map(route -> new Route(StringUtils.hasText(route.getMethod()) ? route.getMethod() : null,
+                        PathPatternParser.defaultInstance.parse(route.getPattern()), route.getTimeout()))
+                .toList();
+        this.met = outcomeCounter(meterRegistry, "met");
+        // finished, but after the deadline, e.g. the time went into work outside of the database
+        this.late = outcomeCounter(meterRegistry, "late");
+        // a statement or transaction was cancelled by the deadline, answered with a 504
+        this.cancelled = outcomeCounter(meterRegistry, "cancelled");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Duration timeout = timeoutOf(request);
+        if (timeout.isPositive()) {
+            RequestDeadline.set(timeout);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Duration remaining = RequestDeadline.remaining();
+        RequestDeadline.clear();
+        if (remaining == null) {
+            return;
+        }
+        if (response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            cancelled.increment();
+        } else if (remaining.isNegative()) {
+            late.increment();
+        } else {
+            met.increment();
+        }
+    }
+
+    // streaming responses (SseEmitter) hand the request over to another thread, the stream itself has no deadline
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDeadline.clear();
+    }
+
+    Duration timeoutOf(HttpServletRequest request) {
+        Duration timeout = properties.getDefaultTimeout();
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Route route : routes) {
+            if (route.matches(request.getMethod(), path)) {
+                timeout = route.timeout();
+                break;
+            }
+        }
+        String requested = request.getHeader(properties.getHeader());
+        if (requested != null) {
+            try {
+                Duration requestedTimeout = Duration.ofMillis(Long.parseLong(requested.trim()));
+                if (requestedTimeout.isPositive() && (!timeout.isPositive() || requestedTimeout.compareTo(timeout) < 0)) {
+                    timeout = requestedTimeout;
+                }
+            } catch (NumberFormatException ignored) {
+                // the deadline of the route stays
+            }
+        }
+        return timeout;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_NAME)
+                .description("requests with a deadline by whether they made it")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Route(String method, PathPattern pattern, Duration timeout) {
+        boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package jomeerkatz.project.ai_flashcards.deadline;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Duration;
+
+/**
+ * Gives every transaction of a request at most the time left until its deadline. Hibernate and Spring turn the
+ * transaction timeout into the query timeout of each statement, JPA as well as JdbcTemplate, so the database
+ * cancels a statement which would run past the deadline.
+ */
+public class DeadlineJpaTransactionManager extends JpaTransactionManager {
+    @Override
+    protected int determineTimeout(TransactionDefinition definition) {
+        int timeout = super.determineTimeout(definition);
+        Duration remaining = RequestDeadline.remaining();
+        if (remaining == null) {
+            return timeout;
+        }
+        if (remaining.isNegative() || remaining.isZero()) {
+            // nothing has been sent to the database yet, no point in starting
+            throw new TransactionTimedOutException("the deadline of the request has passed before the transaction started");
+        }
+        // timeouts are whole seconds, round up so a request never gets less than it asked for
+        int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remaining.toMillis() + 999) / 1000);
+        return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remainingSeconds : Math.min(timeout, remainingSeconds);
+    }
+}
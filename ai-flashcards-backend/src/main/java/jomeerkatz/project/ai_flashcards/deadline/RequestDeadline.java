@@ -0,0 +1,53 @@
+package jomeerkatz.project.ai_flashcards.deadline;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Holds the deadline (System.nanoTime()) of the request the current thread is working for.
+ * Set by the {@link DeadlineInterceptor}, turned into transaction and statement timeouts by the
+ * {@link DeadlineJpaTransactionManager}.
+ */
+public final class RequestDeadline {
+    private static final ThreadLocal<Long> CURRENT_DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {}
+
+    // null when the thread has no deadline
+    public static Long current() {
+        return CURRENT_DEADLINE.get();
+    }
+
+    // null when the thread has no deadline, negative once it passed
+    public static Duration remaining() {
+        Long deadline = CURRENT_DEADLINE.get();
+        return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+    }
+
+    public static void set(Duration timeout) {
+        CURRENT_DEADLINE.set(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static void clear() {
+        CURRENT_DEADLINE.remove();
+    }
+
+    // for work of the request which runs on other threads
+    public static <T> T callWith(Long deadline, Supplier<T> work) {
+        Long previous = CURRENT_DEADLINE.get();
+        if (deadline == null) {
+            CURRENT_DEADLINE.remove();
+        } else {
+            CURRENT_DEADLINE.set(deadline);
+        }
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_DEADLINE.remove();
+            } else {
+                CURRENT_DEADLINE.set(previous);
+            }
+        }
+    }
+}
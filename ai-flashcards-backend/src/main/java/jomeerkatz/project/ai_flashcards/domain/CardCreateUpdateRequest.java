@@ -17,4 +17,6 @@ public class CardCreateUpdateRequest {
 
     private String answer;
 
+    private Long version;
+
 }
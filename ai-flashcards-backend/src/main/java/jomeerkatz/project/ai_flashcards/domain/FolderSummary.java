@@ -0,0 +1,24 @@
+package jomeerkatz.project.ai_flashcards.domain;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FolderSummary {
+
+    private Folder folder;
+
+    private long cardCount;
+
+    private List<Card> firstCards;
+
+}
@@ -17,4 +17,7 @@ public class CardCreateUpdateRequestDto {
 
     @NotBlank(message = "❌answer can't be blanked!")
     private String answer;
+
+    // version of the card the edit is based on, without it the edit overwrites whatever is stored
+    private Long version;
 }
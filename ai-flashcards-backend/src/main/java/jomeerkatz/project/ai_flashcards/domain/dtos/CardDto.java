@@ -15,6 +15,8 @@ import java.time.LocalDateTime;
 public class CardDto {
     private Long id;
 
+    private Long folderId;
+
     private String question;
 
     private String answer;
@@ -24,4 +26,8 @@ public class CardDto {
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
+
+    private Long version;
+
+    private LocalDateTime dueAt;
 }
@@ -0,0 +1,35 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// only the fields which belong to the type are set, e.g. a FOLDER_DELETED event is just the type and the folder id
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEventDto {
+    private ChangeType type;
+
+    private Long folderId;
+
+    private String folderName;
+
+    private Long cardId;
+
+    private String question;
+
+    private String answer;
+
+    private CardStatus status;
+
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FolderSummaryDto {
+    private Long id;
+    private String name;
+    private long cardCount;
+    private List<CardDto> firstCards;
+}
@@ -0,0 +1,31 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GenerationJobDto {
+    private Long id;
+
+    private Long folderId;
+
+    private GenerationJobStatus status;
+
+    private int cardsCreated;
+
+    private String errorMessage;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GenerationJobRequestDto {
+
+    @NotBlank(message = "❌prompt can't be blanked!")
+    @Size(max = 2000, message = "❌prompt can't be longer than 2000 characters!")
+    private String prompt;
+}
@@ -0,0 +1,27 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LearningSessionDto {
+    private String id;
+
+    private Long folderId;
+
+    private CardStatus status;
+
+    private boolean shuffled;
+
+    private Long seed;
+
+    private LocalDateTime createdAt;
+}
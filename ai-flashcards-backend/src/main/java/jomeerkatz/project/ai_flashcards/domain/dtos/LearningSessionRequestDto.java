@@ -0,0 +1,27 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jakarta.validation.constraints.NotNull;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LearningSessionRequestDto {
+
+    @NotNull(message = "❌folderId can't be empty!")
+    private Long folderId;
+
+    @NotNull(message = "❌status can't be empty!")
+    private CardStatus status;
+
+    // cards in a random order instead of the order they were created in
+    private boolean shuffle;
+
+    // the same seed gives the same order again, without it a random one is picked
+    private Long seed;
+}
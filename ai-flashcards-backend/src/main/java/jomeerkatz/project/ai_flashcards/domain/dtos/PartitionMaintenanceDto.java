@@ -0,0 +1,17 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionMaintenanceDto {
+    private String partition;
+    private long rows;
+    private long sizeBytes;
+    private long vacuumMillis;
+}
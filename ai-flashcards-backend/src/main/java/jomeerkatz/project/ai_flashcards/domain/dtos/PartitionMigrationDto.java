@@ -0,0 +1,21 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.PartitionMigrationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class PartitionMigrationDto {
+    private PartitionMigrationStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long copiedRows;
+    private String error;
+}
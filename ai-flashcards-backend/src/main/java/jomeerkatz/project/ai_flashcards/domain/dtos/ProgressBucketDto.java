@@ -0,0 +1,23 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// reviews of one hour or day by the status they were given, buckets without reviews are not returned
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProgressBucketDto {
+    private LocalDateTime bucketStart;
+
+    private long goodCount;
+
+    private long mediumCount;
+
+    private long badCount;
+}
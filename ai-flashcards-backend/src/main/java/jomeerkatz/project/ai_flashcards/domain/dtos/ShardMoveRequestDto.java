@@ -0,0 +1,20 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardMoveRequestDto {
+    @NotBlank(message = "❌ keycloak id can't be blanked!")
+    private String keycloakId;
+
+    @NotNull(message = "❌ target shard is required!")
+    private Integer targetShard;
+}
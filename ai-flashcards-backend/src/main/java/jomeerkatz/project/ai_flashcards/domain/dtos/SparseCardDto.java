@@ -0,0 +1,10 @@
+package jomeerkatz.project.ai_flashcards.domain.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.NoArgsConstructor;
+
+// the answer to ?fields=, fields a client did not ask for are left out instead of sent as null
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SparseCardDto extends CardDto {
+}
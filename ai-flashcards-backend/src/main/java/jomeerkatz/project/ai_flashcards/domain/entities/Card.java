@@ -2,10 +2,17 @@ package jomeerkatz.project.ai_flashcards.domain.entities;
 
 import jakarta.persistence.*;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.reviews.SpacedRepetition;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.LazyGroup;
 
 import java.time.LocalDateTime;
 
@@ -14,12 +21,17 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "cards")
+// the due queue of a folder is a range of cards_due_idx, already in the order it is learned in.
+// cards_learn_idx gives the head of each folder for the cross folder learning queue
+@Table(name = "cards", indexes = {
+        @Index(name = "cards_due_idx", columnList = "user_id, folder_id, due_at, id"),
+        @Index(name = "cards_learn_idx", columnList = "user_id, folder_id, status, updated_at, id")
+})
+@DynamicUpdate
 public class Card {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_seq")
-    @SequenceGenerator(name = "card_seq", sequenceName = "card_sequence", allocationSize = 1)
+    @ShardAwareSequence(sequenceName = "card_sequence")
     private Long id;
 
     @ManyToOne(optional = false)
@@ -30,9 +42,19 @@ public class Card {
     @JoinColumn(name = "folder_id", nullable = false)
     private Folder folder;
 
+    // the texts are only loaded when read, status changes and counts never touch them (needs the build time enhancement).
+    // kept out of equals and toString, those would load them and fail on detached cards
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @Column(name = "question", nullable = false, columnDefinition = "TEXT")
     private String question;
 
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("text")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     @Column(name = "answer", nullable = false, columnDefinition = "TEXT")
     private String answer;
 
@@ -45,4 +67,44 @@ public class Card {
 
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
+
+    // bumped by every edit, the edits only apply to the version the client has seen
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // sm-2 scheduling, moved on by every status answer. existing rows get the defaults and are due right away
+    @ColumnDefault("2.5")
+    @Column(name = "ease_factor", nullable = false)
+    private Double easeFactor;
+
+    @ColumnDefault("0")
+    @Column(name = "interval_days", nullable = false)
+    private Integer intervalDays;
+
+    @ColumnDefault("0")
+    @Column(name = "repetitions", nullable = false)
+    private Integer repetitions;
+
+    @ColumnDefault("current_timestamp")
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    // new cards are due as soon as they are created
+    @PrePersist
+    void initSchedule() {
+        if (easeFactor == null) {
+            easeFactor = SpacedRepetition.INITIAL_EASE_FACTOR;
+        }
+        if (intervalDays == null) {
+            intervalDays = 0;
+        }
+        if (repetitions == null) {
+            repetitions = 0;
+        }
+        if (dueAt == null) {
+            dueAt = createdAt != null ? createdAt : LocalDateTime.now();
+        }
+    }
 }
@@ -0,0 +1,42 @@
+package jomeerkatz.project.ai_flashcards.domain.entities;
+
+import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// one row per answered card, only ever inserted (see ReviewLogWriter), progress is read from the ReviewRollup buckets
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "card_reviews", indexes = @Index(name = "card_reviews_user_folder_idx", columnList = "user_id, folder_id"))
+public class CardReview {
+    @Id
+    @Column(name = "id", nullable = false)
+    @ShardAwareSequence(sequenceName = "card_review_sequence")
+    private Long id;
+
+    // plain ids, the history stays when a card is deleted
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "folder_id", nullable = false)
+    private Long folderId;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private CardStatus status;
+
+    @Column(name = "reviewed_at", nullable = false)
+    private LocalDateTime reviewedAt;
+}
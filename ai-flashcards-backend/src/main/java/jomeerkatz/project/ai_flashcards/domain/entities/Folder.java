@@ -1,10 +1,13 @@
 package jomeerkatz.project.ai_flashcards.domain.entities;
 
 import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,11 +18,11 @@ import java.util.List;
 @Builder
 @Entity
 @Table(name = "folders")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "folders")
 public class Folder {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "folder_seq")
-    @SequenceGenerator(name = "folder_seq", sequenceName = "folder_sequence", allocationSize = 1)
+    @ShardAwareSequence(sequenceName = "folder_sequence")
     private Long id;
 
     @ManyToOne(optional = false)
@@ -0,0 +1,54 @@
+package jomeerkatz.project.ai_flashcards.domain.entities;
+
+import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "generation_jobs")
+public class GenerationJob {
+    @Id
+    @Column(name = "id", nullable = false)
+    @ShardAwareSequence(sequenceName = "generation_job_sequence")
+    private Long id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "folder_id", nullable = false)
+    private Folder folder;
+
+    @Column(name = "prompt", nullable = false, columnDefinition = "TEXT")
+    private String prompt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private GenerationJobStatus status;
+
+    @Column(name = "cards_created", nullable = false)
+    private int cardsCreated;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+}
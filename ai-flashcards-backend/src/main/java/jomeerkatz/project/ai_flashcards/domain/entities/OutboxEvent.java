@@ -0,0 +1,47 @@
+package jomeerkatz.project.ai_flashcards.domain.entities;
+
+import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SourceType;
+
+import java.time.LocalDateTime;
+
+// a change waiting for the OutboxRelay, written in the transaction of the change and deleted once every sink has it
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @Column(name = "id", nullable = false)
+    @ShardAwareSequence(sequenceName = "outbox_event_sequence")
+    private Long id;
+
+    // no foreign key, the events of a deleted folder or user still have to go out
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "keycloak_id", nullable = false)
+    private String keycloakId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false)
+    private ChangeType type;
+
+    // the ChangeEventDto as json
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    // the clock of the database, the relay compares against it as well
+    @CreationTimestamp(source = SourceType.DB)
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package jomeerkatz.project.ai_flashcards.domain.entities;
+
+import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// reviews per user, folder and hour or day, counted up by the ReviewLogWriter after the status changes committed
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "review_rollups")
+@IdClass(ReviewRollupId.class)
+public class ReviewRollup {
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "folder_id", nullable = false)
+    private Long folderId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false)
+    private RollupGranularity granularity;
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "good_count", nullable = false)
+    private long goodCount;
+
+    @Column(name = "medium_count", nullable = false)
+    private long mediumCount;
+
+    @Column(name = "bad_count", nullable = false)
+    private long badCount;
+}
@@ -0,0 +1,22 @@
+package jomeerkatz.project.ai_flashcards.domain.entities;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewRollupId implements Serializable {
+    private Long userId;
+
+    private Long folderId;
+
+    private RollupGranularity granularity;
+
+    private LocalDateTime bucketStart;
+}
@@ -1,10 +1,15 @@
 package jomeerkatz.project.ai_flashcards.domain.entities;
 
 import jakarta.persistence.*;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAwareSequence;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 
@@ -14,13 +19,15 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @Table(name="users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-keycloak-id")
 public class User {
     @Id
     @Column(name = "id", nullable = false)
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
-    @SequenceGenerator(name = "user_seq", sequenceName = "user_sequence", allocationSize = 1)
+    @ShardAwareSequence(sequenceName = "user_sequence")
     private Long id;
 
+    @NaturalId
     @Column(name = "keycloak_id", nullable = false, unique = true)
     private String keycloakId;
 
@@ -0,0 +1,53 @@
+package jomeerkatz.project.ai_flashcards.domain.enums;
+
+import jomeerkatz.project.ai_flashcards.exceptions.CardException;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+// columns a client can pick with ?fields=, the name is the attribute of the card entity
+public enum CardField {
+    ID("id"),
+    QUESTION("question"),
+    ANSWER("answer"),
+    STATUS("status"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    DUE_AT("dueAt");
+
+    private final String attribute;
+
+    CardField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    // accepts "question,answer" as well as repeated parameters, an empty result means all fields
+    public static Set<CardField> parse(List<String> fields) {
+        Set<CardField> result = EnumSet.noneOf(CardField.class);
+        if (fields == null) {
+            return result;
+        }
+        for (String field : fields) {
+            for (String attribute : field.split(",")) {
+                if (!attribute.isBlank()) {
+                    result.add(fromAttribute(attribute.trim()));
+                }
+            }
+        }
+        return result;
+    }
+
+    public static CardField fromAttribute(String attribute) {
+        for (CardField cardField : values()) {
+            if (cardField.attribute.equalsIgnoreCase(attribute)) {
+                return cardField;
+            }
+        }
+        throw new CardException("Unknown card field: " + attribute);
+    }
+}
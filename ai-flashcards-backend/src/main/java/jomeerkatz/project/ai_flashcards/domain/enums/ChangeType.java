@@ -0,0 +1,11 @@
+package jomeerkatz.project.ai_flashcards.domain.enums;
+
+public enum ChangeType {
+    FOLDER_CREATED,
+    FOLDER_RENAMED,
+    FOLDER_DELETED,
+    CARD_CREATED,
+    CARD_UPDATED,
+    CARD_STATUS_CHANGED,
+    CARD_DELETED
+}
@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.domain.enums;
+
+public enum GenerationJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package jomeerkatz.project.ai_flashcards.domain.enums;
+
+public enum PartitionMigrationStatus {
+    NOT_STARTED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
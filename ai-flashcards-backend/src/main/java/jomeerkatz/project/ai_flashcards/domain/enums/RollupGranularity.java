@@ -0,0 +1,24 @@
+package jomeerkatz.project.ai_flashcards.domain.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    // start of the bucket the time falls into
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    public LocalDateTime plus(LocalDateTime time, long buckets) {
+        return time.plus(buckets, unit);
+    }
+}
@@ -0,0 +1,169 @@
+package jomeerkatz.project.ai_flashcards.events;
+
+import jakarta.annotation.PreDestroy;
+import jomeerkatz.project.ai_flashcards.config.ChangeStreamProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the open change streams of every user and pushes the {@link UserChangeEvent}s to them.
+ * An idle stream is only an async servlet request and an entry in the map, no thread is waiting on it.
+ * Sending happens on virtual threads, so a slow client never holds up the transaction which caused the change.
+ */
+@Component
+@Slf4j
+public class ChangeStreamBroadcaster {
+    // a client which cannot keep up is dropped, it refetches once it reconnects
+    private static final int MAX_PENDING_EVENTS = 256;
+
+    private final ChangeStreamProperties properties;
+    private final Map<String, Deque<Connection>> connections = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("change-stream-heartbeat").factory());
+
+    public ChangeStreamBroadcaster(ChangeStreamProperties properties) {
+        this.properties = properties;
+        long interval = properties.getHeartbeatInterval().toMillis();
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter connect(String keycloakId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        Connection connection = new Connection(keycloakId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(ex -> remove(connection));
+
+        Deque<Connection> userConnections = connections.computeIfAbsent(keycloakId, id -> new ConcurrentLinkedDeque<>());
+        userConnections.add(connection);
+        while (userConnections.size() > properties.getMaxConnectionsPerUser()) {
+            Connection oldest = userConnections.poll();
+            if (oldest != null) {
+                oldest.emitter.complete();
+            }
+        }
+        connection.enqueue(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    // after commit, so clients never see changes which were rolled back
+    // fallbackExecution for the service methods which run without a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        Deque<Connection> userConnections = connections.get(event.getKeycloakId());
+        if (userConnections == null) {
+            return;
+        }
+        for (Connection connection : userConnections) {
+            connection.enqueue(SseEmitter.event().name("change").data(event.getChange()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        heartbeat.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection -> connection.emitter.complete()));
+        connections.clear();
+        senders.shutdown();
+    }
+
+    private void sendHeartbeats() {
+        connections.values().forEach(userConnections ->
+                userConnections.forEach(connection -> connection.enqueue(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.keycloakId, (id, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    /**
+     * The events of one stream are sent one after another and in order, by at most one sender at a time.
+     */
+    private class Connection {
+        private final String keycloakId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Connection(String keycloakId, SseEmitter emitter) {
+            this.keycloakId = keycloakId;
+            this.emitter = emitter;
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > MAX_PENDING_EVENTS) {
+                close(null);
+                return;
+            }
+            pending.add(event);
+            startSending();
+        }
+
+        private void startSending() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException ex) {
+                    // shutting down
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            SseEmitter.SseEventBuilder event;
+            while (!closed && (event = pending.poll()) != null) {
+                pendingCount.decrementAndGet();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException ex) {
+                    close(ex);
+                    return;
+                }
+            }
+            sending.set(false);
+            // an event may have been added after the queue looked empty but before the flag was reset
+            if (!closed && !pending.isEmpty()) {
+                startSending();
+            }
+        }
+
+        private void close(Exception ex) {
+            closed = true;
+            pending.clear();
+            remove(this);
+            if (ex == null) {
+                emitter.complete();
+            } else {
+                log.debug("change stream of user {} closed", keycloakId, ex);
+                emitter.completeWithError(ex);
+            }
+        }
+    }
+}
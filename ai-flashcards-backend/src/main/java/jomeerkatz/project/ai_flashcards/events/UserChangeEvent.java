@@ -0,0 +1,57 @@
+package jomeerkatz.project.ai_flashcards.events;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by the services whenever a folder or card of a user changed,
+ * delivered to the open change streams of that user once the transaction committed.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangeEvent {
+    private String keycloakId;
+
+    private Long userId;
+
+    private ChangeEventDto change;
+
+    public static UserChangeEvent ofFolder(ChangeType type, Folder folder) {
+        return new UserChangeEvent(folder.getUser().getKeycloakId(), folder.getUser().getId(), ChangeEventDto.builder()
+                .type(type)
+                .folderId(folder.getId())
+                .folderName(type == ChangeType.FOLDER_DELETED ? null : folder.getName())
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+
+    public static UserChangeEvent ofCard(ChangeType type, Card card) {
+        ChangeEventDto.ChangeEventDtoBuilder change = ChangeEventDto.builder()
+                .type(type)
+                .folderId(card.getFolder().getId())
+                .cardId(card.getId())
+                .status(card.getStatus())
+                .occurredAt(LocalDateTime.now());
+        // a status change is the learning page clicking through cards, the client already has the text
+        if (type != ChangeType.CARD_STATUS_CHANGED) {
+            change.question(card.getQuestion()).answer(card.getAnswer());
+        }
+        return new UserChangeEvent(card.getUser().getKeycloakId(), card.getUser().getId(), change.build());
+    }
+
+    public static UserChangeEvent ofDeletedCard(User user, Long folderId, Long cardId) {
+        return new UserChangeEvent(user.getKeycloakId(), user.getId(), ChangeEventDto.builder()
+                .type(ChangeType.CARD_DELETED)
+                .folderId(folderId)
+                .cardId(cardId)
+                .occurredAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class AiGenerationException extends BaseException{
+    public AiGenerationException() {
+        super();
+    }
+
+    public AiGenerationException(String message) {
+        super(message);
+    }
+
+    public AiGenerationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public AiGenerationException(Throwable cause) {
+        super(cause);
+    }
+}
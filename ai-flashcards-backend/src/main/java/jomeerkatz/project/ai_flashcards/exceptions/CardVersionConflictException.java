@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class CardVersionConflictException extends BaseException{
+    public CardVersionConflictException() {
+        super();
+    }
+
+    public CardVersionConflictException(String message) {
+        super(message);
+    }
+
+    public CardVersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public CardVersionConflictException(Throwable cause) {
+        super(cause);
+    }
+}
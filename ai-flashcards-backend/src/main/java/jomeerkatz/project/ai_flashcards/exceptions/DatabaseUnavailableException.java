@@ -0,0 +1,17 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+import java.time.Duration;
+
+public class DatabaseUnavailableException extends BaseException{
+    // sent back to the client in the Retry-After header
+    private final Duration retryAfter;
+
+    public DatabaseUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
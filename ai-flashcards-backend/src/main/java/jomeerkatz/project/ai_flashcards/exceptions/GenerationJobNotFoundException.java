@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class GenerationJobNotFoundException extends BaseException{
+    public GenerationJobNotFoundException() {
+        super();
+    }
+
+    public GenerationJobNotFoundException(String message) {
+        super(message);
+    }
+
+    public GenerationJobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public GenerationJobNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class LearningSessionNotFoundException extends BaseException{
+    public LearningSessionNotFoundException() {
+        super();
+    }
+
+    public LearningSessionNotFoundException(String message) {
+        super(message);
+    }
+
+    public LearningSessionNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public LearningSessionNotFoundException(Throwable cause) {
+        super(cause);
+    }
+}
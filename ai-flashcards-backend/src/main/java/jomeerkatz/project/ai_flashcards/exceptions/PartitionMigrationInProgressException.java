@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class PartitionMigrationInProgressException extends BaseException{
+    public PartitionMigrationInProgressException() {
+        super();
+    }
+
+    public PartitionMigrationInProgressException(String message) {
+        super(message);
+    }
+
+    public PartitionMigrationInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public PartitionMigrationInProgressException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,17 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+import java.time.Duration;
+
+public class RateLimitExceededException extends BaseException{
+    // sent back to the client in the Retry-After header
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
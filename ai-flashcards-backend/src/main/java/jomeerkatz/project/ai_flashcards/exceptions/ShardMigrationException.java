@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class ShardMigrationException extends BaseException{
+    public ShardMigrationException() {
+        super();
+    }
+
+    public ShardMigrationException(String message) {
+        super(message);
+    }
+
+    public ShardMigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ShardMigrationException(Throwable cause) {
+        super(cause);
+    }
+}
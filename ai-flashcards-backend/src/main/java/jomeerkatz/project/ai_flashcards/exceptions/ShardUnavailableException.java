@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.exceptions;
+
+public class ShardUnavailableException extends BaseException{
+    public ShardUnavailableException() {
+        super();
+    }
+
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+
+    public ShardUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ShardUnavailableException(Throwable cause) {
+        super(cause);
+    }
+}
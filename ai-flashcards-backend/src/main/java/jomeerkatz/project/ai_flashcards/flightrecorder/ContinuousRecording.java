@@ -0,0 +1,97 @@
+package jomeerkatz.project.ai_flashcards.flightrecorder;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import jomeerkatz.project.ai_flashcards.config.FlightRecorderProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A java flight recording which runs as long as the application does, bounded by age and size, with the
+ * {@link ServiceCallEvent}s on top of the jvm events. After a latency spike its last minutes can be dumped
+ * and opened with jfr print or jdk mission control.
+ */
+@Component
+@ConditionalOnProperty(prefix = "flashcards.flight-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ContinuousRecording implements SmartLifecycle {
+    static final String RECORDING_NAME = "flashcards";
+
+    private final FlightRecorderProperties properties;
+
+    private volatile Recording recording;
+
+    @Override
+    public void start() {
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("java flight recorder is not available in this jvm, nothing is recorded");
+            return;
+        }
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration(properties.getSettings()));
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("jfr settings " + properties.getSettings() + " could not be read", ex);
+        }
+        recording.setName(RECORDING_NAME);
+        // on disk the bounds can be much larger than the heap would allow
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        recording.enable(ServiceCallEvent.class).withThreshold(properties.getServiceCallThreshold());
+        recording.start();
+        this.recording = recording;
+    }
+
+    @Override
+    public void stop() {
+        Recording recording = this.recording;
+        this.recording = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recording != null;
+    }
+
+    // everything recorded in the given time up to now, as a .jfr file
+    public void dump(Duration last, OutputStream out) throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("the flight recording is not running");
+        }
+        Instant from = Instant.now().minus(last);
+        Path snapshotFile = Files.createTempFile("flashcards-snapshot-", ".jfr");
+        Path dumpFile = Files.createTempFile("flashcards-dump-", ".jfr");
+        try {
+            // the snapshot ends the chunk being written, so the events up to now are in it
+            try (Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot()) {
+                snapshot.dump(snapshotFile);
+            }
+            // whole chunks are kept by the recording, the events before the window are dropped here
+            try (RecordingFile recordingFile = new RecordingFile(snapshotFile)) {
+                recordingFile.write(dumpFile, event -> !event.getEndTime().isBefore(from));
+            }
+            Files.copy(dumpFile, out);
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(dumpFile);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package jomeerkatz.project.ai_flashcards.flightrecorder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call of a CardService, FolderService or UserService method, written by {@link ServiceCallInterceptor}.
+ * The duration is the one of the event itself, calls of other services inside it are events of their own.
+ */
+@Name("jomeerkatz.flashcards.ServiceCall")
+@Label("Service Call")
+@Category({"Flashcards", "Services"})
+@Description("A call of a card, folder or user service method")
+// the stack would only show the proxies in front of the service
+@StackTrace(false)
+public class ServiceCallEvent extends Event {
+    @Label("Service")
+    String service;
+
+    @Label("Method")
+    String method;
+
+    @Label("User")
+    @Description("Keycloak id of the user the call was made for")
+    String user;
+
+    @Label("Folder")
+    @Description("Id of the folder the call was made for, 0 for calls without one")
+    long folder;
+
+    @Label("Rows")
+    @Description("Rows returned or streamed by the call")
+    long rows;
+
+    @Label("Exception")
+    @Description("Class of the exception the call ended with")
+    String exception;
+}
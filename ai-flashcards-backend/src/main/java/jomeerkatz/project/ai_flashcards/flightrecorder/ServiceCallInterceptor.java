@@ -0,0 +1,88 @@
+package jomeerkatz.project.ai_flashcards.flightrecorder;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Page;
+
+import java.lang.reflect.Parameter;
+import java.util.Collection;
+
+/**
+ * Wraps every service method in a {@link ServiceCallEvent}. The user and the folder are taken from the
+ * arguments, the rows from the result, streaming methods report theirs with {@link #recordRows(long)}.
+ */
+public class ServiceCallInterceptor implements MethodInterceptor {
+    private static final long ROWS_NOT_RECORDED = -1;
+
+    // event of the innermost service call running on this thread
+    private static final ThreadLocal<ServiceCallEvent> CURRENT = new ThreadLocal<>();
+
+    // for results the interceptor can't count, e.g. cards written straight to the response
+    public static void recordRows(long rows) {
+        ServiceCallEvent event = CURRENT.get();
+        if (event != null) {
+            event.rows = rows;
+        }
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ServiceCallEvent event = new ServiceCallEvent();
+        // no recording asks for the event, nothing to measure
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        ServiceCallEvent outer = CURRENT.get();
+        CURRENT.set(event);
+        event.rows = ROWS_NOT_RECORDED;
+        event.begin();
+        try {
+            Object result = invocation.proceed();
+            if (event.rows == ROWS_NOT_RECORDED) {
+                event.rows = rows(result);
+            }
+            return result;
+        } catch (Throwable ex) {
+            event.exception = ex.getClass().getName();
+            throw ex;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                describe(event, invocation);
+                event.commit();
+            }
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    private static void describe(ServiceCallEvent event, MethodInvocation invocation) {
+        event.service = invocation.getMethod().getDeclaringClass().getSimpleName();
+        event.method = invocation.getMethod().getName();
+        event.rows = Math.max(event.rows, 0);
+        Parameter[] parameters = invocation.getMethod().getParameters();
+        Object[] arguments = invocation.getArguments();
+        for (int i = 0; i < parameters.length; i++) {
+            if (arguments[i] instanceof User user) {
+                event.user = user.getKeycloakId();
+            } else if (arguments[i] instanceof Long folderId && "folderId".equals(parameters[i].getName())) {
+                event.folder = folderId;
+            }
+        }
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Page<?> page) {
+            return page.getNumberOfElements();
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        // a single entity or value, nothing for the void methods
+        return result == null ? 0 : 1;
+    }
+}
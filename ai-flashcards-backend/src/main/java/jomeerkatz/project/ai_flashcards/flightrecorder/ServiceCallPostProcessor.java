@@ -0,0 +1,27 @@
+package jomeerkatz.project.ai_flashcards.flightrecorder;
+
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+
+import java.util.List;
+
+/**
+ * Puts the {@link ServiceCallInterceptor} in front of the card, folder and user services. It goes before the
+ * transaction advice the services already have, so an event also covers the begin and the commit.
+ */
+public class ServiceCallPostProcessor extends AbstractAdvisingBeanPostProcessor {
+    private static final List<Class<?>> SERVICES = List.of(CardService.class, FolderService.class, UserService.class);
+
+    public ServiceCallPostProcessor() {
+        this.advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(type -> SERVICES.stream().anyMatch(service -> service.isAssignableFrom(type))),
+                new ServiceCallInterceptor());
+        this.beforeExistingAdvisors = true;
+        // like the transaction proxies, the services are injected as interfaces and as classes
+        setProxyTargetClass(true);
+    }
+}
@@ -5,13 +5,22 @@ import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.dtos.BulkCardCreateRequestDto;
 import jomeerkatz.project.ai_flashcards.domain.dtos.CardCreateUpdateRequestDto;
 import jomeerkatz.project.ai_flashcards.domain.dtos.CardDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.SparseCardDto;
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Builder;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface CardMapper {
+    @Mapping(target = "folderId", source = "folder.id")
     CardDto toDto(Card card);
+    // the builder inherited from CardDto would build a CardDto
+    @BeanMapping(builder = @Builder(disableBuilder = true))
+    @Mapping(target = "folderId", source = "folder.id")
+    SparseCardDto toSparseDto(Card card);
     CardCreateUpdateRequest toCardCreateUpdateRequest(CardCreateUpdateRequestDto cardCreateUpdateRequestDto);
     BulkCardCreateRequest toBulkCardCreateRequest(BulkCardCreateRequestDto bulkCardCreateRequestDto);
 }
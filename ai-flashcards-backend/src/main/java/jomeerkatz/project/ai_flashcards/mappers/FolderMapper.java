@@ -1,14 +1,21 @@
 package jomeerkatz.project.ai_flashcards.mappers;
 
 import jomeerkatz.project.ai_flashcards.domain.FolderCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.FolderSummary;
 import jomeerkatz.project.ai_flashcards.domain.dtos.FolderCreateUpdateRequestDto;
 import jomeerkatz.project.ai_flashcards.domain.dtos.FolderDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.FolderSummaryDto;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
 
-@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = CardMapper.class)
 public interface FolderMapper {
     FolderDto toFolderDto(Folder folder);
     FolderCreateUpdateRequest toFolderCreateUpdateRequest(FolderCreateUpdateRequestDto folderCreateUpdateRequestDto);
+
+    @Mapping(target = "id", source = "folder.id")
+    @Mapping(target = "name", source = "folder.name")
+    FolderSummaryDto toFolderSummaryDto(FolderSummary folderSummary);
 }
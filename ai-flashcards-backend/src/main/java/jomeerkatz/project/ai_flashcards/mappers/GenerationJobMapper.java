@@ -0,0 +1,13 @@
+package jomeerkatz.project.ai_flashcards.mappers;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.GenerationJobDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface GenerationJobMapper {
+    @Mapping(target = "folderId", source = "folder.id")
+    GenerationJobDto toDto(GenerationJob generationJob);
+}
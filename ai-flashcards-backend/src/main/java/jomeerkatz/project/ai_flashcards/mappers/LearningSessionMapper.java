@@ -0,0 +1,11 @@
+package jomeerkatz.project.ai_flashcards.mappers;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.LearningSessionDto;
+import jomeerkatz.project.ai_flashcards.sessions.LearningSession;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface LearningSessionMapper {
+    LearningSessionDto toDto(LearningSession learningSession);
+}
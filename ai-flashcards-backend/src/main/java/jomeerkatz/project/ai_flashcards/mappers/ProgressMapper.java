@@ -0,0 +1,11 @@
+package jomeerkatz.project.ai_flashcards.mappers;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.ProgressBucketDto;
+import jomeerkatz.project.ai_flashcards.repositories.ProgressBucket;
+import org.mapstruct.Mapper;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface ProgressMapper {
+    ProgressBucketDto toDto(ProgressBucket progressBucket);
+}
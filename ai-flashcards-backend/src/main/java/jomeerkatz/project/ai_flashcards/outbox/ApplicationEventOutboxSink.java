@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// in process consumers listen with @EventListener on OutboxMessage, they run on the relay thread
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements OutboxSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        batch.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,48 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import jomeerkatz.project.ai_flashcards.config.OutboxProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// stand in for a real queue, one json line per event
+@Component
+@ConditionalOnProperty(prefix = "flashcards.outbox", name = "file-path")
+@RequiredArgsConstructor
+public class FileOutboxSink implements OutboxSink {
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxMessage message : batch) {
+            ObjectNode line = objectMapper.createObjectNode()
+                    .put("id", message.id())
+                    .put("userId", message.userId())
+                    .put("keycloakId", message.keycloakId())
+                    .put("type", message.type().name())
+                    .put("createdAt", message.createdAt().toString());
+            line.set("change", objectMapper.readTree(message.payload()));
+            lines.append(objectMapper.writeValueAsString(line)).append('\n');
+        }
+        try (FileChannel file = FileChannel.open(properties.getFilePath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+            // on disk before the relay deletes the events
+            file.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not append outbox events to " + properties.getFilePath(), e);
+        }
+    }
+}
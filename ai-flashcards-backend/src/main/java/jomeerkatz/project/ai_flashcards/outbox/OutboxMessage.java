@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox event as handed to the {@link OutboxSink}s. Delivery is at least once, a sink can see the same
+ * message again after a failed batch, the id is unique and can be used to drop duplicates.
+ */
+public record OutboxMessage(Long id, Long userId, String keycloakId, ChangeType type, String payload, LocalDateTime createdAt) {
+}
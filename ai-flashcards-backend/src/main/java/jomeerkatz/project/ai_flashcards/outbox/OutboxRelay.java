@@ -0,0 +1,161 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import jomeerkatz.project.ai_flashcards.config.OutboxProperties;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Moves the outbox events of every database to the {@link OutboxSink}s, one thread per database.
+ * A batch is read, published and deleted in one transaction, when a sink fails nothing is deleted
+ * and the same batch goes out again, so delivery is at least once.
+ * The events of a user who is being moved to another shard stay where they are, they are copied with the user
+ * and relayed from the new shard.
+ */
+@Component
+@ConditionalOnProperty(prefix = "flashcards.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay implements SmartLifecycle {
+    // key of the postgres advisory lock, only one node relays a database at a time so the order per user holds
+    static final long RELAY_LOCK_ID = 0x6f7574626f78L;
+
+    private static final RowMapper<OutboxMessage> MESSAGE_ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            rs.getString("keycloak_id"),
+            ChangeType.valueOf(rs.getString("type")),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final DataSource dataSource;
+    private final ObjectProvider<ShardDataSources> shardDataSources;
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+    private final List<OutboxSink> sinks;
+    private final OutboxProperties properties;
+
+    private final List<Thread> relays = new ArrayList<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        int number = 0;
+        for (DataSource database : ShardDataSources.allDatabases(dataSource, shardDataSources)) {
+            relays.add(Thread.ofPlatform()
+                    .daemon()
+                    .name("outbox-relay-" + number++)
+                    .start(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, () -> relay(database))));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        relays.forEach(Thread::interrupt);
+        relays.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relay(DataSource database) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        while (running) {
+            int relayed;
+            try {
+                relayed = transactionTemplate.execute(status -> relayBatch(jdbcTemplate));
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("outbox relay failed, the batch is retried", ex);
+                relayed = 0;
+            }
+            // a full batch means there is probably more waiting
+            if (relayed < properties.getBatchSize()) {
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int relayBatch(JdbcTemplate jdbcTemplate) {
+        // released with the transaction, another node holding it relays this database right now
+        Boolean locked = jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class, RELAY_LOCK_ID);
+        if (!Boolean.TRUE.equals(locked)) {
+            return 0;
+        }
+        List<OutboxMessage> batch = selectBatch(jdbcTemplate, Set.of());
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory != null) {
+            // read again without the users being moved, until a batch has none of them
+            Set<String> skipped = new HashSet<>();
+            Set<String> moving = movingUsers(directory, batch);
+            while (!moving.isEmpty()) {
+                skipped.addAll(moving);
+                batch = selectBatch(jdbcTemplate, skipped);
+                moving = movingUsers(directory, batch);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        for (OutboxSink sink : sinks) {
+            sink.publish(batch);
+        }
+        jdbcTemplate.batchUpdate("delete from outbox_events where id = ?",
+                batch.stream().map(message -> new Object[]{message.id()}).toList());
+        return batch.size();
+    }
+
+    private List<OutboxMessage> selectBatch(JdbcTemplate jdbcTemplate, Set<String> skippedUsers) {
+        List<Object> args = new ArrayList<>();
+        args.add(properties.getSettleDelay().toMillis());
+        args.addAll(skippedUsers);
+        args.add(properties.getBatchSize());
+        String skipped = skippedUsers.isEmpty() ? "" : "and keycloak_id not in ("
+                + skippedUsers.stream().map(user -> "?").collect(Collectors.joining(", ")) + ") ";
+        return jdbcTemplate.query(
+                "select id, user_id, keycloak_id, type, payload, created_at from outbox_events " +
+                        "where created_at < now() - ? * interval '1 millisecond' " + skipped + "order by id limit ?",
+                MESSAGE_ROW_MAPPER,
+                args.toArray());
+    }
+
+    private static Set<String> movingUsers(ShardDirectory directory, List<OutboxMessage> batch) {
+        return batch.stream()
+                .map(OutboxMessage::keycloakId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(directory::isMoving)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import java.util.List;
+
+/**
+ * Receives the relayed outbox events, every bean implementing this gets every batch.
+ * The messages are ordered by id, so the events of a user arrive in the order they were written.
+ * Throwing fails the whole batch, it is delivered again to all sinks on the next run.
+ */
+public interface OutboxSink {
+    void publish(List<OutboxMessage> batch);
+}
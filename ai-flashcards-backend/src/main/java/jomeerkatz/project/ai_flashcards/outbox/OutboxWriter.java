@@ -0,0 +1,28 @@
+package jomeerkatz.project.ai_flashcards.outbox;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.OutboxEvent;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.repositories.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.ObjectMapper;
+
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    // before commit, so the event is stored in the transaction of the change and both commit or roll back together
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .userId(event.getUserId())
+                .keycloakId(event.getKeycloakId())
+                .type(event.getChange().getType())
+                .payload(objectMapper.writeValueAsString(event.getChange()))
+                .build());
+    }
+}
@@ -0,0 +1,33 @@
+package jomeerkatz.project.ai_flashcards.ratelimit;
+
+/**
+ * Token bucket which is refilled lazily, whenever tokens are taken out of it.
+ */
+public class TokenBucket {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / NANOS_PER_SECOND;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    // returns 0 when the tokens were taken, otherwise the nanos until enough tokens are available again
+    public synchronized long tryConsume(double cost, long now) {
+        // a request costing more than the whole bucket could never pass otherwise
+        double required = Math.min(cost, capacity);
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+        if (tokens >= required) {
+            tokens -= required;
+            return 0;
+        }
+        return (long) Math.ceil((required - tokens) / refillPerNano);
+    }
+}
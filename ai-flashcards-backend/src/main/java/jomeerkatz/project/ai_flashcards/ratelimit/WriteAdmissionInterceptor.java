@@ -0,0 +1,101 @@
+package jomeerkatz.project.ai_flashcards.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.config.RateLimitProperties;
+import jomeerkatz.project.ai_flashcards.exceptions.RateLimitExceededException;
+import jomeerkatz.project.ai_flashcards.exceptions.ServiceOverloadedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admission control for write requests: every user has its own token bucket (keyed by the JWT subject),
+ * and the number of writes running at the same time is capped so one busy user cannot take the whole
+ * connection pool away from everybody else.
+ */
+public class WriteAdmissionInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = WriteAdmissionInterceptor.class.getName() + ".permit";
+    private static final String METRIC_PREFIX = "flashcards.admission";
+
+    private final RateLimitProperties properties;
+    private final Cache<String, TokenBucket> buckets;
+    private final Semaphore writePermits;
+    private final Counter admitted;
+    private final Counter throttled;
+    private final Counter shed;
+
+    public WriteAdmissionInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        // a bucket which was not touched for this long is full again, so dropping it loses nothing
+        Duration timeToFull = Duration.ofMillis((long) Math.ceil(properties.getCapacity() / properties.getRefillPerSecond() * 1000));
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(timeToFull)
+                .build();
+        this.writePermits = new Semaphore(properties.getMaxConcurrentWrites());
+        this.admitted = outcomeCounter(meterRegistry, "admitted");
+        this.throttled = outcomeCounter(meterRegistry, "throttled");
+        this.shed = outcomeCounter(meterRegistry, "shed");
+        Gauge.builder(METRIC_PREFIX + ".buckets", buckets, Cache::estimatedSize)
+                .description("users with an active token bucket")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".writes.in.flight", writePermits,
+                        permits -> properties.getMaxConcurrentWrites() - permits.availablePermits())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+                || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken jwtAuthentication)) {
+            return true;
+        }
+
+        String path = request.getRequestURI();
+        double cost = path.endsWith("/cards/bulk") || path.endsWith("/generation-jobs") ? properties.getBulkCost() : 1;
+        TokenBucket bucket = buckets.get(jwtAuthentication.getToken().getSubject(),
+                subject -> new TokenBucket(properties.getCapacity(), properties.getRefillPerSecond(), System.nanoTime()));
+        long waitNanos = bucket.tryConsume(cost, System.nanoTime());
+        if (waitNanos > 0) {
+            throttled.increment();
+            throw new RateLimitExceededException("too many write requests, please slow down", Duration.ofNanos(waitNanos));
+        }
+
+        if (!writePermits.tryAcquire()) {
+            shed.increment();
+            throw new ServiceOverloadedException("the server is busy right now, please try again in a moment", Duration.ofSeconds(1));
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        admitted.increment();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            writePermits.release();
+        }
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(METRIC_PREFIX + ".requests")
+                .description("write requests by admission decision")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
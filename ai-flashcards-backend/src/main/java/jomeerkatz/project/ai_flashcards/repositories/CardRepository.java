@@ -2,18 +2,101 @@ package jomeerkatz.project.ai_flashcards.repositories;
 
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+// every query filters on user_id, the partition key of cards, so postgres only touches the partition of that user
 @Repository
-public interface CardRepository extends JpaRepository<Card, Long> {
+public interface CardRepository extends JpaRepository<Card, Long>, CardRepositoryCustom {
+    // listings show the texts, the graph loads them with the page instead of one select per card
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
     Page<Card> findAllByUserIdAndFolderId(Long userId, Long folderId, Pageable pageable);
-    Optional<Card> findByIdAndFolderId(Long id, Long folderId);
-    void deleteAllByFolderId(Long folderId);
-    Long countByFolderId(Long folderId);
+    Optional<Card> findByIdAndUserIdAndFolderId(Long id, Long userId, Long folderId);
+    Long countByUserIdAndFolderId(Long userId, Long folderId);
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
     Page<Card> findAllByUserIdAndFolderIdAndStatus(Long userId, Long folderId, CardStatus status, Pageable pageable);
+
+    // one query for the counts of many folders, folders without cards are missing in the result
+    @Query("select c.folder.id as folderId, count(c) as cardCount from Card c " +
+            "where c.user.id = :userId and c.folder.id in :folderIds group by c.folder.id")
+    List<FolderCardCount> countByUserIdGroupedByFolderId(@Param("userId") Long userId, @Param("folderIds") Collection<Long> folderIds);
+
+    // edits are one statement, a null version skips the check, 0 rows means the card is missing or was changed meanwhile
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Card c set c.question = :question, c.answer = :answer, c.updatedAt = :updatedAt, c.version = c.version + 1 " +
+            "where c.id = :id and c.user.id = :userId and c.folder.id = :folderId and (:version is null or c.version = :version)")
+    int updateTextByIdAndUserIdAndFolderId(@Param("id") Long id, @Param("userId") Long userId, @Param("folderId") Long folderId,
+                                           @Param("version") Long version, @Param("question") String question,
+                                           @Param("answer") String answer, @Param("updatedAt") LocalDateTime updatedAt);
+
+    // the scheduling state a status answer is computed from, without the texts
+    Optional<CardSchedule> findScheduleByIdAndUserIdAndFolderId(Long id, Long userId, Long folderId);
+
+    // only applies to the version the schedule was read with, so two answers at once can't both build on the same state
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Card c set c.status = :status, c.easeFactor = :easeFactor, c.intervalDays = :intervalDays, " +
+            "c.repetitions = :repetitions, c.dueAt = :dueAt, c.updatedAt = :updatedAt, c.version = c.version + 1 " +
+            "where c.id = :id and c.user.id = :userId and c.folder.id = :folderId and c.version = :version")
+    int updateReviewByIdAndUserIdAndFolderId(@Param("id") Long id, @Param("userId") Long userId, @Param("folderId") Long folderId,
+                                             @Param("version") Long version, @Param("status") CardStatus status,
+                                             @Param("easeFactor") Double easeFactor, @Param("intervalDays") Integer intervalDays,
+                                             @Param("repetitions") Integer repetitions, @Param("dueAt") LocalDateTime dueAt,
+                                             @Param("updatedAt") LocalDateTime updatedAt);
+
+    // cards due at the given time in the order they are learned, a range scan of cards_due_idx without a count query
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select c from Card c where c.user.id = :userId and c.folder.id = :folderId and c.dueAt <= :dueAt order by c.dueAt, c.id")
+    List<Card> findDueByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                          @Param("dueAt") LocalDateTime dueAt, Limit limit);
+
+    // the head of one folder in the cross folder learning queue, oldest update first, keyset on (updatedAt, id) for the next chunk
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select c from Card c where c.user.id = :userId and c.folder.id = :folderId and c.status = :status " +
+            "order by c.updatedAt, c.id")
+    List<Card> findLearningHeadByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                                   @Param("status") CardStatus status, Limit limit);
+
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
+    @Query("select c from Card c where c.user.id = :userId and c.folder.id = :folderId and c.status = :status " +
+            "and (c.updatedAt > :updatedAt or (c.updatedAt = :updatedAt and c.id > :id)) order by c.updatedAt, c.id")
+    List<Card> findLearningHeadByUserIdAndFolderIdAfter(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                                        @Param("status") CardStatus status, @Param("updatedAt") LocalDateTime updatedAt,
+                                                        @Param("id") Long id, Limit limit);
+
+    // the cards of a learning session chunk by chunk, keyset on the id instead of offset paging
+    @Query("select c.id from Card c where c.user.id = :userId and c.folder.id = :folderId and c.status = :status " +
+            "and c.id > :afterId order by c.id")
+    List<Long> findIdsByUserIdAndFolderIdAndStatus(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                                   @Param("status") CardStatus status, @Param("afterId") Long afterId, Limit limit);
+
+    // every id at once for a shuffled learning session, sorted so a seed always gives the same order
+    @Query("select c.id from Card c where c.user.id = :userId and c.folder.id = :folderId and c.status = :status order by c.id")
+    List<Long> findAllIdsByUserIdAndFolderIdAndStatus(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                                      @Param("status") CardStatus status);
+
+    @EntityGraph(attributePaths = {"question", "answer"}, type = EntityGraph.EntityGraphType.LOAD)
+    List<Card> findAllByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    boolean existsByIdAndUserIdAndFolderId(Long id, Long userId, Long folderId);
+
+    // bulk deletes, derived delete queries would load every card and delete it by id only
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Card c where c.user.id = :userId and c.folder.id = :folderId")
+    int deleteAllByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Card c where c.id = :id and c.user.id = :userId and c.folder.id = :folderId")
+    int deleteByIdAndUserIdAndFolderId(@Param("id") Long id, @Param("userId") Long userId, @Param("folderId") Long folderId);
 }
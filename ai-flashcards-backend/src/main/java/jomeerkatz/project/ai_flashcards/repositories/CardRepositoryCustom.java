@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Set;
+
+public interface CardRepositoryCustom {
+    // status is optional, the returned cards are not managed and only have the selected fields set
+    Page<Card> findFieldsByUserIdAndFolderId(Long userId, Long folderId, CardStatus status, Set<CardField> fields, Pageable pageable);
+}
@@ -0,0 +1,93 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+    private final EntityManager entityManager;
+
+    // selects only the requested columns, so the long question and answer texts are not read when nobody needs them
+    @Override
+    public Page<Card> findFieldsByUserIdAndFolderId(Long userId, Long folderId, CardStatus status, Set<CardField> fields, Pageable pageable) {
+        // the id is always selected, clients need it as key
+        Set<CardField> selectedFields = EnumSet.of(CardField.ID);
+        selectedFields.addAll(fields);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Card> card = query.from(Card.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (CardField field : selectedFields) {
+            selections.add(card.get(field.getAttribute()).alias(field.getAttribute()));
+        }
+        query.select(criteriaBuilder.tuple(selections))
+                .where(predicates(criteriaBuilder, card, userId, folderId, status))
+                .orderBy(QueryUtils.toOrders(pageable.getSort(), card, criteriaBuilder));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Card> cards = typedQuery.getResultList().stream()
+                .map(tuple -> toCard(tuple, selectedFields))
+                .toList();
+
+        // the count query is skipped when the page already tells the total
+        return PageableExecutionUtils.getPage(cards, pageable, () -> count(userId, folderId, status));
+    }
+
+    private long count(Long userId, Long folderId, CardStatus status) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Card> card = query.from(Card.class);
+        query.select(criteriaBuilder.count(card))
+                .where(predicates(criteriaBuilder, card, userId, folderId, status));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] predicates(CriteriaBuilder criteriaBuilder, Root<Card> card, Long userId, Long folderId, CardStatus status) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.equal(card.get("user").get("id"), userId));
+        predicates.add(criteriaBuilder.equal(card.get("folder").get("id"), folderId));
+        if (status != null) {
+            predicates.add(criteriaBuilder.equal(card.get("status"), status));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+
+    private static Card toCard(Tuple tuple, Set<CardField> fields) {
+        Card card = new Card();
+        for (CardField field : fields) {
+            switch (field) {
+                case ID -> card.setId(tuple.get(field.getAttribute(), Long.class));
+                case QUESTION -> card.setQuestion(tuple.get(field.getAttribute(), String.class));
+                case ANSWER -> card.setAnswer(tuple.get(field.getAttribute(), String.class));
+                case STATUS -> card.setStatus(tuple.get(field.getAttribute(), CardStatus.class));
+                case CREATED_AT -> card.setCreatedAt(tuple.get(field.getAttribute(), LocalDateTime.class));
+                case UPDATED_AT -> card.setUpdatedAt(tuple.get(field.getAttribute(), LocalDateTime.class));
+                case DUE_AT -> card.setDueAt(tuple.get(field.getAttribute(), LocalDateTime.class));
+            }
+        }
+        return card;
+    }
+}
@@ -0,0 +1,16 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.CardReview;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// rows are inserted by the ReviewLogWriter in the transaction of the status change
+@Repository
+public interface CardReviewRepository extends JpaRepository<CardReview, Long> {
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from CardReview r where r.userId = :userId and r.folderId = :folderId")
+    int deleteAllByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId);
+}
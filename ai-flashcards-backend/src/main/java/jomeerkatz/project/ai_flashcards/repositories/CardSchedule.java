@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+// the sm-2 state of one card
+public interface CardSchedule {
+    Long getVersion();
+
+    Double getEaseFactor();
+
+    Integer getIntervalDays();
+
+    Integer getRepetitions();
+}
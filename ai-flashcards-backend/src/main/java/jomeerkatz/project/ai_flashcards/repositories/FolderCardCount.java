@@ -0,0 +1,7 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+// projection of the grouped card count
+public interface FolderCardCount {
+    Long getFolderId();
+    long getCardCount();
+}
@@ -2,11 +2,15 @@ package jomeerkatz.project.ai_flashcards.repositories;
 
 import jomeerkatz.project.ai_flashcards.domain.FolderCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,10 @@ import java.util.Optional;
 public interface FolderRepository extends JpaRepository<Folder, Long> {
     boolean existsByUserIdAndName(Long userId, String name);
     Page<Folder> findAllByUserId(Long userId, Pageable pageable);
+    List<Folder> findAllByUserIdAndIdIn(Long userId, Collection<Long> ids);
+    boolean existsByIdAndUserKeycloakId(Long id, String keycloakId);
+
+    // the folders changed last first
+    @Query("select f.id from Folder f where f.user.id = :userId order by f.updatedAt desc, f.id desc")
+    List<Long> findIdsByUserId(@Param("userId") Long userId, Limit limit);
 }
\ No newline at end of file
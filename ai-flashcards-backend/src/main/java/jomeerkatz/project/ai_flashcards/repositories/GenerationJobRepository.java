@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface GenerationJobRepository extends JpaRepository<GenerationJob, Long> {
+    Optional<GenerationJob> findByIdAndUserId(Long id, Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from GenerationJob j where j.user.id = :userId and j.folder.id = :folderId")
+    int deleteAllByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId);
+}
@@ -0,0 +1,9 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -0,0 +1,11 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import java.time.LocalDateTime;
+
+// projection of the review rollups summed per bucket
+public interface ProgressBucket {
+    LocalDateTime getBucketStart();
+    long getGoodCount();
+    long getMediumCount();
+    long getBadCount();
+}
@@ -0,0 +1,30 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.ReviewRollup;
+import jomeerkatz.project.ai_flashcards.domain.entities.ReviewRollupId;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReviewRollupRepository extends JpaRepository<ReviewRollup, ReviewRollupId> {
+    // the primary key starts with user_id, so this reads a range of the index, a null folder sums up all folders
+    @Query("select r.bucketStart as bucketStart, sum(r.goodCount) as goodCount, sum(r.mediumCount) as mediumCount, " +
+            "sum(r.badCount) as badCount from ReviewRollup r " +
+            "where r.userId = :userId and (:folderId is null or r.folderId = :folderId) and r.granularity = :granularity " +
+            "and r.bucketStart >= :from and r.bucketStart < :to " +
+            "group by r.bucketStart order by r.bucketStart")
+    List<ProgressBucket> sumByBucket(@Param("userId") Long userId, @Param("folderId") Long folderId,
+                                     @Param("granularity") RollupGranularity granularity,
+                                     @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ReviewRollup r where r.userId = :userId and r.folderId = :folderId")
+    int deleteAllByUserIdAndFolderId(@Param("userId") Long userId, @Param("folderId") Long folderId);
+}
@@ -4,9 +4,6 @@ import jomeerkatz.project.ai_flashcards.domain.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByKeycloakId(String keycloakId);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 }
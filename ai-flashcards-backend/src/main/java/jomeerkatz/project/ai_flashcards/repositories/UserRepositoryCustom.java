@@ -0,0 +1,11 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    Optional<User> findByKeycloakId(String keycloakId);
+    boolean insertIfAbsent(String keycloakId, LocalDateTime now);
+}
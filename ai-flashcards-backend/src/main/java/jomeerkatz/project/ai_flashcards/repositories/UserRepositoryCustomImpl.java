@@ -0,0 +1,45 @@
+package jomeerkatz.project.ai_flashcards.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import lombok.RequiredArgsConstructor;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.sharding.ShardIds;
+import org.hibernate.Session;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    private final EntityManager entityManager;
+
+    // resolved through the natural id cache instead of a query, so the user lookup of every request stays in memory
+    @Override
+    @Transactional
+    public Optional<User> findByKeycloakId(String keycloakId) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(keycloakId);
+    }
+
+    // one round trip, an existing user is left alone instead of failing on the unique key.
+    // the id is drawn and composed on the current shard like ShardAwareSequenceGenerator does, true when the user was new
+    @Override
+    @Transactional
+    public boolean insertIfAbsent(String keycloakId, LocalDateTime now) {
+        Integer shardId = ShardContext.currentShardId();
+        String id = shardId == null
+                ? "nextval('user_sequence')"
+                : ShardIds.composeSql("nextval('user_sequence')", shardId);
+        List<?> insertedIds = entityManager.createNativeQuery(
+                        "insert into users (id, keycloak_id, created_at, updated_at) values (" + id + ", :keycloakId, :now, :now) " +
+                                "on conflict (keycloak_id) do nothing returning id")
+                .setParameter("keycloakId", keycloakId)
+                .setParameter("now", now)
+                .getResultList();
+        return !insertedIds.isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package jomeerkatz.project.ai_flashcards.resilience;
+
+import jomeerkatz.project.ai_flashcards.config.ReadFallbackProperties;
+
+import java.time.Duration;
+
+/**
+ * Count based circuit breaker over the database reads. Opens when too many of the last reads were slow or failed,
+ * then lets a single probe through after the open duration, which closes it again or keeps it open.
+ * Times are System.nanoTime() values passed in by the caller.
+ */
+public class DatabaseCircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    // ring of the last outcomes, true for a slow or failed read
+    private final boolean[] window;
+
+    private State state = State.CLOSED;
+    private int calls;
+    private int next;
+    private int failures;
+    private long openedAt;
+
+    public DatabaseCircuitBreaker(ReadFallbackProperties properties) {
+        this.slowCallNanos = properties.getSlowCallThreshold().toNanos();
+        this.minimumCalls = properties.getMinimumCalls();
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.window = new boolean[properties.getWindowSize()];
+    }
+
+    // false while open, after the open duration exactly one caller gets true as the probe
+    public synchronized boolean tryAcquirePermission(long nowNanos) {
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> false;
+            case OPEN -> {
+                if (nowNanos - openedAt < openNanos) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess(long durationNanos, long nowNanos) {
+        if (durationNanos > slowCallNanos) {
+            onFailure(nowNanos);
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false, nowNanos);
+    }
+
+    public synchronized void onFailure(long nowNanos) {
+        if (state == State.HALF_OPEN) {
+            open(nowNanos);
+            return;
+        }
+        record(true, nowNanos);
+    }
+
+    // writes are rejected while this is true, a half open breaker still waits for its probe
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Duration retryAfter(long nowNanos) {
+        return Duration.ofNanos(Math.max(openNanos - (nowNanos - openedAt), 0)).plusSeconds(1);
+    }
+
+    private void record(boolean failed, long nowNanos) {
+        if (state != State.CLOSED) {
+            // late results of reads from before the breaker opened
+            return;
+        }
+        if (calls == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+        if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+            open(nowNanos);
+        }
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openedAt = nowNanos;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        calls = 0;
+        next = 0;
+        failures = 0;
+    }
+}
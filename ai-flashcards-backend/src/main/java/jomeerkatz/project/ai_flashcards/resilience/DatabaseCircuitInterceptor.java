@@ -0,0 +1,29 @@
+package jomeerkatz.project.ai_flashcards.resilience;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.exceptions.DatabaseUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Rejects writes right away while the database circuit of the user's shard is open, instead of letting them hang on the database.
+ */
+@RequiredArgsConstructor
+public class DatabaseCircuitInterceptor implements HandlerInterceptor {
+    private final StaleReadCache staleReadCache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())
+                || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        if (staleReadCache.isDatabaseUnavailable()) {
+            throw new DatabaseUnavailableException("the database is not available right now, please try again in a moment",
+                    staleReadCache.retryAfter());
+        }
+        return true;
+    }
+}
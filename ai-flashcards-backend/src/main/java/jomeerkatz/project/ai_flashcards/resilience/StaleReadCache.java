@@ -0,0 +1,287 @@
+package jomeerkatz.project.ai_flashcards.resilience;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.coalescing.ReadCoalescer;
+import jomeerkatz.project.ai_flashcards.config.ReadFallbackProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.exceptions.DatabaseUnavailableException;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Stale while revalidate for the reads of the list endpoints. Every good result is kept as a detached copy, and while the
+ * {@link DatabaseCircuitBreaker} is open (or a read fails) a copy of the last good result of the same read is served,
+ * marked with the {@value #STALE_HEADER} header. The probe of the breaker refreshes a stale result in the background.
+ * Every shard has its own breaker, a slow shard only affects the users living on it.
+ * Reads go through the {@link ReadCoalescer}, so identical concurrent reads still share one query.
+ * The results are kept per user together with a generation, a change of the user drops all of them at once and starts a
+ * new generation, results of reads which started before the change are not stored anymore.
+ */
+@Component
+@Slf4j
+public class StaleReadCache {
+    public static final String STALE_HEADER = "X-Stale-Response";
+    private static final String METRIC_PREFIX = "flashcards.reads.fallback";
+    // the breaker of the database when sharding is disabled
+    private static final int UNSHARDED = -1;
+    // object headers, key and the result record next to the value itself
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    // a copied card or folder with its timestamps and references, without its texts
+    private static final int ENTITY_OVERHEAD_BYTES = 256;
+
+    private final boolean enabled;
+    private final ReadFallbackProperties properties;
+    private final ReadCoalescer readCoalescer;
+    private final Map<Integer, DatabaseCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    // keycloak id -> the results of that user
+    private final Cache<String, UserResults> results;
+    private final AtomicLong generations = new AtomicLong();
+    private final Set<ReadKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    public StaleReadCache(ReadFallbackProperties properties, ReadCoalescer readCoalescer, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.properties = properties;
+        this.readCoalescer = readCoalescer;
+        this.meterRegistry = meterRegistry;
+        this.results = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String keycloakId, UserResults userResults) -> userResults.bytes())
+                .expireAfterWrite(properties.getMaxStaleness())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "stale_reads");
+    }
+
+    // for reads of immutable values, e.g. counts
+    public <T> T read(String operation, String keycloakId, List<?> arguments, Supplier<T> read) {
+        return read(operation, keycloakId, arguments, read, UnaryOperator.identity());
+    }
+
+    /**
+     * Runs the read like {@link ReadCoalescer#read}, falling back to its last good result while the database is slow or down.
+     */
+    public <T> T read(String operation, String keycloakId, List<?> arguments, Supplier<T> read, UnaryOperator<T> copy) {
+        if (!enabled) {
+            return readCoalescer.read(operation, keycloakId, arguments, read, copy);
+        }
+        ReadKey key = new ReadKey(operation, keycloakId, arguments);
+        // taken before the read, a change of the user during the read makes its result worthless for the cache
+        UserResults userResults = results.asMap().computeIfAbsent(keycloakId, id -> UserResults.empty(generations.incrementAndGet()));
+        Result stale = userResults.get(key, properties.getMaxStaleness());
+        DatabaseCircuitBreaker circuitBreaker = currentCircuitBreaker();
+        if (!circuitBreaker.tryAcquirePermission(System.nanoTime())) {
+            return fallback(operation, stale, null, copy);
+        }
+        if (stale != null && circuitBreaker.isOpen()) {
+            // this read is the probe, the user gets the stale result right away and the probe refreshes it
+            refresh(key, userResults.generation(), read, copy, circuitBreaker);
+            return serveStale(operation, stale, copy);
+        }
+        try {
+            return execute(key, userResults.generation(), read, copy, circuitBreaker);
+        } catch (DataAccessException | TransactionException ex) {
+            return fallback(operation, stale, ex, copy);
+        }
+    }
+
+    // for the shard of the current user
+    public boolean isDatabaseUnavailable() {
+        return currentCircuitBreaker().isOpen();
+    }
+
+    public Duration retryAfter() {
+        return currentCircuitBreaker().retryAfter(System.nanoTime());
+    }
+
+    // a result from before a change of the user would hide the change, better no fallback than a wrong one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        results.asMap().computeIfPresent(event.getKeycloakId(), (keycloakId, old) -> UserResults.empty(generations.incrementAndGet()));
+    }
+
+    private <T> T execute(ReadKey key, long generation, Supplier<T> read, UnaryOperator<T> copy, DatabaseCircuitBreaker circuitBreaker) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = readCoalescer.read(key.operation(), key.keycloakId(), key.arguments(), read, copy);
+        } catch (QueryTimeoutException | TransactionTimedOutException ex) {
+            // cancelled by the deadline of the request, only a slow database if it took long (a client may ask for 1ms)
+            circuitBreaker.onSuccess(System.nanoTime() - start, System.nanoTime());
+            throw ex;
+        } catch (DataAccessException | TransactionException ex) {
+            circuitBreaker.onFailure(System.nanoTime());
+            throw ex;
+        } catch (RuntimeException ex) {
+            // e.g. FolderAccessDeniedException, the database answered
+            circuitBreaker.onSuccess(System.nanoTime() - start, System.nanoTime());
+            throw ex;
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start, System.nanoTime());
+        // the result itself stays with the request, the cache keeps a copy bound to no session
+        T cached = copy.apply(result);
+        Result fresh = new Result(cached, System.nanoTime(), ENTRY_OVERHEAD_BYTES + bytesOf(cached));
+        // dropped when the user changed something since the read started (or the entry was evicted)
+        results.asMap().computeIfPresent(key.keycloakId(), (keycloakId, userResults) ->
+                userResults.generation() == generation ? userResults.with(key, fresh, properties.getMaxStaleness()) : userResults);
+        return result;
+    }
+
+    private <T> void refresh(ReadKey key, long generation, Supplier<T> read, UnaryOperator<T> copy,
+                             DatabaseCircuitBreaker circuitBreaker) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        // the refresh runs without the web request, so it has to be told which shard the user lives on,
+        // a probe slower than a slow read fails like one and opens the breaker again instead of keeping it half open
+        Integer shardId = ShardContext.currentShardId();
+        Supplier<T> refresh = () -> RequestDeadline.callWith(System.nanoTime() + properties.getSlowCallThreshold().toNanos(),
+                () -> execute(key, generation, read, copy, circuitBreaker));
+        Thread.ofVirtual().name("stale-read-refresh").start(() -> {
+            try {
+                if (shardId == null) {
+                    refresh.get();
+                } else {
+                    ShardContext.callOn(shardId, refresh);
+                }
+            } catch (RuntimeException ex) {
+                log.debug("refresh of stale {} failed", key.operation(), ex);
+            } finally {
+                refreshing.remove(key);
+            }
+        });
+    }
+
+    private <T> T fallback(String operation, Result stale, RuntimeException failure, UnaryOperator<T> copy) {
+        if (stale != null) {
+            return serveStale(operation, stale, copy);
+        }
+        counter(operation, "rejected").increment();
+        if (failure != null) {
+            throw failure;
+        }
+        throw new DatabaseUnavailableException("the database is not available right now, please try again in a moment", retryAfter());
+    }
+
+    // every request gets its own copy of the cached result
+    @SuppressWarnings("unchecked")
+    private <T> T serveStale(String operation, Result stale, UnaryOperator<T> copy) {
+        counter(operation, "stale").increment();
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletResponse response = attributes.getResponse();
+            if (response != null) {
+                response.setHeader(STALE_HEADER, "true");
+                response.setHeader(HttpHeaders.AGE, String.valueOf(Duration.ofNanos(System.nanoTime() - stale.readAt()).toSeconds()));
+            }
+        }
+        return copy.apply((T) stale.value());
+    }
+
+    private DatabaseCircuitBreaker currentCircuitBreaker() {
+        Integer shardId = ShardContext.currentShardId();
+        return circuitBreakers.computeIfAbsent(shardId == null ? UNSHARDED : shardId, this::createCircuitBreaker);
+    }
+
+    private DatabaseCircuitBreaker createCircuitBreaker(int shardId) {
+        DatabaseCircuitBreaker circuitBreaker = new DatabaseCircuitBreaker(properties);
+        Gauge.builder("flashcards.db.circuit.open", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while reads are served stale and writes are rejected")
+                .tag("shard", shardId == UNSHARDED ? "none" : String.valueOf(shardId))
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    // pages of cards can be big, the cache is bounded by the estimated heap size of the results, mostly the card texts
+    private static int bytesOf(Object value) {
+        if (value instanceof Page<?> page) {
+            return bytesOf(page.getContent());
+        }
+        if (value instanceof Collection<?> collection) {
+            int bytes = 0;
+            for (Object element : collection) {
+                bytes += bytesOf(element);
+            }
+            return bytes;
+        }
+        if (value instanceof Card card) {
+            return ENTITY_OVERHEAD_BYTES + bytesOf(card.getQuestion()) + bytesOf(card.getAnswer());
+        }
+        if (value instanceof Folder folder) {
+            return ENTITY_OVERHEAD_BYTES + bytesOf(folder.getName());
+        }
+        if (value instanceof String text) {
+            return 2 * text.length();
+        }
+        return 0;
+    }
+
+    private Counter counter(String operation, String outcome) {
+        return Counter.builder(METRIC_PREFIX)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record ReadKey(String operation, String keycloakId, List<?> arguments) {
+    }
+
+    private record Result(Object value, long readAt, int bytes) {
+    }
+
+    // replaced as a whole on every change, so the cache weighs it again
+    private record UserResults(long generation, Map<ReadKey, Result> byKey, int bytes) {
+        static UserResults empty(long generation) {
+            return new UserResults(generation, Map.of(), ENTRY_OVERHEAD_BYTES);
+        }
+
+        // results older than the max staleness are not served anymore
+        Result get(ReadKey key, Duration maxStaleness) {
+            Result result = byKey.get(key);
+            return result == null || System.nanoTime() - result.readAt() > maxStaleness.toNanos() ? null : result;
+        }
+
+        // the entry of an active user is written again and again, its expired results are dropped on the way
+        UserResults with(ReadKey key, Result result, Duration maxStaleness) {
+            Map<ReadKey, Result> updated = new HashMap<>();
+            int updatedBytes = ENTRY_OVERHEAD_BYTES + result.bytes();
+            for (Map.Entry<ReadKey, Result> entry : byKey.entrySet()) {
+                if (!entry.getKey().equals(key) && get(entry.getKey(), maxStaleness) != null) {
+                    updated.put(entry.getKey(), entry.getValue());
+                    updatedBytes += entry.getValue().bytes();
+                }
+            }
+            updated.put(key, result);
+            return new UserResults(generation, Map.copyOf(updated), updatedBytes);
+        }
+    }
+}
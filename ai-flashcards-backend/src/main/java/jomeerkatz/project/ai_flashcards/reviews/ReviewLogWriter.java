@@ -0,0 +1,269 @@
+package jomeerkatz.project.ai_flashcards.reviews;
+
+import jomeerkatz.project.ai_flashcards.config.ReviewLogProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.CardReview;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.outbox.OutboxWriter;
+import jomeerkatz.project.ai_flashcards.repositories.CardReviewRepository;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAssignment;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.sharding.ShardState;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends every card status change to card_reviews and counts it into the hourly and daily review_rollups.
+ * The review row is inserted in the transaction of the status change, like the {@link OutboxWriter} does, so the history
+ * can't miss a committed answer. The learning requests only put the rollup into a queue, one thread upserts them in batches
+ * of a few hundred with one upsert per touched bucket. A failed batch is retried, a full queue makes the request write
+ * its rollup itself. Only rollups still in the queue are lost when the node dies.
+ * The shard of a rollup is looked up when it is written, the rollups of a user who is being moved wait until the user
+ * is ACTIVE on the new shard, so none of them land on the old one after its rows were copied.
+ */
+@Component
+@Slf4j
+public class ReviewLogWriter implements SmartLifecycle {
+    private static final String UPSERT_ROLLUP = "insert into review_rollups " +
+            "(user_id, folder_id, granularity, bucket_start, good_count, medium_count, bad_count) values (?, ?, ?, ?, ?, ?, ?) " +
+            "on conflict (user_id, folder_id, granularity, bucket_start) do update set " +
+            "good_count = review_rollups.good_count + excluded.good_count, " +
+            "medium_count = review_rollups.medium_count + excluded.medium_count, " +
+            "bad_count = review_rollups.bad_count + excluded.bad_count";
+
+    // two nodes upserting the same buckets lock them in the same order and can't deadlock
+    private static final Comparator<RollupKey> ROLLUP_ORDER = Comparator.comparing(RollupKey::userId)
+            .thenComparing(RollupKey::folderId)
+            .thenComparing(RollupKey::granularity)
+            .thenComparing(RollupKey::bucketStart);
+
+    // longest pause between two attempts of a failing batch, in flush intervals
+    private static final int MAX_RETRY_BACKOFF = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardReviewRepository cardReviewRepository;
+    private final ReviewLogProperties properties;
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+    private final BlockingQueue<PendingReview> queue;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public ReviewLogWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           CardReviewRepository cardReviewRepository, ReviewLogProperties properties,
+                           ObjectProvider<ShardDirectory> shardDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cardReviewRepository = cardReviewRepository;
+        this.properties = properties;
+        this.shardDirectory = shardDirectory;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    // before commit, so the review is stored in the transaction of the status change and both commit or roll back together
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void logReview(UserChangeEvent event) {
+        ChangeEventDto change = event.getChange();
+        if (change.getType() != ChangeType.CARD_STATUS_CHANGED) {
+            return;
+        }
+        cardReviewRepository.save(CardReview.builder()
+                .userId(event.getUserId())
+                .folderId(change.getFolderId())
+                .cardId(change.getCardId())
+                .status(change.getStatus())
+                .reviewedAt(change.getOccurredAt())
+                .build());
+    }
+
+    // after commit, a status change which was rolled back is no review
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        ChangeEventDto change = event.getChange();
+        if (change.getType() != ChangeType.CARD_STATUS_CHANGED) {
+            return;
+        }
+        PendingReview review = new PendingReview(event.getKeycloakId(), event.getUserId(),
+                change.getFolderId(), change.getCardId(), change.getStatus(), change.getOccurredAt());
+        if (queue.offer(review)) {
+            return;
+        }
+        // the writer can't keep up, the request slows down and counts its review itself instead of dropping it
+        List<PendingReview> parked = new ArrayList<>();
+        if (!write(List.of(review), parked).isEmpty() || !parked.isEmpty()) {
+            log.error("could not count the review of card {} into the rollups", change.getCardId());
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform()
+                .daemon()
+                .name("review-log-writer")
+                .start(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, this::writeLoop));
+    }
+
+    // waits for the queue to be written, so a normal shutdown loses nothing
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(properties.getFlushInterval().multipliedBy(10).toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void writeLoop() {
+        List<PendingReview> batch = new ArrayList<>(properties.getBatchSize());
+        List<PendingReview> parked = new ArrayList<>();
+        int failedAttempts = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    collectBatch(batch);
+                    // the rollups of users being moved are tried again with every batch, the others don't wait for them
+                    if (running) {
+                        batch.addAll(parked);
+                        parked.clear();
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<PendingReview> failed = write(batch, parked);
+                batch.clear();
+                if (failed.isEmpty()) {
+                    failedAttempts = 0;
+                } else if (!running && failedAttempts > 0) {
+                    log.error("could not count {} reviews into the rollups before the shutdown", failed.size());
+                } else {
+                    // the failed reviews are written again, the queue fills up in the meantime and slows the requests down
+                    batch.addAll(failed);
+                    failedAttempts++;
+                    Thread.sleep(properties.getFlushInterval().multipliedBy(Math.min(failedAttempts, MAX_RETRY_BACKOFF)).toMillis());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!parked.isEmpty()) {
+            log.error("could not count {} reviews of users being moved into the rollups before the shutdown", parked.size());
+        }
+    }
+
+    // returns with a full batch or once the first review waited for the flush interval
+    private void collectBatch(List<PendingReview> batch) throws InterruptedException {
+        PendingReview first = queue.poll(properties.getFlushInterval().toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + properties.getFlushInterval().toNanos();
+        while (batch.size() < properties.getBatchSize()) {
+            queue.drainTo(batch, properties.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.getBatchSize() || remaining <= 0 || !running) {
+                return;
+            }
+            PendingReview next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // returns the reviews which could not be written, their shard's transaction was rolled back and can be repeated as is,
+    // the reviews of users being moved are added to parked
+    private List<PendingReview> write(List<PendingReview> batch, List<PendingReview> parked) {
+        List<PendingReview> failed = new ArrayList<>();
+        // the rollups go to the shard of their user, the writer thread has no shard of its own
+        Map<Integer, List<PendingReview>> byShard = new HashMap<>();
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        for (PendingReview review : batch) {
+            if (directory == null) {
+                byShard.computeIfAbsent(-1, shardId -> new ArrayList<>()).add(review);
+                continue;
+            }
+            try {
+                ShardAssignment assignment = directory.resolve(review.keycloakId());
+                if (assignment.getState() == ShardState.MOVING) {
+                    parked.add(review);
+                } else {
+                    byShard.computeIfAbsent(assignment.getShardId(), shardId -> new ArrayList<>()).add(review);
+                }
+            } catch (RuntimeException ex) {
+                log.warn("could not look up the shard of user {}, trying again", review.keycloakId(), ex);
+                failed.add(review);
+            }
+        }
+        byShard.forEach((shardId, reviews) -> {
+            try {
+                if (shardId < 0) {
+                    writeRollups(reviews);
+                } else {
+                    ShardContext.callOn(shardId, () -> {
+                        writeRollups(reviews);
+                        return null;
+                    });
+                }
+            } catch (RuntimeException ex) {
+                log.warn("could not count {} reviews into the rollups, trying again", reviews.size(), ex);
+                failed.addAll(reviews);
+            }
+        });
+        return failed;
+    }
+
+    private void writeRollups(List<PendingReview> reviews) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rollups(reviews)));
+    }
+
+    private static List<Object[]> rollups(List<PendingReview> reviews) {
+        Map<RollupKey, long[]> counts = new TreeMap<>(ROLLUP_ORDER);
+        for (PendingReview review : reviews) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                RollupKey key = new RollupKey(review.userId(), review.folderId(), granularity, granularity.truncate(review.reviewedAt()));
+                counts.computeIfAbsent(key, ignored -> new long[CardStatus.values().length])[review.status().ordinal()]++;
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> rows.add(new Object[]{key.userId(), key.folderId(), key.granularity().name(), key.bucketStart(),
+                count[CardStatus.GOOD.ordinal()], count[CardStatus.MEDIUM.ordinal()], count[CardStatus.BAD.ordinal()]}));
+        return rows;
+    }
+
+    private record PendingReview(String keycloakId, Long userId, Long folderId, Long cardId, CardStatus status, LocalDateTime reviewedAt) {
+    }
+
+    private record RollupKey(Long userId, Long folderId, RollupGranularity granularity, LocalDateTime bucketStart) {
+    }
+}
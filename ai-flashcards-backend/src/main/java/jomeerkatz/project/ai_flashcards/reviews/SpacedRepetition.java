@@ -0,0 +1,43 @@
+package jomeerkatz.project.ai_flashcards.reviews;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * SM-2 scheduling. The three answers are the quality grades 5 (GOOD), 3 (MEDIUM) and 1 (BAD).
+ * A passed card comes back after 1 day, then 6 days, then the last interval times the ease factor.
+ * A failed card starts over and is due again right away, behind the cards that are already due.
+ */
+public final class SpacedRepetition {
+    public static final double INITIAL_EASE_FACTOR = 2.5;
+    static final double MIN_EASE_FACTOR = 1.3;
+
+    private SpacedRepetition() {
+    }
+
+    public record Schedule(double easeFactor, int intervalDays, int repetitions, LocalDateTime dueAt) {
+    }
+
+    public static Schedule next(double easeFactor, int intervalDays, int repetitions, CardStatus answer, LocalDateTime answeredAt) {
+        int quality = switch (answer) {
+            case GOOD -> 5;
+            case MEDIUM -> 3;
+            case BAD -> 1;
+        };
+        double nextEaseFactor = Math.max(MIN_EASE_FACTOR,
+                easeFactor + 0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
+        // rounded so the factor does not drift by floating point errors over many answers
+        nextEaseFactor = Math.round(nextEaseFactor * 100) / 100.0;
+
+        if (quality < 3) {
+            return new Schedule(nextEaseFactor, 0, 0, answeredAt);
+        }
+        int nextInterval = switch (repetitions) {
+            case 0 -> 1;
+            case 1 -> 6;
+            default -> (int) Math.round(intervalDays * easeFactor);
+        };
+        return new Schedule(nextEaseFactor, nextInterval, repetitions + 1, answeredAt.plusDays(nextInterval));
+    }
+}
@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMaintenanceDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMigrationDto;
+
+import java.util.List;
+
+public interface CardPartitioningService {
+    PartitionMigrationDto startMigration();
+    PartitionMigrationDto getMigration();
+    long migrateToPartitionedTable();
+    void dropUnpartitionedTable();
+    List<PartitionMaintenanceDto> vacuumPartitions();
+}
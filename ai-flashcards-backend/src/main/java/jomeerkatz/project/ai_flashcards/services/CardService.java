@@ -4,19 +4,29 @@ import jomeerkatz.project.ai_flashcards.domain.BulkCardCreateRequest;
 import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public interface CardService {
     Page<Card> getAllCards(User user, Long folderId, Pageable pageable);
+    Page<Card> getAllCards(User user, Long folderId, Set<CardField> fields, Pageable pageable);
     Card createCard(User user, Long folderId, CardCreateUpdateRequest card);
     void updateCard(User user, Long folderId, CardCreateUpdateRequest card, Long cardId);
     void deleteCard(User user, Long folderId, Long cardId);
     Long getCountOfCardsByFoldeId(User user, Long folderId);
     Page<Card> getCardsByStatus(User user, Long folderId, CardStatus status, Pageable pageable);
-    void updatedCardStatus(User user, Long folderId, Long cardId, CardStatus status);
+    Page<Card> getCardsByStatus(User user, Long folderId, CardStatus status, Set<CardField> fields, Pageable pageable);
+    List<Card> getLearningQueue(User user, Collection<Long> folderIds, int limit);
+    List<Card> getDueCards(User user, Long folderId, int limit);
+    void updatedCardStatus(User user, Long folderId, Long cardId, CardStatus status, Long version);
     List<Card> createCardsFromAi(User user, Long folderId, BulkCardCreateRequest bulkCardCreateRequest);
+    void writeCardPage(User user, Long folderId, Pageable pageable, OutputStream out);
+    void exportCards(User user, Long folderId, OutputStream out);
 }
@@ -0,0 +1,9 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+import java.util.Optional;
+
+public interface FolderCapabilityService {
+    boolean verify(String token, String keycloakId, Long folderId);
+    Optional<String> issueIfOwner(String keycloakId, Long folderId);
+    void revoke(Long folderId);
+}
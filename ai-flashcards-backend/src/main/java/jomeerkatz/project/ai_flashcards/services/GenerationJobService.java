@@ -0,0 +1,13 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+
+import java.util.function.Consumer;
+
+public interface GenerationJobService {
+    GenerationJob submitJob(User user, Long folderId, String prompt);
+    GenerationJob getJob(User user, Long jobId);
+    GenerationJob subscribe(User user, Long jobId, Consumer<GenerationJob> listener);
+    void unsubscribe(Long jobId, Consumer<GenerationJob> listener);
+}
@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.sessions.LearningSession;
+
+import java.util.List;
+
+public interface LearningSessionService {
+    LearningSession startSession(User user, Long folderId, CardStatus status, boolean shuffle, Long seed);
+    List<Card> nextCards(User user, String sessionId, int count);
+    void endSession(User user, String sessionId);
+}
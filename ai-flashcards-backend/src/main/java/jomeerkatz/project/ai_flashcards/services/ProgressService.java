@@ -0,0 +1,12 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.repositories.ProgressBucket;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProgressService {
+    List<ProgressBucket> getProgress(User user, Long folderId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+}
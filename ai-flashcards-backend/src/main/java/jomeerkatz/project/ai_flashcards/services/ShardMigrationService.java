@@ -0,0 +1,5 @@
+package jomeerkatz.project.ai_flashcards.services;
+
+public interface ShardMigrationService {
+    void moveUser(String keycloakId, int targetShardId);
+}
@@ -6,4 +6,5 @@ import jomeerkatz.project.ai_flashcards.domain.entities.User;
 public interface UserService {
     User createOrFindUser(User user);
     User getUserOrThrow(User user);
+    boolean provisionUser(String keycloakId);
 }
@@ -0,0 +1,263 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import jomeerkatz.project.ai_flashcards.config.PartitioningProperties;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMaintenanceDto;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMigrationDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.PartitionMigrationStatus;
+import jomeerkatz.project.ai_flashcards.exceptions.PartitionMigrationInProgressException;
+import jomeerkatz.project.ai_flashcards.services.CardPartitioningService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the cards heap into a table partitioned by hash of user_id while the application keeps serving requests:
+ * <ol>
+ *     <li>create cards_partitioned with its hash partitions next to cards</li>
+ *     <li>mirror every insert/update/delete on cards into it with a trigger</li>
+ *     <li>backfill the existing rows in small id ranges, each in its own short transaction</li>
+ *     <li>swap the table names in one short transaction under an exclusive lock</li>
+ * </ol>
+ * The migration runs in the background, {@link #getMigration()} tells how far it is.
+ * Every step can be re-run, so a failed migration is continued by simply starting it again.
+ * The old table is kept as cards_unpartitioned as a way back until {@link #dropUnpartitionedTable()} drops it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardPartitioningServiceImpl implements CardPartitioningService {
+    private final PartitioningProperties properties;
+    private final DataSource dataSource;
+    private final ObjectProvider<ShardDataSources> shardDataSources;
+
+    private final ExecutorService migrator = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("card-partition-migration").factory());
+    // state of the migration started on this node
+    private final AtomicReference<PartitionMigrationDto> migration = new AtomicReference<>(
+            PartitionMigrationDto.builder().status(PartitionMigrationStatus.NOT_STARTED).build());
+
+    @Override
+    public PartitionMigrationDto startMigration() {
+        PartitionMigrationDto current = migration.get();
+        PartitionMigrationDto started = PartitionMigrationDto.builder()
+                .status(PartitionMigrationStatus.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build();
+        if (current.getStatus() == PartitionMigrationStatus.RUNNING || !migration.compareAndSet(current, started)) {
+            throw new PartitionMigrationInProgressException("the cards table is being migrated already");
+        }
+        migrator.execute(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, () -> {
+            try {
+                long copiedRows = migrateToPartitionedTable();
+                migration.set(started.toBuilder()
+                        .status(PartitionMigrationStatus.SUCCEEDED)
+                        .finishedAt(LocalDateTime.now())
+                        .copiedRows(copiedRows)
+                        .build());
+            } catch (RuntimeException ex) {
+                log.error("migration of cards into partitions failed, start it again to continue", ex);
+                migration.set(started.toBuilder()
+                        .status(PartitionMigrationStatus.FAILED)
+                        .finishedAt(LocalDateTime.now())
+                        .error(ex.getMessage())
+                        .build());
+            }
+        }));
+        return started;
+    }
+
+    @Override
+    public PartitionMigrationDto getMigration() {
+        return migration.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        migrator.shutdownNow();
+    }
+
+    // runs the migration on the calling thread, returns the number of backfilled rows
+    @Override
+    public long migrateToPartitionedTable() {
+        return databases().stream().mapToLong(this::migrate).sum();
+    }
+
+    // only once cards is the partitioned table, so the way back is never dropped by accident
+    @Override
+    public void dropUnpartitionedTable() {
+        if (migration.get().getStatus() == PartitionMigrationStatus.RUNNING) {
+            throw new PartitionMigrationInProgressException("the cards table is being migrated right now");
+        }
+        for (DataSource database : databases()) {
+            JdbcTemplate jdbc = new JdbcTemplate(database);
+            if (isPartitioned(jdbc)) {
+                jdbc.execute("drop table if exists cards_unpartitioned");
+            } else {
+                log.warn("cards is not partitioned yet, cards_unpartitioned is kept");
+            }
+        }
+    }
+
+    @Override
+    public List<PartitionMaintenanceDto> vacuumPartitions() {
+        List<PartitionMaintenanceDto> result = new ArrayList<>();
+        databases().forEach(database -> result.addAll(vacuum(database)));
+        return result;
+    }
+
+    // with sharding every shard has its own cards table
+    private Collection<DataSource> databases() {
+        return ShardDataSources.allDatabases(dataSource, shardDataSources);
+    }
+
+    private long migrate(DataSource database) {
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        if (isPartitioned(jdbc)) {
+            log.info("cards is already partitioned, nothing to migrate");
+            return 0;
+        }
+        List<String> columns = jdbc.queryForList("""
+                select column_name from information_schema.columns
+                where table_schema = current_schema() and table_name = 'cards'
+                order by ordinal_position""", String.class);
+
+        createPartitionedTable(jdbc);
+        installMirrorTrigger(jdbc, columns);
+        long copiedRows = backfill(jdbc, columns);
+        swapTables(database, jdbc);
+        log.info("migrated cards into {} hash partitions, backfilled {} rows", properties.getPartitions(), copiedRows);
+        return copiedRows;
+    }
+
+    private boolean isPartitioned(JdbcTemplate jdbc) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("""
+                select exists(select 1 from pg_partitioned_table pt
+                join pg_class c on c.oid = pt.partrelid
+                where c.relname = 'cards' and pg_table_is_visible(c.oid))""", Boolean.class));
+    }
+
+    private void createPartitionedTable(JdbcTemplate jdbc) {
+        jdbc.execute("""
+                create table if not exists cards_partitioned
+                (like cards including defaults including constraints)
+                partition by hash (user_id)""");
+        for (int remainder = 0; remainder < properties.getPartitions(); remainder++) {
+            jdbc.execute("create table if not exists cards_p" + remainder + " partition of cards_partitioned"
+                    + " for values with (modulus " + properties.getPartitions() + ", remainder " + remainder + ")");
+        }
+        // unique constraints of a partitioned table have to contain the partition key
+        jdbc.execute("""
+                do $$ begin
+                    if not exists (select 1 from pg_constraint where conname = 'cards_partitioned_pkey') then
+                        alter table cards_partitioned add constraint cards_partitioned_pkey primary key (id, user_id);
+                        alter table cards_partitioned add constraint cards_partitioned_user_fk foreign key (user_id) references users (id);
+                        alter table cards_partitioned add constraint cards_partitioned_folder_fk foreign key (folder_id) references folders (id);
+                    end if;
+                end $$""");
+        jdbc.execute("create index if not exists cards_partitioned_user_folder_idx on cards_partitioned (user_id, folder_id)");
+        jdbc.execute("create index if not exists cards_partitioned_due_idx on cards_partitioned (user_id, folder_id, due_at, id)");
+        jdbc.execute("create index if not exists cards_partitioned_learn_idx on cards_partitioned (user_id, folder_id, status, updated_at, id)");
+    }
+
+    private void installMirrorTrigger(JdbcTemplate jdbc, List<String> columns) {
+        String columnList = String.join(", ", columns);
+        String newValues = columns.stream().map(column -> "new." + column).collect(Collectors.joining(", "));
+        String updates = columns.stream()
+                .filter(column -> !column.equals("id") && !column.equals("user_id"))
+                .map(column -> column + " = excluded." + column)
+                .collect(Collectors.joining(", "));
+        jdbc.execute("""
+                create or replace function cards_mirror_to_partitioned() returns trigger language plpgsql as $$
+                begin
+                    if tg_op = 'DELETE' then
+                        delete from cards_partitioned where id = old.id and user_id = old.user_id;
+                        return old;
+                    end if;
+                    insert into cards_partitioned (%s) values (%s)
+                    on conflict (id, user_id) do update set %s;
+                    return new;
+                end $$""".formatted(columnList, newValues, updates));
+        jdbc.execute("drop trigger if exists cards_mirror_trigger on cards");
+        jdbc.execute("create trigger cards_mirror_trigger after insert or update or delete on cards"
+                + " for each row execute function cards_mirror_to_partitioned()");
+    }
+
+    private long backfill(JdbcTemplate jdbc, List<String> columns) {
+        String columnList = String.join(", ", columns);
+        String copyBatch = "insert into cards_partitioned (" + columnList + ") select " + columnList
+                + " from cards where id > ? and id <= ? on conflict (id, user_id) do nothing";
+        long copiedRows = 0;
+        long lastId = 0;
+        while (true) {
+            Long batchEnd = jdbc.queryForObject(
+                    "select max(id) from (select id from cards where id > ? order by id limit ?) batch",
+                    Long.class, lastId, properties.getBatchSize());
+            if (batchEnd == null) {
+                return copiedRows;
+            }
+            // rows already mirrored by the trigger are newer than what we read here, so they win
+            copiedRows += jdbc.update(copyBatch, lastId, batchEnd);
+            lastId = batchEnd;
+        }
+    }
+
+    private void swapTables(DataSource database, JdbcTemplate jdbc) {
+        new TransactionTemplate(new DataSourceTransactionManager(database)).executeWithoutResult(status -> {
+            jdbc.execute("lock table cards in access exclusive mode");
+            // a row deleted while its batch was being copied can come back through the backfill, drop those
+            jdbc.update("delete from cards_partitioned p where not exists (select 1 from cards c where c.id = p.id)");
+            jdbc.execute("drop trigger cards_mirror_trigger on cards");
+            jdbc.execute("drop function cards_mirror_to_partitioned()");
+            jdbc.execute("alter table cards rename to cards_unpartitioned");
+            jdbc.execute("alter table cards_partitioned rename to cards");
+        });
+    }
+
+    private List<PartitionMaintenanceDto> vacuum(DataSource database) {
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        List<String> tables = jdbc.queryForList("""
+                select child.relname from pg_inherits i
+                join pg_class child on child.oid = i.inhrelid
+                join pg_class parent on parent.oid = i.inhparent
+                where parent.relname = 'cards' and pg_table_is_visible(parent.oid)
+                order by child.relname""", String.class);
+        if (tables.isEmpty()) {
+            tables = List.of("cards");
+        }
+        List<PartitionMaintenanceDto> result = new ArrayList<>();
+        for (String table : tables) {
+            // vacuum can't run inside a transaction, the jdbc template runs it in auto commit
+            long start = System.nanoTime();
+            jdbc.execute("vacuum (analyze) " + table);
+            long vacuumMillis = (System.nanoTime() - start) / 1_000_000;
+            result.add(jdbc.queryForObject(
+                    "select reltuples::bigint as row_estimate, pg_total_relation_size(oid) as size_bytes from pg_class where oid = ?::regclass",
+                    (rs, rowNum) -> PartitionMaintenanceDto.builder()
+                            .partition(table)
+                            .rows(Math.max(rs.getLong("row_estimate"), 0))
+                            .sizeBytes(rs.getLong("size_bytes"))
+                            .vacuumMillis(vacuumMillis)
+                            .build(),
+                    table));
+        }
+        return result;
+    }
+}
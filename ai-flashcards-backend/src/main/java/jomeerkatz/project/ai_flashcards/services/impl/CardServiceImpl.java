@@ -1,54 +1,105 @@
 package jomeerkatz.project.ai_flashcards.services.impl;
 
 import jakarta.transaction.Transactional;
+import jomeerkatz.project.ai_flashcards.capabilities.FolderCapabilityContext;
+import jomeerkatz.project.ai_flashcards.coalescing.DetachedCopies;
+import jomeerkatz.project.ai_flashcards.config.LearningQueueProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
 import jomeerkatz.project.ai_flashcards.domain.BulkCardCreateRequest;
 import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
 import jomeerkatz.project.ai_flashcards.exceptions.CardException;
+import jomeerkatz.project.ai_flashcards.exceptions.CardVersionConflictException;
 import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
 import jomeerkatz.project.ai_flashcards.exceptions.FolderDoesNotExists;
 import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.CardSchedule;
 import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
+import jomeerkatz.project.ai_flashcards.reviews.SpacedRepetition;
 import jomeerkatz.project.ai_flashcards.services.CardService;
 import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.streaming.CardJsonStreamer;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class CardServiceImpl implements CardService {
+    // order of the cross folder learning queue, the cards needing the most practice first
+    private static final List<CardStatus> LEARNING_PRIORITY = List.of(CardStatus.BAD, CardStatus.MEDIUM, CardStatus.GOOD);
+    private static final Comparator<Card> LEARNING_ORDER = Comparator
+            .comparingInt((Card card) -> LEARNING_PRIORITY.indexOf(card.getStatus()))
+            .thenComparing(Card::getUpdatedAt)
+            .thenComparing(Card::getId);
+    // cards read per folder at a time, most requests are served by the first head of each folder
+    private static final int FOLDER_HEAD_SIZE = 10;
+    private static final int FOLDER_HEAD_READ_CONCURRENCY = 4;
+
     private final CardRepository cardRepository;
     private final UserService userService;
     private final FolderRepository folderRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final StaleReadCache staleReadCache;
+    private final CardJsonStreamer cardJsonStreamer;
+    private final LearningQueueProperties learningQueueProperties;
 
     @Override
     public Page<Card> getAllCards(User user, Long folderId, Pageable pageable) {
-        // check if user even existing
-        User savedUser = userService.getUserOrThrow(user);
-
-        // get the actual folder, where data should get retrieved
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
+        // the same listing requested several times at once (tabs, re-renders) is read only once
+        return staleReadCache.read("cards", user.getKeycloakId(), Arrays.asList(folderId, pageable), () -> {
+            // check if user even existing
+            User savedUser = userService.getUserOrThrow(user);
 
-        // check if the user has even access to the folder
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+            getAccessibleFolder(savedUser, folderId);
 
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
             return cardRepository.findAllByUserIdAndFolderId(savedUser.getId(), folderId, pageable);
+        }, DetachedCopies::ofCards);
+    }
+
+    @Override
+    public Page<Card> getAllCards(User user, Long folderId, Set<CardField> fields, Pageable pageable) {
+        if (fields.isEmpty()) {
+            return getAllCards(user, folderId, pageable);
         }
+        return staleReadCache.read("card-fields", user.getKeycloakId(), Arrays.asList(folderId, fields, pageable), () -> {
+            User savedUser = userService.getUserOrThrow(user);
+
+            getAccessibleFolder(savedUser, folderId);
+
+            return cardRepository.findFieldsByUserIdAndFolderId(savedUser.getId(), folderId, null, fields, pageable);
+        }, DetachedCopies::ofCards);
     }
 
     @Override
@@ -58,28 +109,20 @@ public class CardServiceImpl implements CardService {
         // we have to check, if the user is even existing bec without a user, we cant save it
         User savedUser = userService.getUserOrThrow(user);
 
-        // if user exists, we have to check if the folder is existing too also
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
-        // if folder is connected to user (user has access to the folder) - prevent random user create cards for folders
-        // if user exists, if folder exists, if user has access to folder...
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
-
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
-            Card card = Card.builder()
-                    .user(savedUser)
-                    .folder(savedFolder)
-                    .question(cardCreateUpdateRequest.getQuestion())
-                    .answer(cardCreateUpdateRequest.getAnswer())
-                    .status(CardStatus.BAD)
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-            return cardRepository.save(card);
-        }
+        Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+        Card card = Card.builder()
+                .user(savedUser)
+                .folder(savedFolder)
+                .question(cardCreateUpdateRequest.getQuestion())
+                .answer(cardCreateUpdateRequest.getAnswer())
+                .status(CardStatus.BAD)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        Card savedCard = cardRepository.save(card);
+        applicationEventPublisher.publishEvent(UserChangeEvent.ofCard(ChangeType.CARD_CREATED, savedCard));
+        return savedCard;
     }
 
     @Override
@@ -89,24 +132,22 @@ public class CardServiceImpl implements CardService {
         // we have to check, if the user is even existing bec without a user, we cant save it
         User savedUser = userService.getUserOrThrow(user);
 
-        // if user exists, we have to check if the folder is existing too also
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
-        // if folder is connected to user (user has access to the folder) - prevent random user create cards for folders
-        // if user exists, if folder exists, if user has access to folder...
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
-
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
-            Optional<Card> savedCard = cardRepository.findByIdAndFolderId(cardId, savedFolder.getId());
-            Card toBeUpdated = savedCard.orElseThrow(() -> new CardException("Card not existing or user has no access."));
-            toBeUpdated.setUpdatedAt(LocalDateTime.now());
-            toBeUpdated.setAnswer(card.getAnswer());
-            toBeUpdated.setQuestion(card.getQuestion());
-            cardRepository.save(toBeUpdated);
+        // one conditional update instead of select + save, the where clause checks user, folder and version at once
+        LocalDateTime updatedAt = LocalDateTime.now();
+        int updatedCards = cardRepository.updateTextByIdAndUserIdAndFolderId(cardId, savedUser.getId(), folderId,
+                card.getVersion(), card.getQuestion(), card.getAnswer(), updatedAt);
+        if (updatedCards == 0) {
+            throwEditFailure(savedUser, folderId, cardId);
         }
+        Card updatedCard = Card.builder()
+                .id(cardId)
+                .user(savedUser)
+                .folder(Folder.builder().id(folderId).build())
+                .question(card.getQuestion())
+                .answer(card.getAnswer())
+                .updatedAt(updatedAt)
+                .build();
+        applicationEventPublisher.publishEvent(UserChangeEvent.ofCard(ChangeType.CARD_UPDATED, updatedCard));
     }
 
     @Override
@@ -116,116 +157,283 @@ public class CardServiceImpl implements CardService {
         // we have to check, if the user is even existing bec without a user, we cant save it
         User savedUser = userService.getUserOrThrow(user);
 
-        // if user exists, we have to check if the folder is existing too also
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
-        // if folder is connected to user (user has access to the folder) - prevent random user create cards for folders
-        // if user exists, if folder exists, if user has access to folder...
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+        Folder savedFolder = getAccessibleFolder(savedUser, folderId);
 
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
-            Optional<Card> savedCard = cardRepository.findByIdAndFolderId(cardId, savedFolder.getId());
-            Card toBeDeleted = savedCard.orElseThrow(() -> new CardException("Card not existing or user has no access."));
-            cardRepository.deleteById(toBeDeleted.getId());
+        int deletedCards = cardRepository.deleteByIdAndUserIdAndFolderId(cardId, savedUser.getId(), savedFolder.getId());
+        if (deletedCards == 0) {
+            throw new CardException("Card not existing or user has no access.");
         }
+        applicationEventPublisher.publishEvent(UserChangeEvent.ofDeletedCard(savedUser, savedFolder.getId(), cardId));
     }
 
     @Override
     public Long getCountOfCardsByFoldeId(User user, Long folderId) {
-        // request comes to backend
-        // we have to check, if the user is even existing bec without a user, we cant save it
+        return staleReadCache.read("card-count", user.getKeycloakId(), List.of(folderId), () -> {
+            // request comes to backend
+            // we have to check, if the user is even existing bec without a user, we cant save it
+            User savedUser = userService.getUserOrThrow(user);
+
+            Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+            return cardRepository.countByUserIdAndFolderId(savedUser.getId(), savedFolder.getId());
+        });
+    }
+
+    @Override
+    public Page<Card> getCardsByStatus(User user, Long folderId, CardStatus status, Pageable pageable) {
+        return staleReadCache.read("cards-by-status", user.getKeycloakId(), Arrays.asList(folderId, status, pageable), () -> {
+            // check if user even existing
+            User savedUser = userService.getUserOrThrow(user);
+
+            Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+            return cardRepository.findAllByUserIdAndFolderIdAndStatus(savedUser.getId(), savedFolder.getId(), status, pageable);
+        }, DetachedCopies::ofCards);
+    }
+
+    @Override
+    public Page<Card> getCardsByStatus(User user, Long folderId, CardStatus status, Set<CardField> fields, Pageable pageable) {
+        if (fields.isEmpty()) {
+            return getCardsByStatus(user, folderId, status, pageable);
+        }
+        return staleReadCache.read("card-fields-by-status", user.getKeycloakId(), Arrays.asList(folderId, status, fields, pageable), () -> {
+            User savedUser = userService.getUserOrThrow(user);
+
+            Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+            return cardRepository.findFieldsByUserIdAndFolderId(savedUser.getId(), savedFolder.getId(), status, fields, pageable);
+        }, DetachedCopies::ofCards);
+    }
+
+    @Override
+    @Transactional
+    public void updatedCardStatus(User user, Long folderId, Long cardId, CardStatus status, Long version) {
         User savedUser = userService.getUserOrThrow(user);
 
-        // if user exists, we have to check if the folder is existing too also
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
-        // if folder is connected to user (user has access to the folder) - prevent random user create cards for folders
-        // if user exists, if folder exists, if user has access to folder...
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+        Optional<CardSchedule> schedule = cardRepository.findScheduleByIdAndUserIdAndFolderId(cardId, savedUser.getId(), folderId);
+        if (schedule.isEmpty()) {
+            throwEditFailure(savedUser, folderId, cardId);
+        }
+        CardSchedule currentSchedule = schedule.get();
+        if (version != null && !version.equals(currentSchedule.getVersion())) {
+            throw new CardVersionConflictException("Card was changed in the meantime, reload it and try again.");
+        }
 
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
+        LocalDateTime updatedAt = LocalDateTime.now();
+        SpacedRepetition.Schedule nextSchedule = SpacedRepetition.next(currentSchedule.getEaseFactor(),
+                currentSchedule.getIntervalDays(), currentSchedule.getRepetitions(), status, updatedAt);
+        int updatedCards = cardRepository.updateReviewByIdAndUserIdAndFolderId(cardId, savedUser.getId(), folderId,
+                currentSchedule.getVersion(), status, nextSchedule.easeFactor(), nextSchedule.intervalDays(),
+                nextSchedule.repetitions(), nextSchedule.dueAt(), updatedAt);
+        if (updatedCards == 0) {
+            // another answer to the same card came in between
+            throw new CardVersionConflictException("Card was changed in the meantime, reload it and try again.");
+        }
+        Card updatedCard = Card.builder()
+                .id(cardId)
+                .user(savedUser)
+                .folder(Folder.builder().id(folderId).build())
+                .status(status)
+                .dueAt(nextSchedule.dueAt())
+                .updatedAt(updatedAt)
+                .build();
+        applicationEventPublisher.publishEvent(UserChangeEvent.ofCard(ChangeType.CARD_STATUS_CHANGED, updatedCard));
+    }
+
+    @Override
+    public List<Card> getLearningQueue(User user, Collection<Long> folderIds, int limit) {
+        User savedUser = userService.getUserOrThrow(user);
+
+        List<Long> learnedFolderIds;
+        if (folderIds == null || folderIds.isEmpty()) {
+            learnedFolderIds = folderRepository.findIdsByUserId(savedUser.getId(), Limit.of(learningQueueProperties.getMaxFolders()));
         } else {
-            return cardRepository.countByFolderId(savedFolder.getId());
+            learnedFolderIds = List.copyOf(new LinkedHashSet<>(folderIds));
+            // one query checks the access to all folders
+            if (folderRepository.findAllByUserIdAndIdIn(savedUser.getId(), learnedFolderIds).size() != learnedFolderIds.size()) {
+                throw new FolderAccessDeniedException("User has no access or folder does not exist!");
+            }
+        }
+
+        // k-way merge, only the head of every folder is read and a folder is read further when its head is used up
+        int headSize = Math.min(limit, FOLDER_HEAD_SIZE);
+        List<FolderQueue> folderQueues = learnedFolderIds.stream()
+                .map(folderId -> new FolderQueue(savedUser.getId(), folderId, headSize))
+                .toList();
+        readFirstHeads(folderQueues);
+        PriorityQueue<FolderQueue> heads = new PriorityQueue<>(Comparator.comparing(FolderQueue::peek, LEARNING_ORDER));
+        folderQueues.stream()
+                .filter(FolderQueue::hasCards)
+                .forEach(heads::add);
+
+        List<Card> learningQueue = new ArrayList<>(limit);
+        while (learningQueue.size() < limit && !heads.isEmpty()) {
+            FolderQueue folderQueue = heads.poll();
+            learningQueue.add(folderQueue.poll());
+            if (folderQueue.fill()) {
+                heads.add(folderQueue);
+            }
+        }
+        return learningQueue;
+    }
+
+    // the first heads of all folders are read at the same time, a few at once so one request can't take the whole pool
+    private void readFirstHeads(List<FolderQueue> folderQueues) {
+        // the reads run on other threads, which have to be pointed to the shard of the user again and get the same deadline
+        Integer shardId = ShardContext.currentShardId();
+        Long deadline = RequestDeadline.current();
+        try (ExecutorService executor = Executors.newFixedThreadPool(FOLDER_HEAD_READ_CONCURRENCY, Thread.ofVirtual().factory())) {
+            List<CompletableFuture<Boolean>> reads = folderQueues.stream()
+                    .map(folderQueue -> {
+                        Supplier<Boolean> read = () -> RequestDeadline.callWith(deadline, folderQueue::fill);
+                        return CompletableFuture.supplyAsync(shardId == null ? read : () -> ShardContext.callOn(shardId, read), executor);
+                    })
+                    .toList();
+            reads.forEach(CompletableFuture::join);
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * The cards of one folder in learning order, bad ones first and then by oldest update.
+     * Read a head of a few cards at a time, continuing with the next status once one is used up.
+     */
+    private class FolderQueue {
+        private final Long userId;
+        private final Long folderId;
+        private final int headSize;
+        private final Deque<Card> head = new ArrayDeque<>();
+        private int statusIndex;
+        private Card lastRead;
+
+        private FolderQueue(Long userId, Long folderId, int headSize) {
+            this.userId = userId;
+            this.folderId = folderId;
+            this.headSize = headSize;
+        }
+
+        private Card peek() {
+            return head.peek();
+        }
+
+        private Card poll() {
+            return head.poll();
+        }
+
+        private boolean hasCards() {
+            return !head.isEmpty();
+        }
+
+        // reads the next head once the current one is used up, false when the folder has no cards left
+        private boolean fill() {
+            while (head.isEmpty() && statusIndex < LEARNING_PRIORITY.size()) {
+                CardStatus status = LEARNING_PRIORITY.get(statusIndex);
+                List<Card> cards = lastRead == null
+                        ? cardRepository.findLearningHeadByUserIdAndFolderId(userId, folderId, status, Limit.of(headSize))
+                        : cardRepository.findLearningHeadByUserIdAndFolderIdAfter(userId, folderId, status,
+                        lastRead.getUpdatedAt(), lastRead.getId(), Limit.of(headSize));
+                head.addAll(cards);
+                if (cards.size() < headSize) {
+                    statusIndex++;
+                    lastRead = null;
+                } else {
+                    lastRead = cards.getLast();
+                }
+            }
+            return !head.isEmpty();
         }
     }
 
     @Override
-    public Page<Card> getCardsByStatus(User user, Long folderId, CardStatus status, Pageable pageable) {
-        // check if user even existing
+    public List<Card> getDueCards(User user, Long folderId, int limit) {
         User savedUser = userService.getUserOrThrow(user);
 
-        // get the actual folder, where data should get retrieved
+        Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+        return cardRepository.findDueByUserIdAndFolderId(savedUser.getId(), savedFolder.getId(), LocalDateTime.now(), Limit.of(limit));
+    }
+
+    // a folder capability of the request already proves the access, then the folder is only referenced and not read
+    private Folder getAccessibleFolder(User savedUser, Long folderId) {
+        if (FolderCapabilityContext.isGranted(folderId)) {
+            return folderRepository.getReferenceById(folderId);
+        }
+
         Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
                 () -> new FolderDoesNotExists("Folder does not exists!")
         );
 
-        // check if the user has even access to the folder
         boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
 
         if (!userHasAccessToFolder) {
             throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
-            return cardRepository.findAllByUserIdAndFolderIdAndStatus(savedUser.getId(), savedFolder.getId(), status, pageable);
         }
+        return savedFolder;
     }
 
-    @Override
-    public void updatedCardStatus(User user, Long folderId, Long cardId, CardStatus status) {
-        User savedUser = userService.getUserOrThrow(user);
-
-        // get the actual folder, where data should get retrieved
+    // only runs when an edit matched no row, finds out why so the responses stay the same as before
+    private void throwEditFailure(User savedUser, Long folderId, Long cardId) {
         Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
                 () -> new FolderDoesNotExists("Folder does not exists!")
         );
 
-        // check if the user has even access to the folder
         boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
 
         if (!userHasAccessToFolder) {
             throw new FolderAccessDeniedException("User has not access to the folder!");
+        } else if (cardRepository.existsByIdAndUserIdAndFolderId(cardId, savedUser.getId(), folderId)) {
+            throw new CardVersionConflictException("Card was changed in the meantime, reload it and try again.");
         } else {
-            Optional<Card> savedCard = cardRepository.findByIdAndFolderId(cardId, savedFolder.getId());
-            Card toBeUpdated = savedCard.orElseThrow(() -> new CardException("Card not existing or user has no access."));
-            toBeUpdated.setStatus(status);
-            toBeUpdated.setUpdatedAt(LocalDateTime.now());
-            cardRepository.save(toBeUpdated);
+            throw new CardException("Card not existing or user has no access.");
         }
     }
 
     @Override
+    @Transactional
     public List<Card> createCardsFromAi(User user, Long folderId, BulkCardCreateRequest bulkCardCreateRequest) {
 
         User savedUser = userService.getUserOrThrow(user);
 
-        // get the actual folder, where data should get retrieved
-        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
-                () -> new FolderDoesNotExists("Folder does not exists!")
-        );
+        Folder savedFolder = getAccessibleFolder(savedUser, folderId);
+
+        List<CardCreateUpdateRequest> cardsToBeSaved = bulkCardCreateRequest.getCards();
+        List<Card> cards = cardsToBeSaved.stream().map(currentCard ->
+                Card.builder()
+                        .user(savedUser)
+                        .folder(savedFolder)
+                        .question(currentCard.getQuestion())
+                        .answer(currentCard.getAnswer())
+                        .status(CardStatus.BAD)
+                        .updatedAt(LocalDateTime.now())
+                        .createdAt(LocalDateTime.now())
+                        .build()).toList();
+
+        List<Card> savedCards = cardRepository.saveAll(cards);
+        savedCards.forEach(savedCard -> applicationEventPublisher.publishEvent(UserChangeEvent.ofCard(ChangeType.CARD_CREATED, savedCard)));
+        return savedCards;
+    }
 
-        // check if the user has even access to the folder
-        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+    @Override
+    public void writeCardPage(User user, Long folderId, Pageable pageable, OutputStream out) {
+        User savedUser = userService.getUserOrThrow(user);
 
-        if (!userHasAccessToFolder) {
-            throw new FolderAccessDeniedException("User has not access to the folder!");
-        } else {
-            List<CardCreateUpdateRequest> cardsToBeSaved = bulkCardCreateRequest.getCards();
-            List<Card> cards = cardsToBeSaved.stream().map(currentCard ->
-                    Card.builder()
-                            .user(savedUser)
-                            .folder(savedFolder)
-                            .question(currentCard.getQuestion())
-                            .answer(currentCard.getAnswer())
-                            .status(CardStatus.BAD)
-                            .updatedAt(LocalDateTime.now())
-                            .createdAt(LocalDateTime.now())
-                            .build()).toList();
-
-            return cardRepository.saveAll(cards);
-        }
-    }
-}
\ No newline at end of file
+        getAccessibleFolder(savedUser, folderId);
+
+        cardJsonStreamer.writePage(out, savedUser.getId(), folderId, pageable);
+    }
+
+    @Override
+    // the cursor of the export only streams inside a transaction
+    @Transactional
+    public void exportCards(User user, Long folderId, OutputStream out) {
+        User savedUser = userService.getUserOrThrow(user);
+
+        getAccessibleFolder(savedUser, folderId);
+
+        cardJsonStreamer.writeAll(out, savedUser.getId(), folderId);
+    }
+}
@@ -0,0 +1,118 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jomeerkatz.project.ai_flashcards.config.FolderCapabilityProperties;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.services.FolderCapabilityService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Hands out tokens proving that a user owns a folder, so the card endpoints don't have to ask the database on every call.
+ * A token is "folderId.issuedAt.signature", the hmac covers the keycloak id as well, so it is only valid for its user.
+ * Deleted folders go on a denylist until every token issued before the delete has expired.
+ */
+@Service
+@ConditionalOnProperty(prefix = "flashcards.folder-capabilities", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class FolderCapabilityServiceImpl implements FolderCapabilityService {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final FolderRepository folderRepository;
+    private final long ttlMillis;
+    private final SecretKeySpec key;
+    // folder id -> when it was revoked, tokens issued up to then are rejected
+    private final Cache<Long, Long> revokedFolders;
+
+    public FolderCapabilityServiceImpl(FolderRepository folderRepository, FolderCapabilityProperties properties) {
+        this.folderRepository = folderRepository;
+        this.ttlMillis = properties.getTtl().toMillis();
+        this.key = new SecretKeySpec(secretOf(properties), ALGORITHM);
+        // after the ttl all tokens issued before the revocation are expired anyway
+        this.revokedFolders = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    @Override
+    public boolean verify(String token, String keycloakId, Long folderId) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !parts[0].equals(String.valueOf(folderId))) {
+            return false;
+        }
+        long issuedAt;
+        try {
+            issuedAt = Long.parseLong(parts[1]);
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (issuedAt > now || now - issuedAt >= ttlMillis) {
+            return false;
+        }
+        Long revokedAt = revokedFolders.getIfPresent(folderId);
+        if (revokedAt != null && issuedAt <= revokedAt) {
+            return false;
+        }
+        byte[] expected = sign(keycloakId, folderId, issuedAt).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, parts[2].getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public Optional<String> issueIfOwner(String keycloakId, Long folderId) {
+        // issued before the check, so a delete while checking is on the denylist with a later time
+        long issuedAt = System.currentTimeMillis();
+        if (!folderRepository.existsByIdAndUserKeycloakId(folderId, keycloakId)) {
+            return Optional.empty();
+        }
+        return Optional.of(folderId + "." + issuedAt + "." + sign(keycloakId, folderId, issuedAt));
+    }
+
+    @Override
+    public void revoke(Long folderId) {
+        revokedFolders.put(folderId, System.currentTimeMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        if (event.getChange().getType() == ChangeType.FOLDER_DELETED) {
+            revoke(event.getChange().getFolderId());
+        }
+    }
+
+    private String sign(String keycloakId, Long folderId, long issuedAt) {
+        try {
+            // a mac instance is not thread safe, creating one per token is cheaper than the query it saves
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            byte[] signature = mac.doFinal((keycloakId + "\n" + folderId + "\n" + issuedAt).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("could not sign folder capability", ex);
+        }
+    }
+
+    private static byte[] secretOf(FolderCapabilityProperties properties) {
+        if (properties.getSecret() != null && !properties.getSecret().isBlank()) {
+            return properties.getSecret().getBytes(StandardCharsets.UTF_8);
+        }
+        log.info("no flashcards.folder-capabilities.secret set, folder capabilities are only valid on this node");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+}
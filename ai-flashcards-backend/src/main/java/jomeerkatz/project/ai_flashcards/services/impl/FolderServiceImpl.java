@@ -1,37 +1,72 @@
 package jomeerkatz.project.ai_flashcards.services.impl;
 
 import jakarta.transaction.Transactional;
+import jomeerkatz.project.ai_flashcards.cache.CacheInvalidationPublisher;
+import jomeerkatz.project.ai_flashcards.coalescing.DetachedCopies;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
 import jomeerkatz.project.ai_flashcards.domain.FolderCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.FolderSummary;
 import jomeerkatz.project.ai_flashcards.domain.dtos.FolderDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
 import jomeerkatz.project.ai_flashcards.exceptions.*;
 import jomeerkatz.project.ai_flashcards.exceptions.FolderAlreadyExistsException;
 import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
 import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.CardReviewRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderCardCount;
 import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.GenerationJobRepository;
+import jomeerkatz.project.ai_flashcards.repositories.ReviewRollupRepository;
 import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
 import jomeerkatz.project.ai_flashcards.services.FolderService;
 import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @AllArgsConstructor
 @Service
 public class FolderServiceImpl implements FolderService {
+    private static final int FIRST_CARDS_READ_CONCURRENCY = 4;
 
     private final FolderRepository folderRepository;
     private final UserService userService;
     private final CardRepository cardRepository;
+    private final GenerationJobRepository generationJobRepository;
+    private final CardReviewRepository cardReviewRepository;
+    private final ReviewRollupRepository reviewRollupRepository;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final StaleReadCache staleReadCache;
 
     @Override
     @Transactional
@@ -42,12 +77,14 @@ public class FolderServiceImpl implements FolderService {
                 .existsByUserIdAndName(savedUser.getId(), folderCreateUpdateRequest.getName());
 
         if (!folderExistsForUser) {
-            return folderRepository.save(Folder.builder()
+            Folder savedFolder = folderRepository.save(Folder.builder()
                     .name(folderCreateUpdateRequest.getName())
                     .user(savedUser)
                     .createdAt(LocalDateTime.now())
                     .updatedAt(LocalDateTime.now())
                     .build());
+            applicationEventPublisher.publishEvent(UserChangeEvent.ofFolder(ChangeType.FOLDER_CREATED, savedFolder));
+            return savedFolder;
         } else {
             throw new FolderAlreadyExistsException("folder with name " + folderCreateUpdateRequest.getName() + " already exists!");
         }
@@ -55,8 +92,10 @@ public class FolderServiceImpl implements FolderService {
 
     @Override
     public Page<Folder> getAllFolders(User user, Pageable pageable) {
-        User savedUser = userService.getUserOrThrow(user);
-        return folderRepository.findAllByUserId(savedUser.getId(), pageable);
+        return staleReadCache.read("folders", user.getKeycloakId(), List.of(pageable), () -> {
+            User savedUser = userService.getUserOrThrow(user);
+            return folderRepository.findAllByUserId(savedUser.getId(), pageable);
+        }, DetachedCopies::ofFolders);
     }
 
     @Override
@@ -77,6 +116,8 @@ public class FolderServiceImpl implements FolderService {
         } else {
             folderToBeUpdated.setName(folderCreateUpdateRequest.getName());
             folderRepository.save(folderToBeUpdated);
+            cacheInvalidationPublisher.folderChanged(folderToBeUpdated.getId());
+            applicationEventPublisher.publishEvent(UserChangeEvent.ofFolder(ChangeType.FOLDER_RENAMED, folderToBeUpdated));
         }
     }
 
@@ -96,8 +137,65 @@ public class FolderServiceImpl implements FolderService {
             // folder does not exist in combination of user and folder
             throw new FolderAccessDeniedException("User has no access or folder does not exist!");
         } else {
-            cardRepository.deleteAllByFolderId(folderToBeUpdated.getId());
+            cardRepository.deleteAllByUserIdAndFolderId(savedUser.getId(), folderToBeUpdated.getId());
+            generationJobRepository.deleteAllByUserIdAndFolderId(savedUser.getId(), folderToBeUpdated.getId());
+            cardReviewRepository.deleteAllByUserIdAndFolderId(savedUser.getId(), folderToBeUpdated.getId());
+            reviewRollupRepository.deleteAllByUserIdAndFolderId(savedUser.getId(), folderToBeUpdated.getId());
             folderRepository.deleteById(folderToBeUpdated.getId());
+            cacheInvalidationPublisher.folderChanged(folderToBeUpdated.getId());
+            applicationEventPublisher.publishEvent(UserChangeEvent.ofFolder(ChangeType.FOLDER_DELETED, folderToBeUpdated));
+        }
+    }
+
+    @Override
+    public List<FolderSummary> getFolderSummaries(User user, List<Long> folderIds, int cardsPerFolder) {
+        User savedUser = userService.getUserOrThrow(user);
+        Set<Long> requestedFolderIds = new LinkedHashSet<>(folderIds);
+
+        // one query checks the access to all folders, instead of a lookup and an access check per folder
+        Map<Long, Folder> folders = folderRepository.findAllByUserIdAndIdIn(savedUser.getId(), requestedFolderIds).stream()
+                .collect(Collectors.toMap(Folder::getId, Function.identity()));
+        if (folders.size() != requestedFolderIds.size()) {
+            throw new FolderAccessDeniedException("User has no access or folder does not exist!");
+        }
+
+        Map<Long, Long> cardCounts = cardRepository.countByUserIdGroupedByFolderId(savedUser.getId(), requestedFolderIds).stream()
+                .collect(Collectors.toMap(FolderCardCount::getFolderId, FolderCardCount::getCardCount));
+        Map<Long, List<Card>> firstCards = cardsPerFolder == 0
+                ? Map.of()
+                : getFirstCards(savedUser.getId(), requestedFolderIds, cardsPerFolder);
+
+        return requestedFolderIds.stream()
+                .map(folderId -> FolderSummary.builder()
+                        .folder(folders.get(folderId))
+                        .cardCount(cardCounts.getOrDefault(folderId, 0L))
+                        .firstCards(firstCards.getOrDefault(folderId, List.of()))
+                        .build())
+                .toList();
+    }
+
+    // the first cards of the folders are read at the same time, a few at once so one dashboard can't take the whole pool
+    private Map<Long, List<Card>> getFirstCards(Long userId, Collection<Long> folderIds, int cardsPerFolder) {
+        Pageable firstPage = PageRequest.of(0, cardsPerFolder, Sort.by("id"));
+        // the reads run on other threads, which have to be pointed to the shard of the user again and get the same deadline
+        Integer shardId = ShardContext.currentShardId();
+        Long deadline = RequestDeadline.current();
+        Map<Long, CompletableFuture<List<Card>>> reads = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(FIRST_CARDS_READ_CONCURRENCY, Thread.ofVirtual().factory())) {
+            for (Long folderId : folderIds) {
+                Supplier<List<Card>> read = () -> RequestDeadline.callWith(deadline,
+                        () -> cardRepository.findAllByUserIdAndFolderId(userId, folderId, firstPage).getContent());
+                reads.put(folderId, CompletableFuture.supplyAsync(
+                        shardId == null ? read : () -> ShardContext.callOn(shardId, read), executor));
+            }
+            Map<Long, List<Card>> firstCards = new HashMap<>();
+            reads.forEach((folderId, cards) -> firstCards.put(folderId, cards.join()));
+            return firstCards;
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
         }
     }
 }
@@ -0,0 +1,214 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import jomeerkatz.project.ai_flashcards.ai.FlashcardStreamParser;
+import jomeerkatz.project.ai_flashcards.ai.OpenAiCompatibleClient;
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderDoesNotExists;
+import jomeerkatz.project.ai_flashcards.exceptions.GenerationJobNotFoundException;
+import jomeerkatz.project.ai_flashcards.exceptions.ServiceOverloadedException;
+import jomeerkatz.project.ai_flashcards.exceptions.ShardUnavailableException;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.GenerationJobRepository;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+@Service
+@Slf4j
+public class GenerationJobServiceImpl implements GenerationJobService {
+    private final GenerationJobRepository generationJobRepository;
+    private final FolderRepository folderRepository;
+    private final UserService userService;
+    private final CardService cardService;
+    private final OpenAiCompatibleClient openAiCompatibleClient;
+    private final ObjectMapper objectMapper;
+    private final AiGenerationProperties properties;
+    private final TaskExecutor generationJobExecutor;
+    private final ObjectProvider<ShardDirectory> shardDirectory;
+
+    // subscribers of the jobs running on this node
+    private final Map<Long, List<Consumer<GenerationJob>>> listeners = new ConcurrentHashMap<>();
+
+    public GenerationJobServiceImpl(GenerationJobRepository generationJobRepository,
+                                    FolderRepository folderRepository,
+                                    UserService userService,
+                                    CardService cardService,
+                                    OpenAiCompatibleClient openAiCompatibleClient,
+                                    ObjectMapper objectMapper,
+                                    AiGenerationProperties properties,
+                                    @Qualifier("generationJobExecutor") TaskExecutor generationJobExecutor,
+                                    ObjectProvider<ShardDirectory> shardDirectory) {
+        this.generationJobRepository = generationJobRepository;
+        this.folderRepository = folderRepository;
+        this.userService = userService;
+        this.cardService = cardService;
+        this.openAiCompatibleClient = openAiCompatibleClient;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.generationJobExecutor = generationJobExecutor;
+        this.shardDirectory = shardDirectory;
+    }
+
+    // not transactional: the job row has to be committed before a worker can pick it up
+    @Override
+    public GenerationJob submitJob(User user, Long folderId, String prompt) {
+        User savedUser = userService.getUserOrThrow(user);
+
+        // get the actual folder, where the cards should get stored
+        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
+                () -> new FolderDoesNotExists("Folder does not exists!")
+        );
+
+        // check if the user has even access to the folder
+        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+
+        if (!userHasAccessToFolder) {
+            throw new FolderAccessDeniedException("User has not access to the folder!");
+        }
+
+        GenerationJob savedJob = generationJobRepository.save(GenerationJob.builder()
+                .user(savedUser)
+                .folder(savedFolder)
+                .prompt(prompt)
+                .status(GenerationJobStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+
+        // the worker thread has no web request, so it has to be told which shard the user lives on
+        Integer shardId = ShardContext.currentShardId();
+        try {
+            generationJobExecutor.execute(() -> {
+                if (shardId == null) {
+                    runJob(savedJob, user);
+                } else {
+                    ShardContext.callOn(shardId, () -> {
+                        runJob(savedJob, user);
+                        return null;
+                    });
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            fail(savedJob, "too many generation jobs are waiting");
+            throw new ServiceOverloadedException("too many generation jobs are waiting, please try again later", Duration.ofSeconds(30));
+        }
+        return savedJob;
+    }
+
+    @Override
+    public GenerationJob getJob(User user, Long jobId) {
+        User savedUser = userService.getUserOrThrow(user);
+        return generationJobRepository.findByIdAndUserId(jobId, savedUser.getId()).orElseThrow(
+                () -> new GenerationJobNotFoundException("Generation job does not exists!")
+        );
+    }
+
+    @Override
+    public GenerationJob subscribe(User user, Long jobId, Consumer<GenerationJob> listener) {
+        User savedUser = userService.getUserOrThrow(user);
+        // register before reading the state, so no update between the two can get lost
+        listeners.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(listener);
+        return generationJobRepository.findByIdAndUserId(jobId, savedUser.getId()).orElseThrow(() -> {
+            unsubscribe(jobId, listener);
+            return new GenerationJobNotFoundException("Generation job does not exists!");
+        });
+    }
+
+    @Override
+    public void unsubscribe(Long jobId, Consumer<GenerationJob> listener) {
+        listeners.computeIfPresent(jobId, (id, jobListeners) -> {
+            jobListeners.remove(listener);
+            return jobListeners.isEmpty() ? null : jobListeners;
+        });
+    }
+
+    private void runJob(GenerationJob job, User user) {
+        job.setStatus(GenerationJobStatus.RUNNING);
+        GenerationJob runningJob = update(job);
+        try {
+            checkNotMoving(user);
+            FlashcardStreamParser parser = new FlashcardStreamParser(objectMapper);
+            openAiCompatibleClient.streamFlashcards(job.getPrompt(), content -> {
+                for (CardCreateUpdateRequest card : parser.accept(content)) {
+                    if (runningJob.getCardsCreated() >= properties.getMaxCards()) {
+                        return;
+                    }
+                    checkNotMoving(user);
+                    // every card is stored as soon as it is complete, the client sees them before the model is done
+                    cardService.createCard(user, job.getFolder().getId(), card);
+                    runningJob.setCardsCreated(runningJob.getCardsCreated() + 1);
+                    update(runningJob);
+                }
+            });
+            if (runningJob.getCardsCreated() == 0) {
+                fail(runningJob, "the model did not return any flashcards");
+            } else {
+                runningJob.setStatus(GenerationJobStatus.SUCCEEDED);
+                runningJob.setFinishedAt(LocalDateTime.now());
+                update(runningJob);
+            }
+        } catch (RuntimeException ex) {
+            log.error("generation job {} failed", job.getId(), ex);
+            fail(runningJob, ex.getMessage());
+        } finally {
+            listeners.remove(job.getId());
+        }
+    }
+
+    // the rows of a MOVING user are being copied to another shard, a card stored on the old one now would get lost
+    private void checkNotMoving(User user) {
+        ShardDirectory directory = shardDirectory.getIfAvailable();
+        if (directory != null && directory.isMoving(user.getKeycloakId())) {
+            throw new ShardUnavailableException("the user is being moved to another database, please start a new job");
+        }
+    }
+
+    private void fail(GenerationJob job, String errorMessage) {
+        job.setStatus(GenerationJobStatus.FAILED);
+        job.setErrorMessage(errorMessage);
+        job.setFinishedAt(LocalDateTime.now());
+        try {
+            update(job);
+        } catch (RuntimeException ex) {
+            // e.g. the folder was deleted while the job was running, which deletes the job as well
+            log.warn("could not store the failure of generation job {}", job.getId(), ex);
+        }
+    }
+
+    private GenerationJob update(GenerationJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        GenerationJob savedJob = generationJobRepository.save(job);
+        for (Consumer<GenerationJob> listener : listeners.getOrDefault(job.getId(), List.of())) {
+            try {
+                listener.accept(savedJob);
+            } catch (RuntimeException ex) {
+                // a client which went away must not break the job
+                unsubscribe(job.getId(), listener);
+            }
+        }
+        return savedJob;
+    }
+}
@@ -0,0 +1,264 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import jomeerkatz.project.ai_flashcards.config.LearningSessionProperties;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderDoesNotExists;
+import jomeerkatz.project.ai_flashcards.exceptions.LearningSessionNotFoundException;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.services.LearningSessionService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sessions.LearningSession;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learning sessions live in memory of the node which started them. Authorization and the folder lookup happen once
+ * on start, pulling cards afterwards only checks the owner of the session and mostly serves prefetched cards.
+ */
+@Service
+@Slf4j
+public class LearningSessionServiceImpl implements LearningSessionService {
+    private final CardRepository cardRepository;
+    private final FolderRepository folderRepository;
+    private final UserService userService;
+    private final LearningSessionProperties properties;
+
+    private final Map<String, LearningSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Deque<LearningSession>> sessionsByUser = new ConcurrentHashMap<>();
+    private final AtomicLong prefetchedBytes = new AtomicLong();
+    private final ExecutorService prefetcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofVirtual().name("learning-session-sweeper").factory());
+
+    public LearningSessionServiceImpl(CardRepository cardRepository, FolderRepository folderRepository,
+                                      UserService userService, LearningSessionProperties properties) {
+        this.cardRepository = cardRepository;
+        this.folderRepository = folderRepository;
+        this.userService = userService;
+        this.properties = properties;
+        long interval = Math.max(1_000, properties.getIdleTimeout().toMillis() / 4);
+        sweeper.scheduleAtFixedRate(this::removeIdleSessions, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public LearningSession startSession(User user, Long folderId, CardStatus status, boolean shuffle, Long seed) {
+        User savedUser = userService.getUserOrThrow(user);
+
+        Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
+                () -> new FolderDoesNotExists("Folder does not exists!")
+        );
+
+        boolean userHasAccessToFolder = folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName());
+
+        if (!userHasAccessToFolder) {
+            throw new FolderAccessDeniedException("User has not access to the folder!");
+        }
+
+        LearningSession session = new LearningSession(UUID.randomUUID().toString(), savedUser.getKeycloakId(), savedUser.getId(),
+                savedFolder.getId(), status, ShardContext.currentShardId(), properties.getBufferSize(),
+                shuffle ? (seed != null ? seed : ThreadLocalRandom.current().nextLong()) : null);
+        if (session.isShuffled()) {
+            // one read of the ids, no order by random() sorting the folder on every page. 8 bytes per card
+            prefetchedBytes.addAndGet(session.shuffle(cardRepository.findAllIdsByUserIdAndFolderIdAndStatus(
+                    session.getUserId(), session.getFolderId(), status)));
+        }
+        // the first chunk right away, so the first pull never waits for the background
+        queueNextIds(session);
+        register(session);
+        prefetch(session);
+        return session;
+    }
+
+    @Override
+    public List<Card> nextCards(User user, String sessionId, int count) {
+        LearningSession session = getSessionOrThrow(user, sessionId);
+        session.touch();
+
+        List<Long> ids = session.poll(count);
+        if (ids.size() < count && !session.isExhausted()) {
+            // pulled faster than the background refilled
+            queueNextIds(session);
+            ids.addAll(session.poll(count - ids.size()));
+        }
+
+        Map<Long, Card> cards = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long cardId : ids) {
+            Card card = session.takePrefetched(cardId);
+            if (card != null) {
+                prefetchedBytes.addAndGet(-LearningSession.estimateBytes(card));
+                cards.put(cardId, card);
+            } else {
+                missingIds.add(cardId);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            cardRepository.findAllByUserIdAndIdIn(session.getUserId(), missingIds)
+                    .forEach(card -> cards.put(card.getId(), card));
+        }
+        prefetch(session);
+
+        // cards deleted since they were queued are skipped
+        return ids.stream()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    public void endSession(User user, String sessionId) {
+        remove(getSessionOrThrow(user, sessionId));
+    }
+
+    // prefetched copies of edited, reviewed or deleted cards are dropped, those are read again when pulled
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onChange(UserChangeEvent event) {
+        Deque<LearningSession> userSessions = sessionsByUser.get(event.getKeycloakId());
+        if (userSessions == null) {
+            return;
+        }
+        ChangeEventDto change = event.getChange();
+        for (LearningSession session : userSessions) {
+            switch (change.getType()) {
+                case CARD_UPDATED, CARD_STATUS_CHANGED, CARD_DELETED -> prefetchedBytes.addAndGet(-session.dropPrefetched(change.getCardId()));
+                case FOLDER_DELETED -> {
+                    if (session.getFolderId().equals(change.getFolderId())) {
+                        remove(session);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sweeper.shutdownNow();
+        prefetcher.shutdownNow();
+        sessions.values().forEach(this::remove);
+    }
+
+    private LearningSession getSessionOrThrow(User user, String sessionId) {
+        LearningSession session = sessions.get(sessionId);
+        // someone else's session looks the same as an expired one
+        if (session == null || !session.getKeycloakId().equals(user.getKeycloakId())) {
+            throw new LearningSessionNotFoundException("Learning session does not exist or has expired!");
+        }
+        return session;
+    }
+
+    private void register(LearningSession session) {
+        Deque<LearningSession> userSessions = sessionsByUser.computeIfAbsent(session.getKeycloakId(), id -> new ConcurrentLinkedDeque<>());
+        userSessions.add(session);
+        sessions.put(session.getId(), session);
+        while (userSessions.size() > properties.getMaxSessionsPerUser()) {
+            LearningSession oldest = userSessions.peek();
+            if (oldest != null) {
+                remove(oldest);
+            }
+        }
+        while (sessions.size() > properties.getMaxSessions()) {
+            sessions.values().stream()
+                    .max(Comparator.comparingLong(LearningSession::idleNanos))
+                    .ifPresent(this::remove);
+        }
+    }
+
+    // safe to call twice, a closed session gives back nothing the second time
+    private void remove(LearningSession session) {
+        sessions.remove(session.getId());
+        sessionsByUser.computeIfPresent(session.getKeycloakId(), (id, userSessions) -> {
+            userSessions.remove(session);
+            return userSessions.isEmpty() ? null : userSessions;
+        });
+        prefetchedBytes.addAndGet(-session.close());
+    }
+
+    private void removeIdleSessions() {
+        long idleTimeout = properties.getIdleTimeout().toNanos();
+        sessions.values().stream()
+                .filter(session -> session.idleNanos() > idleTimeout)
+                .forEach(this::remove);
+    }
+
+    // locks the session, the background and a pull that ran dry must not read the same chunk twice
+    private void queueNextIds(LearningSession session) {
+        synchronized (session) {
+            int freeSlots = session.freeSlots();
+            if (freeSlots == 0) {
+                return;
+            }
+            List<Long> ids = session.isShuffled()
+                    ? session.nextShuffledIds(freeSlots)
+                    : cardRepository.findIdsByUserIdAndFolderIdAndStatus(session.getUserId(), session.getFolderId(),
+                    session.getStatus(), session.lastQueuedId(), Limit.of(freeSlots));
+            session.queue(ids, freeSlots);
+        }
+    }
+
+    // at most one prefetch per session at a time, a pull while it runs simply doesn't start another one
+    private void prefetch(LearningSession session) {
+        if (!session.startPrefetch()) {
+            return;
+        }
+        Runnable work = () -> {
+            try {
+                if (session.needsIds()) {
+                    queueNextIds(session);
+                }
+                loadTexts(session);
+            } catch (RuntimeException ex) {
+                log.warn("prefetch of learning session {} failed, its cards are loaded when pulled", session.getId(), ex);
+            } finally {
+                session.endPrefetch();
+            }
+        };
+        Integer shardId = session.getShardId();
+        prefetcher.execute(shardId == null ? work : () -> ShardContext.callOn(shardId, () -> {
+            work.run();
+            return null;
+        }));
+    }
+
+    private void loadTexts(LearningSession session) {
+        // over the budget the cards are simply read when pulled, one batch per session can go above it
+        if (prefetchedBytes.get() >= properties.getMemoryBudget().toBytes()) {
+            return;
+        }
+        List<Long> ids = session.upcomingWithoutTexts(properties.getPrefetchSize());
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Card> cards = cardRepository.findAllByUserIdAndIdIn(session.getUserId(), ids);
+        prefetchedBytes.addAndGet(session.addPrefetched(cards));
+    }
+}
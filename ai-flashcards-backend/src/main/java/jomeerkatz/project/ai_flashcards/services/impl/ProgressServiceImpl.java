@@ -0,0 +1,54 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import jomeerkatz.project.ai_flashcards.config.ReviewLogProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderDoesNotExists;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.ProgressBucket;
+import jomeerkatz.project.ai_flashcards.repositories.ReviewRollupRepository;
+import jomeerkatz.project.ai_flashcards.services.ProgressService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@AllArgsConstructor
+@Service
+public class ProgressServiceImpl implements ProgressService {
+    // range when the client does not send one, e.g. the last 30 days
+    private static final int DEFAULT_BUCKETS = 30;
+
+    private final ReviewRollupRepository reviewRollupRepository;
+    private final FolderRepository folderRepository;
+    private final UserService userService;
+    private final ReviewLogProperties properties;
+
+    @Override
+    public List<ProgressBucket> getProgress(User user, Long folderId, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        User savedUser = userService.getUserOrThrow(user);
+
+        // without a folder the buckets of all folders of the user are summed up
+        if (folderId != null) {
+            Folder savedFolder = folderRepository.findById(folderId).orElseThrow(
+                    () -> new FolderDoesNotExists("Folder does not exists!")
+            );
+            if (!folderRepository.existsByUserIdAndName(savedUser.getId(), savedFolder.getName())) {
+                throw new FolderAccessDeniedException("User has not access to the folder!");
+            }
+        }
+
+        // the range is cut to whole buckets, up to and including the current one
+        LocalDateTime end = granularity.plus(granularity.truncate(to == null ? LocalDateTime.now() : to), 1);
+        LocalDateTime earliest = granularity.plus(end, -properties.getMaxBuckets());
+        LocalDateTime start = from == null ? granularity.plus(end, -DEFAULT_BUCKETS) : granularity.truncate(from);
+        if (start.isBefore(earliest)) {
+            start = earliest;
+        }
+        return reviewRollupRepository.sumByBucket(savedUser.getId(), folderId, granularity, start, end);
+    }
+}
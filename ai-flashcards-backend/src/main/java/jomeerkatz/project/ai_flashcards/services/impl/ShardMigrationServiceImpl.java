@@ -0,0 +1,216 @@
+package jomeerkatz.project.ai_flashcards.services.impl;
+
+import jakarta.annotation.PreDestroy;
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.config.ShardingProperties;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.exceptions.ShardMigrationException;
+import jomeerkatz.project.ai_flashcards.exceptions.UserNotFoundException;
+import jomeerkatz.project.ai_flashcards.services.ShardMigrationService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAssignment;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.sharding.ShardState;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadClass;
+import jomeerkatz.project.ai_flashcards.workload.WorkloadContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Moves all rows of one user to another shard while the application keeps running:
+ * the user is marked as MOVING (writes get a 503, reads keep working on the old shard, the generation jobs, the review
+ * log and the outbox relay leave the user alone), the running generation jobs of the user are waited for, the rows are
+ * copied with their ids from one snapshot of the old shard, the directory is switched to the new shard and the old rows
+ * are deleted once no node reads them anymore.
+ * The copy runs in the background, the directory shows the user as ACTIVE on the target shard once it is done.
+ */
+@Service
+@ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardMigrationServiceImpl implements ShardMigrationService {
+    // every table holding rows of a single user, parents first
+    static final List<String> USER_SCOPED_TABLES = List.of("users", "folders", "cards", "generation_jobs", "outbox_events",
+            "card_reviews", "review_rollups");
+
+    private final ShardingProperties properties;
+    private final AiGenerationProperties aiGenerationProperties;
+    private final ShardDataSources shardDataSources;
+    private final ShardDirectory shardDirectory;
+
+    private final ScheduledExecutorService mover = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("shard-mover").factory());
+
+    // users whose old rows are not deleted yet, moving them again would copy onto those rows
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void moveUser(String keycloakId, int targetShardId) {
+        ShardAssignment assignment = shardDirectory.resolve(keycloakId);
+        int sourceShardId = assignment.getShardId();
+        if (assignment.getState() == ShardState.MOVING) {
+            throw new ShardMigrationException("user is already being moved");
+        }
+        if (pendingDeletes.contains(keycloakId)) {
+            throw new ShardMigrationException("the rows of the last move of the user are not deleted yet");
+        }
+        if (sourceShardId == targetShardId) {
+            return;
+        }
+        // fails before anything is marked when the target shard is not configured
+        shardDataSources.get(targetShardId);
+        JdbcTemplate sourceJdbc = new JdbcTemplate(shardDataSources.get(sourceShardId));
+
+        Long userId = sourceJdbc.query("select id from users where keycloak_id = ?",
+                rs -> rs.next() ? rs.getLong("id") : null, keycloakId);
+        if (userId == null) {
+            throw new UserNotFoundException("User not found with keycloak id!");
+        }
+
+        shardDirectory.update(keycloakId, sourceShardId, ShardState.MOVING);
+        // other nodes may still have the ACTIVE assignment cached, the copy starts once they picked up the MOVING state
+        mover.schedule(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE,
+                        () -> copyUser(keycloakId, userId, sourceShardId, targetShardId)),
+                properties.getAssignmentCacheTtl().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        mover.shutdownNow();
+    }
+
+    private void copyUser(String keycloakId, Long userId, int sourceShardId, int targetShardId) {
+        DataSource source = shardDataSources.get(sourceShardId);
+        DataSource target = shardDataSources.get(targetShardId);
+        JdbcTemplate sourceJdbc = new JdbcTemplate(source);
+        JdbcTemplate targetJdbc = new JdbcTemplate(target);
+        // one snapshot of the old shard for all tables, the rows reference each other
+        TransactionTemplate sourceTransaction = new TransactionTemplate(new DataSourceTransactionManager(source));
+        sourceTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        TransactionTemplate targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(target));
+        try {
+            awaitGenerationJobs(sourceJdbc, userId);
+            sourceTransaction.executeWithoutResult(sourceStatus -> {
+                targetTransaction.executeWithoutResult(targetStatus ->
+                        USER_SCOPED_TABLES.forEach(table -> copyRows(sourceJdbc, targetJdbc, table, userId)));
+                // no relay sends the events of a MOVING user, once they are only on the new shard they go out from there once
+                sourceJdbc.update("delete from outbox_events where user_id = ?", userId);
+            });
+        } catch (RuntimeException ex) {
+            shardDirectory.update(keycloakId, sourceShardId, ShardState.ACTIVE);
+            log.error("could not copy user {} to shard {}, the user stays on shard {}", keycloakId, targetShardId, sourceShardId, ex);
+            // the copy may have committed before the old shard failed, a later move must not run into those rows
+            deleteRows(target, userId);
+            return;
+        }
+
+        shardDirectory.update(keycloakId, targetShardId, ShardState.ACTIVE);
+        log.info("moved user {} from shard {} to shard {}", keycloakId, sourceShardId, targetShardId);
+
+        // other nodes read from the old shard as long as they have the MOVING assignment cached
+        pendingDeletes.add(keycloakId);
+        mover.schedule(() -> WorkloadContext.runAs(WorkloadClass.MAINTENANCE, () -> {
+                    try {
+                        deleteRows(source, userId);
+                    } finally {
+                        pendingDeletes.remove(keycloakId);
+                    }
+                }),
+                properties.getAssignmentCacheTtl().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // jobs of a MOVING user fail before their next card, the copy starts once none of them writes anymore
+    private void awaitGenerationJobs(JdbcTemplate sourceJdbc, Long userId) {
+        long deadline = System.nanoTime() + properties.getDrainTimeout().toNanos();
+        while (runningGenerationJobs(sourceJdbc, userId) > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new ShardMigrationException("the generation jobs of the user did not finish in time");
+            }
+            try {
+                Thread.sleep(properties.getAssignmentCacheTtl().toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ShardMigrationException("interrupted while waiting for the generation jobs of the user", ex);
+            }
+        }
+    }
+
+    // jobs not updated for the stale job timeout belong to a node which died, they never write again
+    private long runningGenerationJobs(JdbcTemplate sourceJdbc, Long userId) {
+        return sourceJdbc.queryForObject(
+                "select count(*) from generation_jobs where user_id = ? and status in (?, ?) and updated_at >= ?",
+                Long.class, userId, GenerationJobStatus.QUEUED.name(), GenerationJobStatus.RUNNING.name(),
+                Timestamp.valueOf(LocalDateTime.now().minus(aiGenerationProperties.getStaleJobTimeout())));
+    }
+
+    private void deleteRows(DataSource database, Long userId) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        List<String> childrenFirst = new ArrayList<>(USER_SCOPED_TABLES);
+        Collections.reverse(childrenFirst);
+        try {
+            new TransactionTemplate(new DataSourceTransactionManager(database)).executeWithoutResult(status ->
+                    childrenFirst.forEach(table -> jdbcTemplate.update(
+                            "delete from " + table + " where " + userColumn(table) + " = ?", userId)));
+        } catch (RuntimeException ex) {
+            log.error("could not delete the rows of user {}, they have to be deleted by hand", userId, ex);
+        }
+    }
+
+    // copies column by column as they are, so the tool keeps working when columns get added to the entities,
+    // in batches along the primary key so a large user never sits in memory as a whole
+    private void copyRows(JdbcTemplate source, JdbcTemplate target, String table, Long userId) {
+        List<String> keyColumns = keyColumns(table);
+        String keys = String.join(", ", keyColumns);
+        String select = "select * from " + table + " where " + userColumn(table) + " = ? ";
+        String order = "order by " + keys + " limit ?";
+        String after = "and (" + keys + ") > (" + keyColumns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") ";
+
+        List<Map<String, Object>> rows = source.queryForList(select + order, userId, properties.getCopyBatchSize());
+        while (!rows.isEmpty()) {
+            List<String> columns = new ArrayList<>(rows.getFirst().keySet());
+            String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                    + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            target.batchUpdate(sql, rows.stream()
+                    .map(row -> columns.stream().map(row::get).toArray())
+                    .toList());
+            if (rows.size() < properties.getCopyBatchSize()) {
+                return;
+            }
+            Map<String, Object> last = rows.getLast();
+            List<Object> args = new ArrayList<>();
+            args.add(userId);
+            keyColumns.forEach(column -> args.add(last.get(column)));
+            args.add(properties.getCopyBatchSize());
+            rows = source.queryForList(select + after + order, args.toArray());
+        }
+    }
+
+    private static String userColumn(String table) {
+        return table.equals("users") ? "id" : "user_id";
+    }
+
+    // the primary key without the user, the rollups have no id of their own
+    private static List<String> keyColumns(String table) {
+        return table.equals("review_rollups") ? List.of("folder_id", "granularity", "bucket_start") : List.of("id");
+    }
+}
@@ -39,6 +39,12 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    // called by the authentication for every new subject, so users exist before their first request is handled
+    @Override
+    public boolean provisionUser(String keycloakId) {
+        return userRepository.insertIfAbsent(keycloakId, LocalDateTime.now());
+    }
+
     @Override
     public User getUserOrThrow(User user) {
         return userRepository.findByKeycloakId(user.getKeycloakId())
@@ -0,0 +1,221 @@
+package jomeerkatz.project.ai_flashcards.sessions;
+
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The upcoming cards of one learning session. Their ids sit in a ring buffer which is refilled chunk by chunk,
+ * the first few of them have their question and answer loaded already. The client pulls from it on request threads
+ * while the prefetch fills it in the background, so every method locks the session.
+ */
+public class LearningSession {
+    // rough heap size of a prefetched card besides its texts, strings take two bytes per character at most
+    private static final long CARD_OVERHEAD_BYTES = 256;
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String keycloakId;
+    @Getter
+    private final Long userId;
+    @Getter
+    private final Long folderId;
+    @Getter
+    private final CardStatus status;
+    // the prefetch runs on other threads, which have to be pointed to the shard of the user again
+    @Getter
+    private final Integer shardId;
+    @Getter
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    // set for shuffled sessions only
+    @Getter
+    private final Long seed;
+
+    // all card ids of a shuffled session in their shuffled order, the ring is filled from it instead of the database
+    private long[] permutation;
+    private int permutationPosition;
+
+    private final long[] ring;
+    private int head;
+    private int size;
+    // the ids are read in ascending order, the next chunk starts after this one
+    private long lastQueuedId;
+    private boolean exhausted;
+
+    private final Map<Long, Card> prefetched = new HashMap<>();
+    private long prefetchedBytes;
+    private boolean closed;
+
+    private final AtomicBoolean prefetching = new AtomicBoolean();
+    private volatile long lastAccessNanos = System.nanoTime();
+
+    public LearningSession(String id, String keycloakId, Long userId, Long folderId, CardStatus status, Integer shardId,
+                           int bufferSize, Long seed) {
+        this.id = id;
+        this.seed = seed;
+        this.keycloakId = keycloakId;
+        this.userId = userId;
+        this.folderId = folderId;
+        this.status = status;
+        this.shardId = shardId;
+        this.ring = new long[bufferSize];
+    }
+
+    public boolean isShuffled() {
+        return seed != null;
+    }
+
+    // fisher-yates with the seed, the ids come sorted so the same seed and cards give the same order. returns the bytes taken
+    public synchronized long shuffle(List<Long> sortedIds) {
+        permutation = sortedIds.stream().mapToLong(Long::longValue).toArray();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int index = permutation.length - 1; index > 0; index--) {
+            int other = random.nextInt(index + 1);
+            long cardId = permutation[index];
+            permutation[index] = permutation[other];
+            permutation[other] = cardId;
+        }
+        return 8L * permutation.length;
+    }
+
+    // the next chunk of a shuffled session, without any query
+    public synchronized List<Long> nextShuffledIds(int count) {
+        List<Long> ids = new ArrayList<>(Math.min(count, permutation.length - permutationPosition));
+        while (ids.size() < count && permutationPosition < permutation.length) {
+            ids.add(permutation[permutationPosition++]);
+        }
+        return ids;
+    }
+
+    public synchronized int freeSlots() {
+        return closed || exhausted ? 0 : ring.length - size;
+    }
+
+    public synchronized long lastQueuedId() {
+        return lastQueuedId;
+    }
+
+    // half empty, time to read the next chunk
+    public synchronized boolean needsIds() {
+        return !closed && !exhausted && size <= ring.length / 2;
+    }
+
+    public synchronized boolean isExhausted() {
+        return exhausted;
+    }
+
+    // a chunk shorter than requested was the last one of the folder
+    public synchronized void queue(List<Long> ids, int requested) {
+        for (Long cardId : ids) {
+            ring[(head + size) % ring.length] = cardId;
+            size++;
+            lastQueuedId = cardId;
+        }
+        if (ids.size() < requested) {
+            exhausted = true;
+        }
+    }
+
+    public synchronized List<Long> poll(int count) {
+        List<Long> ids = new ArrayList<>(Math.min(count, size));
+        while (ids.size() < count && size > 0) {
+            ids.add(ring[head]);
+            head = (head + 1) % ring.length;
+            size--;
+        }
+        return ids;
+    }
+
+    // the next ids whose texts are not loaded yet
+    public synchronized List<Long> upcomingWithoutTexts(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int offset = 0; offset < Math.min(count, size); offset++) {
+            long cardId = ring[(head + offset) % ring.length];
+            if (!prefetched.containsKey(cardId)) {
+                ids.add(cardId);
+            }
+        }
+        return ids;
+    }
+
+    // returns the bytes added, cards the client pulled in the meantime are not kept
+    public synchronized long addPrefetched(List<Card> cards) {
+        if (closed) {
+            return 0;
+        }
+        long added = 0;
+        for (Card card : cards) {
+            if (isQueued(card.getId()) && !prefetched.containsKey(card.getId())) {
+                prefetched.put(card.getId(), card);
+                added += estimateBytes(card);
+            }
+        }
+        prefetchedBytes += added;
+        return added;
+    }
+
+    public synchronized Card takePrefetched(Long cardId) {
+        Card card = prefetched.remove(cardId);
+        if (card != null) {
+            prefetchedBytes -= estimateBytes(card);
+        }
+        return card;
+    }
+
+    public synchronized long dropPrefetched(Long cardId) {
+        Card card = takePrefetched(cardId);
+        return card == null ? 0 : estimateBytes(card);
+    }
+
+    // returns the bytes given back
+    public synchronized long close() {
+        closed = true;
+        prefetched.clear();
+        long released = prefetchedBytes + (permutation == null ? 0 : 8L * permutation.length);
+        permutation = null;
+        prefetchedBytes = 0;
+        return released;
+    }
+
+    public boolean startPrefetch() {
+        return prefetching.compareAndSet(false, true);
+    }
+
+    public void endPrefetch() {
+        prefetching.set(false);
+    }
+
+    public void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+
+    public long idleNanos() {
+        return System.nanoTime() - lastAccessNanos;
+    }
+
+    public static long estimateBytes(Card card) {
+        return CARD_OVERHEAD_BYTES + 2L * (length(card.getQuestion()) + length(card.getAnswer()));
+    }
+
+    private boolean isQueued(long cardId) {
+        for (int offset = 0; offset < size; offset++) {
+            if (ring[(head + offset) % ring.length] == cardId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
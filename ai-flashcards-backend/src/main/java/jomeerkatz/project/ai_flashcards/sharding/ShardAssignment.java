@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ShardAssignment {
+    private int shardId;
+    private ShardState state;
+    // local timestamp when this node loaded the assignment, used for the cache ttl
+    private Instant loadedAt;
+}
@@ -0,0 +1,19 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Replacement for {@code @GeneratedValue + @SequenceGenerator} on sharded entities, see {@link ShardIds}.
+ */
+@IdGeneratorType(ShardAwareSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target(FIELD)
+public @interface ShardAwareSequence {
+    String sequenceName();
+}
@@ -0,0 +1,33 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.util.Properties;
+
+/**
+ * Draws the next value of the entity's sequence on the shard the session is connected to and encodes the shard id into it.
+ * Without a shard in the {@link ShardContext} (sharding disabled) the plain sequence value is used, like before.
+ */
+public class ShardAwareSequenceGenerator extends SequenceStyleGenerator {
+    private final String sequenceName;
+
+    public ShardAwareSequenceGenerator(ShardAwareSequence config) {
+        this.sequenceName = config.sequenceName();
+    }
+
+    @Override
+    public void configure(GeneratorCreationContext creationContext, Properties parameters) {
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, "1");
+        super.configure(creationContext, parameters);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        long sequenceValue = ((Number) super.generate(session, object)).longValue();
+        Integer shardId = ShardContext.currentShardId();
+        return shardId == null ? sequenceValue : ShardIds.compose(sequenceValue, shardId);
+    }
+}
@@ -0,0 +1,40 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard of the user the current thread is working for.
+ * Set by the {@link ShardRoutingInterceptor} for web requests, read by the routing data source and the id generator.
+ */
+public final class ShardContext {
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static Integer currentShardId() {
+        return CURRENT_SHARD.get();
+    }
+
+    public static void set(int shardId) {
+        CURRENT_SHARD.set(shardId);
+    }
+
+    public static void clear() {
+        CURRENT_SHARD.remove();
+    }
+
+    // for background work which is not bound to a web request
+    public static <T> T callOn(int shardId, Supplier<T> work) {
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shardId);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+}
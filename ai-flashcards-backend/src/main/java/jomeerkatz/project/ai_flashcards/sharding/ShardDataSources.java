@@ -0,0 +1,68 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jomeerkatz.project.ai_flashcards.config.ShardingProperties;
+import jomeerkatz.project.ai_flashcards.exceptions.ShardMigrationException;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One connection pool per shard, keyed by shard id.
+ */
+public class ShardDataSources implements AutoCloseable {
+    private final Map<Integer, HikariDataSource> pools = new LinkedHashMap<>();
+
+    public ShardDataSources(ShardingProperties properties) {
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            if (shard.getId() < 0 || shard.getId() >= ShardIds.MAX_SHARDS) {
+                throw new IllegalStateException("shard id " + shard.getId() + " is out of range");
+            }
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("shard-" + shard.getId());
+            config.setJdbcUrl(shard.getUrl());
+            config.setUsername(shard.getUsername());
+            config.setPassword(shard.getPassword());
+            config.setMaximumPoolSize(shard.getMaximumPoolSize());
+            if (pools.put(shard.getId(), new HikariDataSource(config)) != null) {
+                throw new IllegalStateException("shard id " + shard.getId() + " is configured twice");
+            }
+        }
+        if (!pools.containsKey(properties.getDirectoryShard())) {
+            throw new IllegalStateException("directory shard " + properties.getDirectoryShard() + " is not configured");
+        }
+    }
+
+    // every physical database: all shards when sharding is enabled, otherwise just the one data source
+    public static Collection<DataSource> allDatabases(DataSource dataSource, ObjectProvider<ShardDataSources> shardDataSources) {
+        ShardDataSources shards = shardDataSources.getIfAvailable();
+        return shards == null ? List.of(dataSource) : shards.asMap().values();
+    }
+
+    public DataSource get(int shardId) {
+        DataSource dataSource = pools.get(shardId);
+        if (dataSource == null) {
+            throw new ShardMigrationException("shard " + shardId + " is not configured");
+        }
+        return dataSource;
+    }
+
+    public Map<Integer, DataSource> asMap() {
+        return Collections.<Integer, DataSource>unmodifiableMap(pools);
+    }
+
+    public int size() {
+        return pools.size();
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
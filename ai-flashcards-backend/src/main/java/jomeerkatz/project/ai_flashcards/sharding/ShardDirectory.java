@@ -0,0 +1,102 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import jakarta.annotation.PostConstruct;
+import jomeerkatz.project.ai_flashcards.config.ShardingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The shard map: which shard holds the data of which user (keyed by keycloak id, the only thing we know before
+ * touching the database). Lives in the directory shard and is cached per node for a short time.
+ */
+@Component
+@ConditionalOnProperty(prefix = "flashcards.sharding", name = "enabled", havingValue = "true")
+@Slf4j
+public class ShardDirectory {
+    private final ShardingProperties properties;
+    private final ShardDataSources shardDataSources;
+    private final JdbcTemplate directory;
+    private final Map<String, ShardAssignment> cache = new ConcurrentHashMap<>();
+
+    public ShardDirectory(ShardingProperties properties, ShardDataSources shardDataSources) {
+        this.properties = properties;
+        this.shardDataSources = shardDataSources;
+        this.directory = new JdbcTemplate(shardDataSources.get(properties.getDirectoryShard()));
+    }
+
+    @PostConstruct
+    void createDirectoryTable() {
+        directory.execute("""
+                create table if not exists user_shard_directory (
+                    keycloak_id varchar(255) primary key,
+                    shard_id integer not null,
+                    state varchar(16) not null,
+                    updated_at timestamp not null
+                )""");
+    }
+
+    public ShardAssignment resolve(String keycloakId) {
+        ShardAssignment cached = cache.get(keycloakId);
+        if (cached != null && cached.getLoadedAt().plus(properties.getAssignmentCacheTtl()).isAfter(Instant.now())) {
+            return cached;
+        }
+        ShardAssignment assignment = load(keycloakId);
+        if (assignment == null) {
+            assignment = assignNewUser(keycloakId);
+        }
+        cache.put(keycloakId, assignment);
+        return assignment;
+    }
+
+    // background work of a MOVING user would write to the shard its rows are copied from
+    public boolean isMoving(String keycloakId) {
+        return resolve(keycloakId).getState() == ShardState.MOVING;
+    }
+
+    public void update(String keycloakId, int shardId, ShardState state) {
+        directory.update("""
+                insert into user_shard_directory (keycloak_id, shard_id, state, updated_at)
+                values (?, ?, ?, now())
+                on conflict (keycloak_id) do update
+                set shard_id = excluded.shard_id, state = excluded.state, updated_at = excluded.updated_at""",
+                keycloakId, shardId, state.name());
+        cache.put(keycloakId, new ShardAssignment(shardId, state, Instant.now()));
+    }
+
+    private ShardAssignment load(String keycloakId) {
+        List<ShardAssignment> rows = directory.query(
+                "select shard_id, state from user_shard_directory where keycloak_id = ?",
+                (rs, rowNum) -> new ShardAssignment(rs.getInt("shard_id"), ShardState.valueOf(rs.getString("state")), Instant.now()),
+                keycloakId);
+        return rows.isEmpty() ? null : rows.getFirst();
+    }
+
+    private ShardAssignment assignNewUser(String keycloakId) {
+        // users from before sharding was enabled live in the directory shard, everybody else is spread by hash
+        Boolean legacyUser = directory.queryForObject(
+                "select exists(select 1 from users where keycloak_id = ?)", Boolean.class, keycloakId);
+        int shardId;
+        if (Boolean.TRUE.equals(legacyUser)) {
+            shardId = properties.getDirectoryShard();
+        } else {
+            List<Integer> shardIds = List.copyOf(shardDataSources.asMap().keySet());
+            shardId = shardIds.get(Math.floorMod(keycloakId.hashCode(), shardIds.size()));
+        }
+        // another node may have assigned the user in the meantime, the first assignment wins
+        directory.update("""
+                insert into user_shard_directory (keycloak_id, shard_id, state, updated_at)
+                values (?, ?, ?, now())
+                on conflict (keycloak_id) do nothing""",
+                keycloakId, shardId, ShardState.ACTIVE.name());
+        ShardAssignment assignment = load(keycloakId);
+        log.info("assigned user {} to shard {}", keycloakId, assignment.getShardId());
+        return assignment;
+    }
+}
@@ -0,0 +1,46 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+/**
+ * Primary keys of sharded rows carry the id of the shard they were created on in their lowest bits:
+ * id = COMPOSED_ID_BASE | (sequence value << SHARD_BITS) | shard id.
+ * Every shard runs its own sequences, so ids stay unique across shards and rows can be moved between shards as they are.
+ * The base keeps composed ids out of the range of the plain sequence ids from before sharding was enabled,
+ * so a legacy row moved to another shard can't collide with a row created there.
+ */
+public final class ShardIds {
+    public static final int SHARD_BITS = 10;
+    public static final int MAX_SHARDS = 1 << SHARD_BITS;
+
+    // below 2^53, so the ids stay exact numbers in the javascript client
+    public static final long COMPOSED_ID_BASE = 1L << 52;
+    static final long MAX_SEQUENCE_VALUE = (1L << (52 - SHARD_BITS)) - 1;
+
+    private ShardIds() {}
+
+    public static long compose(long sequenceValue, int shardId) {
+        if (shardId < 0 || shardId >= MAX_SHARDS) {
+            throw new IllegalArgumentException("shard id must be between 0 and " + (MAX_SHARDS - 1));
+        }
+        if (sequenceValue < 0 || sequenceValue > MAX_SEQUENCE_VALUE) {
+            throw new IllegalStateException("sequence value " + sequenceValue + " does not fit into a sharded id");
+        }
+        return COMPOSED_ID_BASE | (sequenceValue << SHARD_BITS) | shardId;
+    }
+
+    // the same as compose, for ids drawn inside an insert statement
+    public static String composeSql(String sequenceValue, int shardId) {
+        if (shardId < 0 || shardId >= MAX_SHARDS) {
+            throw new IllegalArgumentException("shard id must be between 0 and " + (MAX_SHARDS - 1));
+        }
+        return COMPOSED_ID_BASE + " | (" + sequenceValue + " << " + SHARD_BITS + ") | " + shardId;
+    }
+
+    public static boolean isComposed(long id) {
+        return id >= COMPOSED_ID_BASE;
+    }
+
+    // only meaningful for composed ids, legacy rows carry no shard
+    public static int shardOf(long id) {
+        return (int) (id & (MAX_SHARDS - 1));
+    }
+}
@@ -0,0 +1,14 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the shard in the {@link ShardContext}, or of the directory shard when none is set
+ * (startup, schema update, background work).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.currentShardId();
+    }
+}
@@ -0,0 +1,44 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.exceptions.ShardUnavailableException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Pins every authenticated request to the shard of its user before any repository is touched.
+ */
+@RequiredArgsConstructor
+public class ShardRoutingInterceptor implements AsyncHandlerInterceptor {
+    private final ShardDirectory shardDirectory;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken jwtAuthentication)) {
+            return true;
+        }
+        ShardAssignment assignment = shardDirectory.resolve(jwtAuthentication.getToken().getSubject());
+        if (assignment.getState() == ShardState.MOVING && !HttpMethod.GET.matches(request.getMethod())) {
+            throw new ShardUnavailableException("your data is being moved right now, please try again in a moment");
+        }
+        ShardContext.set(assignment.getShardId());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ShardContext.clear();
+    }
+
+    // streaming responses (SseEmitter) hand the request over to another thread, afterCompletion is not called here then
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardContext.clear();
+    }
+}
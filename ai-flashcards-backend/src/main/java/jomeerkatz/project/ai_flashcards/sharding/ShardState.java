@@ -0,0 +1,7 @@
+package jomeerkatz.project.ai_flashcards.sharding;
+
+public enum ShardState {
+    ACTIVE,
+    // user is being copied to another shard, writes are rejected until the move is finished
+    MOVING
+}
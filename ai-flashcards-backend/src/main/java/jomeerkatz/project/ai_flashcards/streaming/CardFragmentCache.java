@@ -0,0 +1,74 @@
+package jomeerkatz.project.ai_flashcards.streaming;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jomeerkatz.project.ai_flashcards.config.CardFragmentCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * The encoded json of single cards, so pages of cards which didn't change are put together from bytes instead of
+ * being serialized again. A fragment belongs to one version of a card, identified by its updated at.
+ */
+@Component
+public class CardFragmentCache {
+    // object headers, key and the fragment record next to the json itself
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final boolean enabled;
+    private final Cache<Long, Fragment> fragments;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CardFragmentCache(CardFragmentCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.fragments = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((Long id, Fragment fragment) -> fragment.json().length + ENTRY_OVERHEAD_BYTES)
+                .recordStats()
+                .build();
+        // size and evictions as cache.* metrics with cache=card_fragments
+        CaffeineCacheMetrics.monitor(meterRegistry, fragments, "card_fragments");
+        // counted here, a fragment of an older version of the card is a miss
+        this.hits = outcomeCounter(meterRegistry, "hit");
+        this.misses = outcomeCounter(meterRegistry, "miss");
+        Gauge.builder("flashcards.card.fragments.bytes", fragments,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("json bytes held by the card fragment cache")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // null when the card is not cached or was changed since
+    public byte[] get(Long id, LocalDateTime updatedAt) {
+        Fragment fragment = fragments.getIfPresent(id);
+        if (fragment == null || !fragment.updatedAt().equals(updatedAt)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return fragment.json();
+    }
+
+    // keyed by the id only, so an edited card replaces its old fragment instead of leaving it to the eviction
+    public void put(Long id, LocalDateTime updatedAt, byte[] json) {
+        fragments.put(id, new Fragment(updatedAt, json));
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("flashcards.card.fragments.lookups")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record Fragment(LocalDateTime updatedAt, byte[] json) {
+    }
+}
@@ -0,0 +1,302 @@
+package jomeerkatz.project.ai_flashcards.streaming;
+
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
+import jomeerkatz.project.ai_flashcards.flightrecorder.ServiceCallInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Writes cards from the jdbc result set straight into the response, without entities, dtos or a page in between.
+ * One generator writes all rows, the property names are encoded once and timestamps are formatted into one buffer.
+ * Pages are put together from the {@link CardFragmentCache} where possible, so only changed cards are serialized.
+ * The json is the same as the one of a serialized {@code Page<CardDto>}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CardJsonStreamer {
+    private static final String SELECT_CARDS = "select id, folder_id, question, answer, status, created_at, updated_at, version, due_at " +
+            "from cards where user_id = ? and folder_id = ?";
+    private static final String SELECT_VERSIONS = "select id, updated_at from cards where user_id = ? and folder_id = ?";
+    // rows postgres sends at a time while exporting, instead of the whole folder at once
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString FOLDER_ID = new SerializedString("folderId");
+    private static final SerializableString QUESTION = new SerializedString("question");
+    private static final SerializableString ANSWER = new SerializedString("answer");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString DUE_AT = new SerializedString("dueAt");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CardFragmentCache cardFragmentCache;
+
+    public void writePage(OutputStream out, Long userId, Long folderId, Pageable pageable) {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeName("content");
+            generator.writeStartArray();
+            int numberOfElements = cardFragmentCache.isEnabled()
+                    ? writeCachedCards(out, generator, userId, folderId, pageable)
+                    : writeCards(generator, userId, folderId, pageable);
+            generator.writeEndArray();
+            ServiceCallInterceptor.recordRows(numberOfElements);
+
+            long totalElements = totalElements(userId, folderId, pageable, numberOfElements);
+            int totalPages = (int) Math.ceil((double) totalElements / pageable.getPageSize());
+            writePageProperties(generator, pageable, numberOfElements, totalElements, totalPages);
+            generator.writeEndObject();
+        }
+    }
+
+    private int writeCards(JsonGenerator generator, Long userId, Long folderId, Pageable pageable) {
+        CardRowWriter rowWriter = new CardRowWriter(generator);
+        jdbcTemplate.query(SELECT_CARDS + " order by " + orderBy(pageable.getSort()) + " limit ? offset ?", rowWriter,
+                userId, folderId, pageable.getPageSize(), pageable.getOffset());
+        return rowWriter.rows;
+    }
+
+    // the page is read as ids first, only cards without a fragment of their current version are read and serialized
+    private int writeCachedCards(OutputStream out, JsonGenerator generator, Long userId, Long folderId, Pageable pageable) {
+        List<CardVersion> page = jdbcTemplate.query(SELECT_VERSIONS + " order by " + orderBy(pageable.getSort()) + " limit ? offset ?",
+                (rs, rowNum) -> new CardVersion(rs.getLong(1), rs.getObject(2, LocalDateTime.class)),
+                userId, folderId, pageable.getPageSize(), pageable.getOffset());
+        Map<Long, byte[]> fragments = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (CardVersion card : page) {
+            byte[] fragment = cardFragmentCache.get(card.id(), card.updatedAt());
+            if (fragment == null) {
+                missingIds.add(card.id());
+            } else {
+                fragments.put(card.id(), fragment);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            readFragments(userId, folderId, missingIds, fragments);
+        }
+
+        // the generator only wrote the opening bracket, the fragments and their commas go straight to the stream
+        generator.flush();
+        int written = 0;
+        try {
+            for (CardVersion card : page) {
+                byte[] fragment = fragments.get(card.id());
+                // deleted between the two queries
+                if (fragment == null) {
+                    continue;
+                }
+                if (written++ > 0) {
+                    out.write(',');
+                }
+                out.write(fragment);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return written;
+    }
+
+    private void readFragments(Long userId, Long folderId, List<Long> ids, Map<Long, byte[]> fragments) {
+        List<Object> arguments = new ArrayList<>(ids.size() + 2);
+        arguments.add(userId);
+        arguments.add(folderId);
+        arguments.addAll(ids);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        jdbcTemplate.query(SELECT_CARDS + " and id in (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")", rs -> {
+            buffer.reset();
+            try (JsonGenerator fragmentGenerator = objectMapper.createGenerator(buffer)) {
+                new CardRowWriter(fragmentGenerator).processRow(rs);
+            }
+            byte[] fragment = buffer.toByteArray();
+            cardFragmentCache.put(rs.getLong(1), rs.getObject(7, LocalDateTime.class), fragment);
+            fragments.put(rs.getLong(1), fragment);
+        }, arguments.toArray());
+    }
+
+    // like spring data, the count is only run when the page alone doesn't tell the total
+    private long totalElements(Long userId, Long folderId, Pageable pageable, int numberOfElements) {
+        boolean lastPage = numberOfElements < pageable.getPageSize() && (numberOfElements > 0 || pageable.getOffset() == 0);
+        if (lastPage) {
+            return pageable.getOffset() + numberOfElements;
+        }
+        long count = jdbcTemplate.queryForObject("select count(*) from cards where user_id = ? and folder_id = ?",
+                Long.class, userId, folderId);
+        // a total smaller than the page (cards deleted in between) is corrected the way PageImpl does it
+        return numberOfElements > 0 && pageable.getOffset() + pageable.getPageSize() > count
+                ? pageable.getOffset() + numberOfElements
+                : count;
+    }
+
+    // every card of the folder as a json array, read with a cursor so the memory doesn't grow with the folder
+    public void writeAll(OutputStream out, Long userId, Long folderId) {
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.writeStartArray();
+            CardRowWriter rowWriter = new CardRowWriter(generator);
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(SELECT_CARDS + " order by id");
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                statement.setLong(1, userId);
+                statement.setLong(2, folderId);
+                return statement;
+            }, rowWriter);
+            generator.writeEndArray();
+            ServiceCallInterceptor.recordRows(rowWriter.rows);
+        }
+    }
+
+    // the properties of a serialized PageImpl, in the order jackson writes them
+    private static void writePageProperties(JsonGenerator generator, Pageable pageable, int numberOfElements,
+                                            long totalElements, int totalPages) {
+        generator.writeBooleanProperty("empty", numberOfElements == 0);
+        generator.writeBooleanProperty("first", pageable.getPageNumber() == 0);
+        generator.writeBooleanProperty("last", pageable.getPageNumber() + 1 >= totalPages);
+        generator.writeNumberProperty("number", pageable.getPageNumber());
+        generator.writeNumberProperty("numberOfElements", numberOfElements);
+        generator.writeName("pageable");
+        generator.writeStartObject();
+        generator.writeNumberProperty("offset", pageable.getOffset());
+        generator.writeNumberProperty("pageNumber", pageable.getPageNumber());
+        generator.writeNumberProperty("pageSize", pageable.getPageSize());
+        generator.writeBooleanProperty("paged", true);
+        writeSort(generator, pageable.getSort());
+        generator.writeBooleanProperty("unpaged", false);
+        generator.writeEndObject();
+        generator.writeNumberProperty("size", pageable.getPageSize());
+        writeSort(generator, pageable.getSort());
+        generator.writeNumberProperty("totalElements", totalElements);
+        generator.writeNumberProperty("totalPages", totalPages);
+    }
+
+    private static void writeSort(JsonGenerator generator, Sort sort) {
+        generator.writeName("sort");
+        generator.writeStartObject();
+        generator.writeBooleanProperty("empty", sort.isEmpty());
+        generator.writeBooleanProperty("sorted", sort.isSorted());
+        generator.writeBooleanProperty("unsorted", sort.isUnsorted());
+        generator.writeEndObject();
+    }
+
+    // the id comes last so pages don't overlap when sorting by a column with equal values
+    private static String orderBy(Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ");
+        for (Sort.Order order : sort) {
+            CardField field = CardField.fromAttribute(order.getProperty());
+            orderBy.add(columnOf(field) + (order.isAscending() ? " asc" : " desc"));
+        }
+        return orderBy.add("id").toString();
+    }
+
+    private static String columnOf(CardField field) {
+        return switch (field) {
+            case ID -> "id";
+            case QUESTION -> "question";
+            case ANSWER -> "answer";
+            case STATUS -> "status";
+            case CREATED_AT -> "created_at";
+            case UPDATED_AT -> "updated_at";
+            case DUE_AT -> "due_at";
+        };
+    }
+
+    private record CardVersion(long id, LocalDateTime updatedAt) {
+    }
+
+    /**
+     * Writes one CardDto per row, with null for the empty columns like jackson does.
+     */
+    private static class CardRowWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+        private final StringBuilder timestamp = new StringBuilder(32);
+        private char[] timestampChars = new char[32];
+        private int rows;
+
+        private CardRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            generator.writeStartObject();
+            writeLong(rs, 1, ID);
+            writeLong(rs, 2, FOLDER_ID);
+            writeText(rs, 3, QUESTION);
+            writeText(rs, 4, ANSWER);
+            writeString(rs, 5, STATUS);
+            writeTimestamp(rs, 6, CREATED_AT);
+            writeTimestamp(rs, 7, UPDATED_AT);
+            writeLong(rs, 8, VERSION);
+            writeTimestamp(rs, 9, DUE_AT);
+            generator.writeEndObject();
+            rows++;
+        }
+
+        private void writeLong(ResultSet rs, int column, SerializableString name) throws SQLException {
+            long value = rs.getLong(column);
+            generator.writeName(name);
+            if (rs.wasNull()) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+        private void writeString(ResultSet rs, int column, SerializableString name) throws SQLException {
+            generator.writeName(name);
+            generator.writeString(rs.getString(column));
+        }
+
+        // the texts are kilobytes, their utf-8 bytes go to the output as they came from postgres instead of through a String
+        private void writeText(ResultSet rs, int column, SerializableString name) throws SQLException {
+            byte[] value = rs.getBytes(column);
+            generator.writeName(name);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeUTF8String(value, 0, value.length);
+            }
+        }
+
+        // same format as jackson uses for LocalDateTime
+        private void writeTimestamp(ResultSet rs, int column, SerializableString name) throws SQLException {
+            LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+            generator.writeName(name);
+            if (value == null) {
+                generator.writeNull();
+                return;
+            }
+            timestamp.setLength(0);
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(value, timestamp);
+            if (timestampChars.length < timestamp.length()) {
+                timestampChars = new char[timestamp.length()];
+            }
+            timestamp.getChars(0, timestamp.length(), timestampChars, 0);
+            generator.writeString(timestampChars, 0, timestamp.length());
+        }
+    }
+}
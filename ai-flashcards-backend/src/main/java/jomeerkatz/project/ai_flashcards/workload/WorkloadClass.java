@@ -0,0 +1,13 @@
+package jomeerkatz.project.ai_flashcards.workload;
+
+/**
+ * Kinds of work which must not slow each other down, every class gets its own connection pool and concurrency limit.
+ */
+public enum WorkloadClass {
+    // card flips, listings of a page, everything a learning user waits for
+    INTERACTIVE,
+    // imports, generation jobs, exports and folder deletes
+    BULK,
+    // admin endpoints and background work like the outbox relay
+    MAINTENANCE
+}
@@ -0,0 +1,40 @@
+package jomeerkatz.project.ai_flashcards.workload;
+
+/**
+ * Holds the workload class the current thread is working for.
+ * Set by the {@link WorkloadInterceptor} for web requests, read by the {@link WorkloadRoutingDataSource}.
+ */
+public final class WorkloadContext {
+    private static final ThreadLocal<WorkloadClass> CURRENT_CLASS = new ThreadLocal<>();
+
+    private WorkloadContext() {}
+
+    // interactive when nothing is set (startup, schema update, threads of an interactive request)
+    public static WorkloadClass current() {
+        WorkloadClass workloadClass = CURRENT_CLASS.get();
+        return workloadClass == null ? WorkloadClass.INTERACTIVE : workloadClass;
+    }
+
+    public static void set(WorkloadClass workloadClass) {
+        CURRENT_CLASS.set(workloadClass);
+    }
+
+    public static void clear() {
+        CURRENT_CLASS.remove();
+    }
+
+    // for background work which is not bound to a web request
+    public static void runAs(WorkloadClass workloadClass, Runnable work) {
+        WorkloadClass previous = CURRENT_CLASS.get();
+        CURRENT_CLASS.set(workloadClass);
+        try {
+            work.run();
+        } finally {
+            if (previous == null) {
+                CURRENT_CLASS.remove();
+            } else {
+                CURRENT_CLASS.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package jomeerkatz.project.ai_flashcards.workload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jomeerkatz.project.ai_flashcards.config.WorkloadProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One connection pool per workload class, all on the database of spring.datasource.
+ */
+public class WorkloadDataSources implements AutoCloseable {
+    private final Map<WorkloadClass, HikariDataSource> pools = new EnumMap<>(WorkloadClass.class);
+
+    public WorkloadDataSources(DataSourceProperties dataSourceProperties, WorkloadProperties properties) {
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .build();
+            pool.setPoolName("workload-" + workloadClass.name().toLowerCase());
+            pool.setMaximumPoolSize(properties.get(workloadClass).getPoolSize());
+            pools.put(workloadClass, pool);
+        }
+    }
+
+    public DataSource get(WorkloadClass workloadClass) {
+        return pools.get(workloadClass);
+    }
+
+    public Map<WorkloadClass, DataSource> asMap() {
+        return Collections.<WorkloadClass, DataSource>unmodifiableMap(pools);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,142 @@
+package jomeerkatz.project.ai_flashcards.workload;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jomeerkatz.project.ai_flashcards.config.WorkloadProperties;
+import jomeerkatz.project.ai_flashcards.exceptions.ServiceOverloadedException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts every request into its workload class by route and lets only a limited number of each class run at once,
+ * so a heavy import or folder delete waits behind other bulk work instead of in front of the card flips.
+ */
+public class WorkloadInterceptor implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = WorkloadInterceptor.class.getName() + ".permit";
+    private static final String METRIC_PREFIX = "flashcards.workloads";
+
+    private final WorkloadProperties properties;
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<WorkloadClass, Semaphore> permits = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, Counter> admitted = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, Counter> shed = new EnumMap<>(WorkloadClass.class);
+
+    public WorkloadInterceptor(WorkloadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            WorkloadProperties.Bulkhead bulkhead = properties.get(workloadClass);
+            for (String route : bulkhead.getRoutes()) {
+                routes.add(Route.parse(route, workloadClass));
+            }
+            Semaphore classPermits = new Semaphore(bulkhead.getMaxConcurrent());
+            permits.put(workloadClass, classPermits);
+            admitted.put(workloadClass, outcomeCounter(meterRegistry, workloadClass, "admitted"));
+            shed.put(workloadClass, outcomeCounter(meterRegistry, workloadClass, "shed"));
+            Gauge.builder(METRIC_PREFIX + ".in.flight", classPermits,
+                            available -> bulkhead.getMaxConcurrent() - available.availablePermits())
+                    .tag("workload", tagOf(workloadClass))
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        WorkloadClass workloadClass = classify(request);
+        Semaphore classPermits = permits.get(workloadClass);
+        boolean acquired;
+        try {
+            acquired = classPermits.tryAcquire(properties.get(workloadClass).getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            shed.get(workloadClass).increment();
+            throw new ServiceOverloadedException("the server is busy right now, please try again in a moment", Duration.ofSeconds(1));
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, workloadClass);
+        admitted.get(workloadClass).increment();
+        WorkloadContext.set(workloadClass);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    // streaming responses (SseEmitter) hand the request over to another thread, an idle stream holds no permit
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    WorkloadClass classify(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (Route route : routes) {
+            if (route.matches(request.getMethod(), path)) {
+                return route.workloadClass();
+            }
+        }
+        // big pages are read like an export, whatever the route
+        String size = request.getParameter("size");
+        if (size != null && HttpMethod.GET.matches(request.getMethod())) {
+            try {
+                if (Integer.parseInt(size) > properties.getBulkPageSize()) {
+                    return WorkloadClass.BULK;
+                }
+            } catch (NumberFormatException ignored) {
+                // left to the controller to reject
+            }
+        }
+        return WorkloadClass.INTERACTIVE;
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof WorkloadClass workloadClass) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.get(workloadClass).release();
+        }
+        WorkloadContext.clear();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, WorkloadClass workloadClass, String outcome) {
+        return Counter.builder(METRIC_PREFIX + ".requests")
+                .description("requests by workload class and admission decision")
+                .tag("workload", tagOf(workloadClass))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String tagOf(WorkloadClass workloadClass) {
+        return workloadClass.name().toLowerCase();
+    }
+
+    private record Route(String method, PathPattern pattern, WorkloadClass workloadClass) {
+        static Route parse(String route, WorkloadClass workloadClass) {
+            String trimmed = route.trim();
+            int space = trimmed.indexOf(' ');
+            String method = space < 0 ? null : trimmed.substring(0, space);
+            String pattern = space < 0 ? trimmed : trimmed.substring(space + 1).trim();
+            return new Route(method, PathPatternParser.defaultInstance.parse(pattern), workloadClass);
+        }
+
+        boolean matches(String requestMethod, PathContainer path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pattern.matches(path);
+        }
+    }
+}
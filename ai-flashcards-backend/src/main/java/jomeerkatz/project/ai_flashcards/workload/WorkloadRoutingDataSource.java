@@ -0,0 +1,13 @@
+package jomeerkatz.project.ai_flashcards.workload;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Hands out connections of the pool of the workload class in the {@link WorkloadContext}.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadContext.current();
+    }
+}
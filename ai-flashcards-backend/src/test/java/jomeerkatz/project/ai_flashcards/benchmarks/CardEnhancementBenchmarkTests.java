@@ -0,0 +1,128 @@
+package jomeerkatz.project.ai_flashcards.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import jakarta.persistence.EntityManager;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn test -Pbenchmark -Dtest=CardEnhancementBenchmarkTests
+// baseline without enhancement: mvn clean test -Pbenchmark -Dtest=CardEnhancementBenchmarkTests -Dhibernate.enhance.phase=none
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@Tag("benchmark")
+public class CardEnhancementBenchmarkTests {
+    private static final int CARDS = 2_000;
+    private static final int STATUS_UPDATES = 500;
+    private static final String KEYCLOAK_ID = "benchmark-user";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardService cardService;
+    private final CardRepository cardRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public CardEnhancementBenchmarkTests(final JdbcTemplate jdbcTemplate, final CardService cardService, final CardRepository cardRepository,
+                                         final EntityManager entityManager, final TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardService = cardService;
+        this.cardRepository = cardRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Test
+    public void BenchmarkStatusUpdatesAndListingFlushes() {
+        seed();
+        User user = User.builder().keycloakId(KEYCLOAK_ID).build();
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Card.class);
+
+        // warm up the statements and the jit before measuring
+        for (long cardId = 1; cardId <= 50; cardId++) {
+            cardService.updatedCardStatus(user, 1L, cardId, CardStatus.MEDIUM, null);
+        }
+
+        Measurement statusUpdates = measure(() -> {
+            for (long cardId = 1; cardId <= STATUS_UPDATES; cardId++) {
+                cardService.updatedCardStatus(user, 1L, cardId, CardStatus.GOOD, null);
+            }
+        });
+
+        // a read only listing in one persistence context, without enhancement the flush compares every loaded card with its snapshot
+        long[] flushNanos = new long[1];
+        Measurement listing = measure(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Card> cards = cardRepository.findAllByUserIdAndFolderId(1L, 1L, PageRequest.of(0, CARDS)).getContent();
+            assertThat(cards).hasSize(CARDS);
+            long start = System.nanoTime();
+            entityManager.flush();
+            flushNanos[0] = System.nanoTime() - start;
+        }));
+
+        System.out.printf("enhanced=%s%n", enhanced);
+        System.out.printf("status updates   count=%5d time=%6d ms allocated=%7d KB%n",
+                STATUS_UPDATES, statusUpdates.millis(), statusUpdates.allocatedBytes() / 1024);
+        System.out.printf("listing + flush  cards=%5d time=%6d ms allocated=%7d KB flush=%6d us%n",
+                CARDS, listing.millis(), listing.allocatedBytes() / 1024, flushNanos[0] / 1_000);
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cards where status = 'GOOD'", Long.class))
+                .isEqualTo(STATUS_UPDATES);
+    }
+
+    private void seed() {
+        jdbcTemplate.update("insert into users (id, keycloak_id, created_at, updated_at) values (1, ?, now(), now())", KEYCLOAK_ID);
+        jdbcTemplate.update("insert into folders (id, user_id, name, created_at, updated_at) values (1, 1, 'benchmark', now(), now())");
+        List<Object[]> cards = new ArrayList<>();
+        for (long cardId = 1; cardId <= CARDS; cardId++) {
+            // ai answers are a few kilobytes of text
+            cards.add(new Object[]{cardId, "question ".repeat(20) + cardId, "answer ".repeat(400) + cardId});
+        }
+        jdbcTemplate.batchUpdate("insert into cards (id, user_id, folder_id, question, answer, status, created_at, updated_at)"
+                + " values (?, 1, 1, ?, ?, 'BAD', now(), now())", cards);
+    }
+
+    private static Measurement measure(Runnable runnable) {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        runnable.run();
+        return new Measurement((System.nanoTime() - start) / 1_000_000,
+                threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+    }
+
+    private record Measurement(long millis, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,112 @@
+package jomeerkatz.project.ai_flashcards.benchmarks;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMaintenanceDto;
+import jomeerkatz.project.ai_flashcards.services.CardPartitioningService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn test -Pbenchmark -Dtest=CardPartitioningBenchmarkTests
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@Tag("benchmark")
+public class CardPartitioningBenchmarkTests {
+    private static final int USERS = 200;
+    private static final int FOLDERS_PER_USER = 2;
+    private static final int CARDS_PER_FOLDER = 250;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardPartitioningService cardPartitioningService;
+
+    @Autowired
+    public CardPartitioningBenchmarkTests(final JdbcTemplate jdbcTemplate, final CardPartitioningService cardPartitioningService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardPartitioningService = cardPartitioningService;
+    }
+
+    @Test
+    public void BenchmarkMaintenanceCostsBeforeAndAfterPartitioning() {
+        seed();
+        long totalCards = jdbcTemplate.queryForObject("select count(*) from cards", Long.class);
+
+        // dead tuples for vacuum to clean up
+        jdbcTemplate.update("update cards set status = 'GOOD' where id % 3 = 0");
+        List<PartitionMaintenanceDto> before = cardPartitioningService.vacuumPartitions();
+        long folderDeleteBefore = timeFolderDelete(1L);
+
+        cardPartitioningService.migrateToPartitionedTable();
+
+        jdbcTemplate.update("update cards set status = 'MEDIUM' where id % 3 = 0");
+        List<PartitionMaintenanceDto> after = cardPartitioningService.vacuumPartitions();
+        long folderDeleteAfter = timeFolderDelete(2L);
+
+        print("unpartitioned", before, folderDeleteBefore);
+        print("partitioned", after, folderDeleteAfter);
+
+        assertThat(before).hasSize(1);
+        assertThat(after).hasSize(16);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cards", Long.class))
+                .isEqualTo(totalCards - 2 * CARDS_PER_FOLDER);
+    }
+
+    private void seed() {
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> folders = new ArrayList<>();
+        List<Object[]> cards = new ArrayList<>();
+        long folderId = 1;
+        long cardId = 1;
+        for (long userId = 1; userId <= USERS; userId++) {
+            users.add(new Object[]{userId, "benchmark-user-" + userId});
+            for (int f = 0; f < FOLDERS_PER_USER; f++, folderId++) {
+                folders.add(new Object[]{folderId, userId, "folder-" + folderId});
+                for (int c = 0; c < CARDS_PER_FOLDER; c++, cardId++) {
+                    cards.add(new Object[]{cardId, userId, folderId, "question " + cardId, "answer ".repeat(40) + cardId});
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, keycloak_id, created_at, updated_at) values (?, ?, now(), now())", users);
+        jdbcTemplate.batchUpdate("insert into folders (id, user_id, name, created_at, updated_at) values (?, ?, ?, now(), now())", folders);
+        jdbcTemplate.batchUpdate("insert into cards (id, user_id, folder_id, question, answer, status, created_at, updated_at)"
+                + " values (?, ?, ?, ?, ?, 'BAD', now(), now())", cards);
+    }
+
+    private long timeFolderDelete(Long folderId) {
+        Long userId = jdbcTemplate.queryForObject("select user_id from folders where id = ?", Long.class, folderId);
+        long start = System.nanoTime();
+        jdbcTemplate.update("delete from cards where user_id = ? and folder_id = ?", userId, folderId);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static void print(String label, List<PartitionMaintenanceDto> vacuum, long folderDeleteMillis) {
+        long totalVacuum = vacuum.stream().mapToLong(PartitionMaintenanceDto::getVacuumMillis).sum();
+        long maxVacuum = vacuum.stream().mapToLong(PartitionMaintenanceDto::getVacuumMillis).max().orElse(0);
+        System.out.printf("%-14s tables=%2d vacuum total=%5d ms, largest single vacuum=%5d ms, folder delete=%4d ms%n",
+                label, vacuum.size(), totalVacuum, maxVacuum, folderDeleteMillis);
+        vacuum.forEach(partition -> System.out.printf("    %-20s rows=%7d size=%9d bytes vacuum=%4d ms%n",
+                partition.getPartition(), partition.getRows(), partition.getSizeBytes(), partition.getVacuumMillis()));
+    }
+}
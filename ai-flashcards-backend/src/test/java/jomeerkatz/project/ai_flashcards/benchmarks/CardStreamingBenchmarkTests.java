@@ -0,0 +1,127 @@
+package jomeerkatz.project.ai_flashcards.benchmarks;
+
+import com.sun.management.ThreadMXBean;
+import jomeerkatz.project.ai_flashcards.domain.dtos.CardDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// mvn test -Pbenchmark -Dtest=CardStreamingBenchmarkTests
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+@Tag("benchmark")
+public class CardStreamingBenchmarkTests {
+    private static final int CARDS = 2_000;
+    private static final int ROUNDS = 20;
+    private static final String KEYCLOAK_ID = "benchmark-user";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardService cardService;
+    private final CardMapper cardMapper;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public CardStreamingBenchmarkTests(final JdbcTemplate jdbcTemplate, final CardService cardService,
+                                       final CardMapper cardMapper, final ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardService = cardService;
+        this.cardMapper = cardMapper;
+        this.objectMapper = objectMapper;
+    }
+
+    @Test
+    public void BenchmarkEntityPageAgainstStreamedPage() {
+        seed();
+        User user = User.builder().keycloakId(KEYCLOAK_ID).build();
+        PageRequest page = PageRequest.of(0, CARDS, Sort.by("id"));
+
+        // the json goes nowhere, like into a socket, so only the work up to the response is measured
+        // entities -> Page<Card> -> Page<CardDto> -> jackson, what GET /api/folders/{folderId} does
+        Runnable entityPage = () -> {
+            Page<CardDto> cards = cardService.getAllCards(user, 1L, page).map(cardMapper::toDto);
+            objectMapper.writeValue(OutputStream.nullOutputStream(), cards);
+        };
+        // jdbc -> json, what GET /api/folders/{folderId}/cards does
+        Runnable streamedPage = () -> cardService.writeCardPage(user, 1L, page, OutputStream.nullOutputStream());
+
+        // warm up the statements and the jit before measuring
+        for (int round = 0; round < 5; round++) {
+            entityPage.run();
+            streamedPage.run();
+        }
+        Measurement entities = measure(entityPage);
+        Measurement streamed = measure(streamedPage);
+
+        System.out.printf("entity page    cards=%5d rounds=%3d time=%6d ms allocated=%8d KB%n",
+                CARDS, ROUNDS, entities.millis(), entities.allocatedBytes() / 1024);
+        System.out.printf("streamed page  cards=%5d rounds=%3d time=%6d ms allocated=%8d KB%n",
+                CARDS, ROUNDS, streamed.millis(), streamed.allocatedBytes() / 1024);
+
+        // both have to be the same json
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        objectMapper.writeValue(expected, cardService.getAllCards(user, 1L, page).map(cardMapper::toDto));
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        cardService.writeCardPage(user, 1L, page, actual);
+        assertThat(actual.toString()).isEqualTo(expected.toString());
+    }
+
+    private void seed() {
+        jdbcTemplate.update("insert into users (id, keycloak_id, created_at, updated_at) values (1, ?, now(), now())", KEYCLOAK_ID);
+        jdbcTemplate.update("insert into folders (id, user_id, name, created_at, updated_at) values (1, 1, 'benchmark', now(), now())");
+        List<Object[]> cards = new ArrayList<>();
+        for (long cardId = 1; cardId <= CARDS; cardId++) {
+            // ai answers are a few kilobytes of text
+            cards.add(new Object[]{cardId, "question ".repeat(20) + cardId, "answer ".repeat(400) + cardId});
+        }
+        jdbcTemplate.batchUpdate("insert into cards (id, user_id, folder_id, question, answer, status, created_at, updated_at)"
+                + " values (?, 1, 1, ?, ?, 'BAD', now(), now())", cards);
+    }
+
+    private static Measurement measure(Runnable runnable) {
+        ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            runnable.run();
+        }
+        return new Measurement((System.nanoTime() - start) / 1_000_000,
+                threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+    }
+
+    private record Measurement(long millis, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,70 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.controllers.ChangeStreamController;
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.config.ChangeStreamProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.ChangeStreamBroadcaster;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@WebMvcTest(controllers = {ChangeStreamController.class, ErrorController.class})
+@Import(ChangeStreamBroadcaster.class)
+@EnableConfigurationProperties(ChangeStreamProperties.class)
+public class ChangeStreamControllerTests {
+    @MockitoBean
+    private UserService userService;
+
+    @Autowired
+    private ChangeStreamBroadcaster changeStreamBroadcaster;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testChangesOfTheUserArePushedToItsStream() throws Exception {
+        User user = DataUtil.getUserExample1WithId();
+        User otherUser = DataUtil.getUserExample2WithId();
+        when(userService.getUserOrThrow(any(User.class))).thenReturn(user);
+
+        MvcResult result = mockMvc.perform(get("/api/changes")
+                        .with(jwt().jwt(jwt -> jwt.subject(user.getKeycloakId()))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        changeStreamBroadcaster.onChange(UserChangeEvent.ofFolder(ChangeType.FOLDER_CREATED, DataUtil.getFolderExample1WithId(user)));
+        Folder otherFolder = DataUtil.getFolderExample1WithId(otherUser);
+        otherFolder.setName("not for this user");
+        changeStreamBroadcaster.onChange(UserChangeEvent.ofFolder(ChangeType.FOLDER_CREATED, otherFolder));
+
+        // sending happens on another thread
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (!result.getResponse().getContentAsString().contains("FOLDER_CREATED") && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+        String stream = result.getResponse().getContentAsString();
+        assertThat(stream).contains("event:change", "\"type\":\"FOLDER_CREATED\"", "\"folderName\":\"" + DataUtil.getFolderExample1WithId(user).getName() + "\"");
+        assertThat(stream).doesNotContain("not for this user", "\"cardId\"");
+    }
+}
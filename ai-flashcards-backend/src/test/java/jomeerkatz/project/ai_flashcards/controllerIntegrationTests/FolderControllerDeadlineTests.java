@@ -0,0 +1,94 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.FolderController;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
+import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {FolderController.class, ErrorController.class}, properties = {
+        "flashcards.deadlines.default-timeout=3s"
+})
+public class FolderControllerDeadlineTests {
+    @MockitoBean
+    private FolderService folderService;
+
+    @MockitoBean
+    private FolderMapper folderMapper;
+
+    @MockitoBean
+    private CardService cardService;
+
+    @MockitoBean
+    private CardMapper cardMapper;
+
+    @MockitoBean
+    private GenerationJobService generationJobService;
+
+    @MockitoBean
+    private GenerationJobMapper generationJobMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testTheServiceRunsWithTheDeadlineOfTheRouteOrTheShorterOneOfTheClient() throws Exception {
+        AtomicReference<Duration> remaining = new AtomicReference<>();
+        when(folderService.getAllFolders(any(), any())).thenAnswer(invocation -> {
+            remaining.set(RequestDeadline.remaining());
+            return Page.empty();
+        });
+
+        mockMvc.perform(get("/api/folders")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isOk());
+        assertThat(remaining.get()).isBetween(Duration.ofSeconds(2), Duration.ofSeconds(3));
+
+        mockMvc.perform(get("/api/folders")
+                        .header("X-Request-Timeout", "250")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isOk());
+        assertThat(remaining.get()).isBetween(Duration.ZERO, Duration.ofMillis(250));
+
+        // a client can't ask for more time than the route gives
+        mockMvc.perform(get("/api/folders")
+                        .header("X-Request-Timeout", "60000")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isOk());
+        assertThat(remaining.get()).isLessThanOrEqualTo(Duration.ofSeconds(3));
+        assertThat(RequestDeadline.remaining()).isNull();
+    }
+
+    @Test
+    public void testACancelledStatementReturns504() throws Exception {
+        when(folderService.getAllFolders(any(), any()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        mockMvc.perform(get("/api/folders")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.status").value(504));
+    }
+}
@@ -0,0 +1,83 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.FolderController;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapperImpl;
+import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {FolderController.class, ErrorController.class})
+@Import(CardMapperImpl.class)
+public class FolderControllerFieldsTests {
+    @MockitoBean
+    private FolderService folderService;
+
+    @MockitoBean
+    private FolderMapper folderMapper;
+
+    @MockitoBean
+    private CardService cardService;
+
+    @MockitoBean
+    private GenerationJobService generationJobService;
+
+    @MockitoBean
+    private GenerationJobMapper generationJobMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testCardsWithoutFieldsKeepTheirNullProperties() throws Exception {
+        Card card = DataUtil.getCardExample1(DataUtil.getUserExample1WithId(), DataUtil.getFolderExample1WithId(DataUtil.getUserExample1WithId()));
+        card.setId(5L);
+        when(cardService.getAllCards(any(), eq(1L), eq(EnumSet.noneOf(CardField.class)), any()))
+                .thenReturn(new PageImpl<>(List.of(card)));
+
+        mockMvc.perform(get("/api/folders/1").with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].question").value("question1"))
+                .andExpect(content().string(containsString("\"dueAt\":null")));
+    }
+
+    @Test
+    public void testCardsWithFieldsLeaveOutTheOtherProperties() throws Exception {
+        Card card = Card.builder().id(5L).question("question1").build();
+        when(cardService.getAllCards(any(), eq(1L), eq(EnumSet.of(CardField.QUESTION)), any()))
+                .thenReturn(new PageImpl<>(List.of(card)));
+
+        mockMvc.perform(get("/api/folders/1").param("fields", "question")
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.content[0].question").value("question1"))
+                .andExpect(jsonPath("$.content[0].answer").doesNotExist())
+                .andExpect(jsonPath("$.content[0].dueAt").doesNotExist());
+    }
+}
@@ -0,0 +1,85 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.FolderController;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
+import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {FolderController.class, ErrorController.class}, properties = {
+        "flashcards.rate-limit.capacity=2",
+        "flashcards.rate-limit.refill-per-second=0.1"
+})
+public class FolderControllerRateLimitTests {
+    @MockitoBean
+    private FolderService folderService;
+
+    @MockitoBean
+    private FolderMapper folderMapper;
+
+    @MockitoBean
+    private CardService cardService;
+
+    @MockitoBean
+    private CardMapper cardMapper;
+
+    @MockitoBean
+    private GenerationJobService generationJobService;
+
+    @MockitoBean
+    private GenerationJobMapper generationJobMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testWritesAboveTheBucketCapacityReturn429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(delete("/api/folders/1")
+                            .with(jwt().jwt(jwt -> jwt.subject("busy-user"))))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(delete("/api/folders/1")
+                        .with(jwt().jwt(jwt -> jwt.subject("busy-user"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    public void testOtherUsersAndReadsAreNotThrottled() throws Exception {
+        when(folderService.getAllFolders(any(), any())).thenReturn(Page.empty());
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(delete("/api/folders/1")
+                    .with(jwt().jwt(jwt -> jwt.subject("noisy-user"))));
+        }
+
+        mockMvc.perform(delete("/api/folders/1")
+                        .with(jwt().jwt(jwt -> jwt.subject("quiet-user"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/folders")
+                        .with(jwt().jwt(jwt -> jwt.subject("noisy-user"))))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,79 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.FolderController;
+import jomeerkatz.project.ai_flashcards.mappers.CardMapper;
+import jomeerkatz.project.ai_flashcards.mappers.FolderMapper;
+import jomeerkatz.project.ai_flashcards.mappers.GenerationJobMapper;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import jomeerkatz.project.ai_flashcards.services.GenerationJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// no bulk permits at all, so every bulk request is shed right away
+@WebMvcTest(controllers = {FolderController.class, ErrorController.class}, properties = {
+        "flashcards.workloads.bulk.max-concurrent=0",
+        "flashcards.workloads.bulk.max-wait=0s"
+})
+public class FolderControllerWorkloadTests {
+    @MockitoBean
+    private FolderService folderService;
+
+    @MockitoBean
+    private FolderMapper folderMapper;
+
+    @MockitoBean
+    private CardService cardService;
+
+    @MockitoBean
+    private CardMapper cardMapper;
+
+    @MockitoBean
+    private GenerationJobService generationJobService;
+
+    @MockitoBean
+    private GenerationJobMapper generationJobMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testFullBulkheadShedsBulkRequestsWith503() throws Exception {
+        mockMvc.perform(delete("/api/folders/1")
+                        .with(jwt().jwt(jwt -> jwt.subject("importing-user"))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(503));
+        mockMvc.perform(get("/api/folders").param("size", "500")
+                        .with(jwt().jwt(jwt -> jwt.subject("importing-user"))))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testInteractiveRequestsDoNotWaitForTheBulkhead() throws Exception {
+        when(folderService.getAllFolders(any(), any())).thenReturn(Page.empty());
+
+        mockMvc.perform(put("/api/folders/1/update-learning-card/5/GOOD")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/folders").param("size", "20")
+                        .with(jwt().jwt(jwt -> jwt.subject("learning-user"))))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,56 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.PartitionAdminController;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMigrationDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.PartitionMigrationStatus;
+import jomeerkatz.project.ai_flashcards.exceptions.PartitionMigrationInProgressException;
+import jomeerkatz.project.ai_flashcards.services.CardPartitioningService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {PartitionAdminController.class, ErrorController.class})
+public class PartitionAdminControllerTests {
+    @MockitoBean
+    private CardPartitioningService cardPartitioningService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testMigrateStartsTheMigrationInTheBackgroundWith202() throws Exception {
+        when(cardPartitioningService.startMigration()).thenReturn(PartitionMigrationDto.builder()
+                .status(PartitionMigrationStatus.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        mockMvc.perform(post("/api/admin/cards/partitions/migrate")
+                        .with(jwt().jwt(jwt -> jwt.subject("admin"))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("RUNNING"));
+    }
+
+    @Test
+    public void testDroppingTheOldTableDuringTheMigrationReturns409() throws Exception {
+        doThrow(new PartitionMigrationInProgressException("the cards table is being migrated right now"))
+                .when(cardPartitioningService).dropUnpartitionedTable();
+
+        mockMvc.perform(delete("/api/admin/cards/partitions/unpartitioned")
+                        .with(jwt().jwt(jwt -> jwt.subject("admin"))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+}
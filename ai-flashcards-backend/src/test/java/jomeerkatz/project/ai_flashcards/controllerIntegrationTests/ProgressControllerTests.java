@@ -0,0 +1,108 @@
+package jomeerkatz.project.ai_flashcards.controllerIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.controllers.ErrorController;
+import jomeerkatz.project.ai_flashcards.controllers.ProgressController;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
+import jomeerkatz.project.ai_flashcards.mappers.ProgressMapperImpl;
+import jomeerkatz.project.ai_flashcards.repositories.ProgressBucket;
+import jomeerkatz.project.ai_flashcards.services.ProgressService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = {ProgressController.class, ErrorController.class})
+@Import(ProgressMapperImpl.class)
+public class ProgressControllerTests {
+    @MockitoBean
+    private ProgressService progressService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testProgressDefaultsToDailyBucketsOfAllFolders() throws Exception {
+        when(progressService.getProgress(any(), isNull(), eq(RollupGranularity.DAY), isNull(), isNull()))
+                .thenReturn(List.of(bucket(LocalDateTime.of(2026, 1, 1, 0, 0), 3, 2, 1)));
+
+        mockMvc.perform(get("/api/progress").with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].bucketStart").value("2026-01-01T00:00:00"))
+                .andExpect(jsonPath("$[0].goodCount").value(3))
+                .andExpect(jsonPath("$[0].mediumCount").value(2))
+                .andExpect(jsonPath("$[0].badCount").value(1));
+    }
+
+    @Test
+    public void testProgressPassesGranularityFolderAndRange() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 8, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 1, 1, 12, 0);
+        when(progressService.getProgress(any(), eq(4L), eq(RollupGranularity.HOUR), eq(from), eq(to)))
+                .thenReturn(List.of());
+
+        mockMvc.perform(get("/api/progress")
+                        .param("granularity", "HOUR")
+                        .param("folderId", "4")
+                        .param("from", "2026-01-01T08:00:00")
+                        .param("to", "2026-01-01T12:00:00")
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+        verify(progressService).getProgress(argThat((User user) -> "keycloak-id-1".equals(user.getKeycloakId())),
+                eq(4L), eq(RollupGranularity.HOUR), eq(from), eq(to));
+    }
+
+    @Test
+    public void testProgressOfAFolderOfAnotherUserIs403() throws Exception {
+        when(progressService.getProgress(any(), eq(4L), any(), any(), any()))
+                .thenThrow(new FolderAccessDeniedException("User has not access to the folder!"));
+
+        mockMvc.perform(get("/api/progress").param("folderId", "4")
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.status").value(403));
+    }
+
+    private static ProgressBucket bucket(LocalDateTime bucketStart, long goodCount, long mediumCount, long badCount) {
+        return new ProgressBucket() {
+            @Override
+            public LocalDateTime getBucketStart() {
+                return bucketStart;
+            }
+
+            @Override
+            public long getGoodCount() {
+                return goodCount;
+            }
+
+            @Override
+            public long getMediumCount() {
+                return mediumCount;
+            }
+
+            @Override
+            public long getBadCount() {
+                return badCount;
+            }
+        };
+    }
+}
@@ -5,6 +5,7 @@ import jomeerkatz.project.ai_flashcards.DataUtil;
 import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardField;
 import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
 import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
 import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
@@ -12,6 +13,7 @@ import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +25,8 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -105,14 +109,14 @@ public class CardRepositoryIntegrationTests {
     }
 
 
-//    Optional<Card> findByIdAndFolderId(Long id, Long folderId);
+//    Optional<Card> findByIdAndUserIdAndFolderId(Long id, Long userId, Long folderId);
     @Test
     public void TestThatFindsSuccessfullyCardByIdAndFolderId() {
         User savedUser = userRepository.save(DataUtil.getUserExample1());
         Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
         Card savedCard1 = cardRepository.save(DataUtil.getCardExample1(savedUser, savedFolder));
 
-        Optional<Card> resultCard = cardRepository.findByIdAndFolderId(savedCard1.getId(), savedFolder.getId());
+        Optional<Card> resultCard = cardRepository.findByIdAndUserIdAndFolderId(savedCard1.getId(), savedUser.getId(), savedFolder.getId());
 
         assertThat(resultCard).isNotEmpty();
         assertThat(resultCard.get()).isEqualTo(savedCard1);
@@ -123,12 +127,12 @@ public class CardRepositoryIntegrationTests {
         User savedUser = userRepository.save(DataUtil.getUserExample1());
         Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
         Long idExampleNotExisting = 1L;
-        Optional<Card> resultCard = cardRepository.findByIdAndFolderId(idExampleNotExisting, savedFolder.getId());
+        Optional<Card> resultCard = cardRepository.findByIdAndUserIdAndFolderId(idExampleNotExisting, savedUser.getId(), savedFolder.getId());
 
         assertThat(resultCard).isEmpty();
     }
 
-//    void deleteAllByFolderId(Long folderId);
+//    int deleteAllByUserIdAndFolderId(Long userId, Long folderId);
     @Test
     @Transactional
     public void TestThatDeletesSuccessfullyAllCardsInsideFolderAndNotBeFoundAgain() {
@@ -138,7 +142,7 @@ public class CardRepositoryIntegrationTests {
         Card savedCard2 = cardRepository.save(DataUtil.getCardExample2(savedUser, savedFolder));
         Card savedCard3 = cardRepository.save(DataUtil.getCardExample3(savedUser, savedFolder));
 
-        cardRepository.deleteAllByFolderId(savedFolder.getId());
+        cardRepository.deleteAllByUserIdAndFolderId(savedUser.getId(), savedFolder.getId());
 
         Optional<Card> resultCard1 = cardRepository.findById(savedCard1.getId());
         Optional<Card> resultCard2 = cardRepository.findById(savedCard2.getId());
@@ -149,7 +153,7 @@ public class CardRepositoryIntegrationTests {
         assertThat(resultCard3).isEmpty();
     }
 
-//    Long countByFolderId(Long folderId);
+//    Long countByUserIdAndFolderId(Long userId, Long folderId);
     @Test
     public void TestThatCountCorrectlyExistingCardsInFolder() {
         User savedUser = userRepository.save(DataUtil.getUserExample1());
@@ -158,7 +162,7 @@ public class CardRepositoryIntegrationTests {
         Card savedCard2 = cardRepository.save(DataUtil.getCardExample2(savedUser, savedFolder));
         Card savedCard3 = cardRepository.save(DataUtil.getCardExample3(savedUser, savedFolder));
 
-        Long resultCount = cardRepository.countByFolderId(savedFolder.getId());
+        Long resultCount = cardRepository.countByUserIdAndFolderId(savedUser.getId(), savedFolder.getId());
 
         assertThat(resultCount).isEqualTo(3);
     }
@@ -168,7 +172,7 @@ public class CardRepositoryIntegrationTests {
         User savedUser = userRepository.save(DataUtil.getUserExample1());
         Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
 
-        Long resultCount = cardRepository.countByFolderId(savedFolder.getId());
+        Long resultCount = cardRepository.countByUserIdAndFolderId(savedUser.getId(), savedFolder.getId());
 
         assertThat(resultCount).isEqualTo(0);
     }
@@ -217,4 +221,44 @@ public class CardRepositoryIntegrationTests {
         assertThat(resultPage).isEmpty();
     }
 
+    @Test
+    public void TestThatFindFieldsByUserIdAndFolderIdOnlyFillsSelectedFields() {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        Card savedCard1 = cardRepository.save(DataUtil.getCardExample1(savedUser, savedFolder)); // bad
+        cardRepository.save(DataUtil.getCardExample2(savedUser, savedFolder)); // medium
+
+        Page<Card> resultPage = cardRepository.findFieldsByUserIdAndFolderId(savedUser.getId(),
+                savedFolder.getId(),
+                CardStatus.BAD,
+                EnumSet.of(CardField.QUESTION),
+                PageRequest.of(0, 5));
+
+        assertThat(resultPage.getTotalElements()).isEqualTo(1);
+        Card result = resultPage.getContent().getFirst();
+        assertThat(result.getId()).isEqualTo(savedCard1.getId());
+        assertThat(result.getQuestion()).isEqualTo(savedCard1.getQuestion());
+        assertThat(result.getAnswer()).isNull();
+        assertThat(result.getStatus()).isNull();
+    }
+
+    @Test
+    public void TestThatFindDueByUserIdAndFolderIdReturnsDueCardsInDueOrder() {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        Card dueLater = DataUtil.getCardExample1(savedUser, savedFolder);
+        dueLater.setDueAt(LocalDateTime.now().minusHours(1));
+        Card dueFirst = DataUtil.getCardExample2(savedUser, savedFolder);
+        dueFirst.setDueAt(LocalDateTime.now().minusDays(2));
+        Card notDue = DataUtil.getCardExample3(savedUser, savedFolder);
+        notDue.setDueAt(LocalDateTime.now().plusDays(3));
+        cardRepository.saveAll(List.of(dueLater, dueFirst, notDue));
+
+        List<Card> result = cardRepository.findDueByUserIdAndFolderId(savedUser.getId(),
+                savedFolder.getId(),
+                LocalDateTime.now(),
+                Limit.of(5));
+
+        assertThat(result).extracting(Card::getId).containsExactly(dueFirst.getId(), dueLater.getId());
+    }
 }
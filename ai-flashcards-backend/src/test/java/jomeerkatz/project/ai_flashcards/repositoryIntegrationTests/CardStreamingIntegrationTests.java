@@ -0,0 +1,145 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.config.CardFragmentCacheProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import jomeerkatz.project.ai_flashcards.streaming.CardFragmentCache;
+import jomeerkatz.project.ai_flashcards.streaming.CardJsonStreamer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class CardStreamingIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private final UserRepository userRepository;
+    private final FolderRepository folderRepository;
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CardFragmentCache cardFragmentCache;
+    private final MockMvc mockMvc;
+
+    @Autowired
+    public CardStreamingIntegrationTests(final UserRepository userRepository, final FolderRepository folderRepository,
+                                         final CardRepository cardRepository, final JdbcTemplate jdbcTemplate,
+                                         final ObjectMapper objectMapper, final CardFragmentCache cardFragmentCache,
+                                         final MockMvc mockMvc) {
+        this.userRepository = userRepository;
+        this.folderRepository = folderRepository;
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.cardFragmentCache = cardFragmentCache;
+        this.mockMvc = mockMvc;
+    }
+
+    @Test
+    public void TestThatAStreamedPageIsTheJsonOfTheRegularEndpoint() throws Exception {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = saveFolderWithCards(savedUser);
+        // without the fragment cache every row is written as it comes from jdbc
+        CardFragmentCacheProperties withoutFragments = new CardFragmentCacheProperties();
+        withoutFragments.setEnabled(false);
+        CardJsonStreamer streamer = new CardJsonStreamer(jdbcTemplate, objectMapper,
+                new CardFragmentCache(withoutFragments, new SimpleMeterRegistry()));
+
+        // the regular endpoint has no order of its own, both are sorted by id
+        assertThat(stream(streamer, savedUser, savedFolder, PageRequest.of(0, 10, Sort.by("id"))))
+                .isEqualTo(readPage(savedFolder, "?page=0&size=10&sort=id"));
+        // a page in the middle, sorted by another column, needs the count for its totals
+        assertThat(stream(streamer, savedUser, savedFolder, PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "question"))))
+                .isEqualTo(readPage(savedFolder, "?page=1&size=1&sort=question,desc"));
+    }
+
+    @Test
+    public void TestThatAPageSplicedFromCachedFragmentsIsTheJsonOfTheRegularEndpoint() throws Exception {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = saveFolderWithCards(savedUser);
+        Card editedCard = cardRepository.save(DataUtil.getCardExample1(savedUser, savedFolder));
+
+        // the first request serializes and caches every card, the second one is put together from the cache
+        String coldPage = streamPage(savedFolder);
+        assertThat(cardFragmentCache.get(editedCard.getId(), cardRepository.findById(editedCard.getId()).orElseThrow().getUpdatedAt()))
+                .isNotNull();
+        assertThat(streamPage(savedFolder))
+                .isEqualTo(coldPage)
+                .isEqualTo(readPage(savedFolder, "?page=0&size=10&sort=id"));
+
+        // only the edited card is serialized again
+        jdbcTemplate.update("update cards set question = 'edited', updated_at = now() where id = ?", editedCard.getId());
+        assertThat(streamPage(savedFolder))
+                .contains("\"question\":\"edited\"")
+                .isEqualTo(readPage(savedFolder, "?page=0&size=10&sort=id"));
+    }
+
+    private Folder saveFolderWithCards(User savedUser) {
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        cardRepository.save(DataUtil.getCardExample1(savedUser, savedFolder));
+        cardRepository.save(DataUtil.getCardExample2(savedUser, savedFolder));
+        cardRepository.save(DataUtil.getCardExample3(savedUser, savedFolder));
+        return savedFolder;
+    }
+
+    private static String stream(CardJsonStreamer streamer, User savedUser, Folder savedFolder, PageRequest pageable) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamer.writePage(out, savedUser.getId(), savedFolder.getId(), pageable);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    // GET /api/folders/{folderId}/cards, with the fragment cache of the application
+    private String streamPage(Folder savedFolder) throws Exception {
+        return mockMvc.perform(get("/api/folders/" + savedFolder.getId() + "/cards?page=0&size=10&sort=id")
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    // GET /api/folders/{folderId}, cards -> dtos -> jackson
+    private String readPage(Folder savedFolder, String query) throws Exception {
+        return mockMvc.perform(get("/api/folders/" + savedFolder.getId() + query)
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,103 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jakarta.persistence.EntityManagerFactory;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.cache.CacheInvalidationPublisher;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class FolderCacheIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    private final FolderRepository folderRepository;
+    private final UserRepository userRepository;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public FolderCacheIntegrationTests(final FolderRepository folderRepository, final UserRepository userRepository,
+                                       final CacheInvalidationPublisher cacheInvalidationPublisher,
+                                       final EntityManagerFactory entityManagerFactory, final JdbcTemplate jdbcTemplate) {
+        this.folderRepository = folderRepository;
+        this.userRepository = userRepository;
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // the listener empties the cache once it is connected, the tests start after that
+    @BeforeEach
+    public void awaitListener() {
+        await().atMost(Duration.ofSeconds(10)).until(() -> jdbcTemplate.queryForObject(
+                "select count(*) from pg_stat_activity where query = 'LISTEN " + CacheInvalidationPublisher.CHANNEL + "'",
+                Long.class) > 0);
+    }
+
+    @Test
+    public void TestThatAFolderIsReadFromTheSecondLevelCache() {
+        Folder savedFolder = saveAndCacheFolder();
+
+        // a change the cache doesn't know about
+        jdbcTemplate.update("update folders set name = 'renamed' where id = ?", savedFolder.getId());
+
+        assertThat(folderRepository.findById(savedFolder.getId())).get()
+                .extracting(Folder::getName)
+                .isEqualTo(savedFolder.getName());
+    }
+
+    @Test
+    public void TestThatAChangeOnAnotherNodeEvictsTheCachedFolder() {
+        Folder savedFolder = saveAndCacheFolder();
+
+        // what the other node does: change the row and publish the invalidation
+        jdbcTemplate.update("update folders set name = 'renamed' where id = ?", savedFolder.getId());
+        cacheInvalidationPublisher.folderChanged(savedFolder.getId());
+
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> !entityManagerFactory.getCache().contains(Folder.class, savedFolder.getId()));
+        assertThat(folderRepository.findById(savedFolder.getId())).get()
+                .extracting(Folder::getName)
+                .isEqualTo("renamed");
+    }
+
+    private Folder saveAndCacheFolder() {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        entityManagerFactory.getCache().evict(Folder.class);
+        folderRepository.findById(savedFolder.getId());
+        assertThat(entityManagerFactory.getCache().contains(Folder.class, savedFolder.getId())).isTrue();
+        return savedFolder;
+    }
+}
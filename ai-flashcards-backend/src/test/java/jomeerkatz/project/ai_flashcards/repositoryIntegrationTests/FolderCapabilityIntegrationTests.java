@@ -0,0 +1,91 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.capabilities.FolderCapabilityInterceptor;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class FolderCapabilityIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @MockitoSpyBean
+    private FolderRepository folderRepository;
+
+    private final UserRepository userRepository;
+    private final CardRepository cardRepository;
+    private final MockMvc mockMvc;
+
+    @Autowired
+    public FolderCapabilityIntegrationTests(final UserRepository userRepository, final CardRepository cardRepository,
+                                            final MockMvc mockMvc) {
+        this.userRepository = userRepository;
+        this.cardRepository = cardRepository;
+        this.mockMvc = mockMvc;
+    }
+
+    @Test
+    public void TestThatTheNextPageOfAFolderIsReadWithoutAFolderQuery() throws Exception {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        cardRepository.save(DataUtil.getCardExample1(savedUser, savedFolder));
+        cardRepository.save(DataUtil.getCardExample2(savedUser, savedFolder));
+        cardRepository.save(DataUtil.getCardExample3(savedUser, savedFolder));
+
+        // the first page checks the ownership and hands out a capability for the folder
+        String capability = mockMvc.perform(get("/api/folders/" + savedFolder.getId() + "?page=0&size=2")
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andReturn().getResponse().getHeader(FolderCapabilityInterceptor.HEADER);
+        assertThat(capability).isNotNull();
+        clearInvocations(folderRepository);
+
+        mockMvc.perform(get("/api/folders/" + savedFolder.getId() + "?page=1&size=2")
+                        .header(FolderCapabilityInterceptor.HEADER, capability)
+                        .with(jwt().jwt(jwt -> jwt.subject("keycloak-id-1"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1));
+
+        // only a reference to the granted folder, hibernate doesn't select it
+        verify(folderRepository).getReferenceById(savedFolder.getId());
+        verifyNoMoreInteractions(folderRepository);
+    }
+}
@@ -0,0 +1,102 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.ai.StaleGenerationJobSweeper;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.GenerationJobRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class GenerationJobRecoveryIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("flashcards.ai.stale-job-timeout", () -> "10m");
+    }
+
+    private final GenerationJobRepository generationJobRepository;
+    private final FolderRepository folderRepository;
+    private final UserRepository userRepository;
+    private final StaleGenerationJobSweeper staleGenerationJobSweeper;
+
+    @Autowired
+    public GenerationJobRecoveryIntegrationTests(final GenerationJobRepository generationJobRepository,
+                                                 final FolderRepository folderRepository,
+                                                 final UserRepository userRepository,
+                                                 final StaleGenerationJobSweeper staleGenerationJobSweeper) {
+        this.generationJobRepository = generationJobRepository;
+        this.folderRepository = folderRepository;
+        this.userRepository = userRepository;
+        this.staleGenerationJobSweeper = staleGenerationJobSweeper;
+    }
+
+    @Test
+    public void TestThatJobsOfADeadNodeAreMarkedAsFailed() {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        LocalDateTime beforeTheCrash = LocalDateTime.now().minusHours(1);
+        GenerationJob queuedJob = saveJob(savedUser, savedFolder, GenerationJobStatus.QUEUED, beforeTheCrash);
+        GenerationJob runningJob = saveJob(savedUser, savedFolder, GenerationJobStatus.RUNNING, beforeTheCrash);
+        GenerationJob finishedJob = saveJob(savedUser, savedFolder, GenerationJobStatus.SUCCEEDED, beforeTheCrash);
+
+        assertThat(staleGenerationJobSweeper.failStaleJobs()).isEqualTo(2);
+
+        assertThat(generationJobRepository.findById(queuedJob.getId())).get()
+                .extracting(GenerationJob::getStatus).isEqualTo(GenerationJobStatus.FAILED);
+        GenerationJob interruptedJob = generationJobRepository.findById(runningJob.getId()).orElseThrow();
+        assertThat(interruptedJob.getStatus()).isEqualTo(GenerationJobStatus.FAILED);
+        assertThat(interruptedJob.getErrorMessage()).isNotBlank();
+        assertThat(interruptedJob.getFinishedAt()).isNotNull();
+        assertThat(generationJobRepository.findById(finishedJob.getId())).get()
+                .extracting(GenerationJob::getStatus).isEqualTo(GenerationJobStatus.SUCCEEDED);
+    }
+
+    @Test
+    public void TestThatJobsStillRunningOnAnotherNodeAreKept() {
+        User savedUser = userRepository.save(DataUtil.getUserExample1());
+        Folder savedFolder = folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        GenerationJob runningJob = saveJob(savedUser, savedFolder, GenerationJobStatus.RUNNING, LocalDateTime.now().minusMinutes(1));
+
+        assertThat(staleGenerationJobSweeper.failStaleJobs()).isZero();
+
+        assertThat(generationJobRepository.findById(runningJob.getId())).get()
+                .extracting(GenerationJob::getStatus).isEqualTo(GenerationJobStatus.RUNNING);
+    }
+
+    private GenerationJob saveJob(User user, Folder folder, GenerationJobStatus status, LocalDateTime updatedAt) {
+        return generationJobRepository.save(GenerationJob.builder()
+                .user(user)
+                .folder(folder)
+                .prompt("prompt")
+                .status(status)
+                .createdAt(updatedAt)
+                .updatedAt(updatedAt)
+                .build());
+    }
+}
@@ -0,0 +1,160 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.FolderCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.outbox.OutboxMessage;
+import jomeerkatz.project.ai_flashcards.outbox.OutboxSink;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.OutboxEventRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.FolderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class OutboxIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("flashcards.outbox.poll-interval", () -> "50ms");
+        registry.add("flashcards.outbox.settle-delay", () -> "100ms");
+    }
+
+    @TestConfiguration
+    static class SinkConfig {
+        @Bean
+        RecordingOutboxSink recordingOutboxSink() {
+            return new RecordingOutboxSink();
+        }
+    }
+
+    // keeps every delivered message, fails as many batches as it is told to first
+    static class RecordingOutboxSink implements OutboxSink {
+        private final List<OutboxMessage> published = new CopyOnWriteArrayList<>();
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public void publish(List<OutboxMessage> batch) {
+            if (failuresLeft.getAndUpdate(failures -> Math.max(0, failures - 1)) > 0) {
+                throw new IllegalStateException("sink is down");
+            }
+            published.addAll(batch);
+        }
+    }
+
+    private final FolderService folderService;
+    private final CardService cardService;
+    private final UserRepository userRepository;
+    private final FolderRepository folderRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final RecordingOutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OutboxIntegrationTests(final FolderService folderService, final CardService cardService,
+                                  final UserRepository userRepository, final FolderRepository folderRepository,
+                                  final OutboxEventRepository outboxEventRepository, final RecordingOutboxSink sink,
+                                  final PlatformTransactionManager transactionManager) {
+        this.folderService = folderService;
+        this.cardService = cardService;
+        this.userRepository = userRepository;
+        this.folderRepository = folderRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    public void TestThatOnlyCommittedChangesReachTheOutbox() {
+        User user = userRepository.save(DataUtil.getUserExample1());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            folderService.saveFolder(user, folderRequest("rolled-back"));
+            status.setRollbackOnly();
+        });
+        Folder committedFolder = folderService.saveFolder(user, folderRequest("committed"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !sink.published.isEmpty());
+        assertThat(folderRepository.findAll()).extracting(Folder::getName).containsExactly("committed");
+        assertThat(sink.published).singleElement().satisfies(message -> {
+            assertThat(message.type()).isEqualTo(ChangeType.FOLDER_CREATED);
+            assertThat(message.payload()).contains(committedFolder.getId().toString());
+            assertThat(message.createdAt()).isNotNull();
+        });
+    }
+
+    @Test
+    public void TestThatABatchIsDeliveredAgainAfterTheSinkFailed() {
+        User user = userRepository.save(DataUtil.getUserExample1());
+        sink.failuresLeft.set(2);
+
+        folderService.saveFolder(user, folderRequest("folder"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !sink.published.isEmpty());
+        assertThat(sink.failuresLeft.get()).isZero();
+        assertThat(sink.published).extracting(OutboxMessage::type).containsExactly(ChangeType.FOLDER_CREATED);
+        await().atMost(Duration.ofSeconds(5)).until(() -> outboxEventRepository.count() == 0);
+    }
+
+    @Test
+    public void TestThatTheEventsOfAUserArriveInTheOrderTheyWereWritten() {
+        User user1 = userRepository.save(DataUtil.getUserExample1());
+        User user2 = userRepository.save(DataUtil.getUserExample2());
+
+        Folder folder1 = folderService.saveFolder(user1, folderRequest("folder-1"));
+        folderService.saveFolder(user2, folderRequest("folder-2"));
+        for (int i = 0; i < 3; i++) {
+            cardService.createCard(user1, folder1.getId(), CardCreateUpdateRequest.builder()
+                    .question("question " + i)
+                    .answer("answer " + i)
+                    .build());
+        }
+        folderService.updateFolder(user1, folder1.getId(), folderRequest("folder-1-renamed"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> sink.published.size() == 6);
+        List<OutboxMessage> eventsOfUser1 = sink.published.stream()
+                .filter(message -> message.userId().equals(user1.getId()))
+                .toList();
+        assertThat(eventsOfUser1).extracting(OutboxMessage::type).containsExactly(
+                ChangeType.FOLDER_CREATED, ChangeType.CARD_CREATED, ChangeType.CARD_CREATED, ChangeType.CARD_CREATED,
+                ChangeType.FOLDER_RENAMED);
+        assertThat(eventsOfUser1).extracting(OutboxMessage::id).isSorted();
+    }
+
+    private static FolderCreateUpdateRequest folderRequest(String name) {
+        return FolderCreateUpdateRequest.builder().name(name).build();
+    }
+}
@@ -0,0 +1,136 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.domain.enums.RollupGranularity;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.repositories.CardReviewRepository;
+import jomeerkatz.project.ai_flashcards.repositories.ProgressBucket;
+import jomeerkatz.project.ai_flashcards.repositories.ReviewRollupRepository;
+import jomeerkatz.project.ai_flashcards.reviews.ReviewLogWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class ReviewRollupRepositoryIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("flashcards.reviews.flush-interval", () -> "50ms");
+    }
+
+    private static final Long USER_ID = 1L;
+    private static final Long FOLDER_A = 10L;
+    private static final Long FOLDER_B = 20L;
+
+    private final ReviewLogWriter reviewLogWriter;
+    private final ReviewRollupRepository reviewRollupRepository;
+    private final CardReviewRepository cardReviewRepository;
+
+    @Autowired
+    public ReviewRollupRepositoryIntegrationTests(final ReviewLogWriter reviewLogWriter,
+                                                  final ReviewRollupRepository reviewRollupRepository,
+                                                  final CardReviewRepository cardReviewRepository) {
+        this.reviewLogWriter = reviewLogWriter;
+        this.reviewRollupRepository = reviewRollupRepository;
+        this.cardReviewRepository = cardReviewRepository;
+    }
+
+    @Test
+    public void TestThatReviewsOfTheSameBucketAreAddedUpAcrossBatches() {
+        LocalDateTime tenOClock = LocalDateTime.of(2026, 1, 1, 10, 0);
+        review(FOLDER_A, CardStatus.GOOD, tenOClock.plusMinutes(5));
+        review(FOLDER_A, CardStatus.BAD, tenOClock.plusMinutes(30));
+        awaitReviews(2);
+
+        // the second batch hits the existing rows, the upsert adds to them
+        review(FOLDER_A, CardStatus.GOOD, tenOClock.plusMinutes(59));
+        review(FOLDER_A, CardStatus.MEDIUM, tenOClock.plusMinutes(10));
+        awaitReviews(4);
+
+        assertThat(reviewRollupRepository.sumByBucket(USER_ID, FOLDER_A, RollupGranularity.HOUR, tenOClock, tenOClock.plusHours(1)))
+                .extracting(ProgressBucket::getBucketStart, ProgressBucket::getGoodCount, ProgressBucket::getMediumCount, ProgressBucket::getBadCount)
+                .containsExactly(tuple(tenOClock, 2L, 1L, 1L));
+        assertThat(reviewRollupRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    public void TestThatReviewsAreCountedIntoTheBucketTheyStartedIn() {
+        LocalDateTime tenOClock = LocalDateTime.of(2026, 1, 1, 10, 0);
+        LocalDateTime midnight = LocalDateTime.of(2026, 1, 2, 0, 0);
+        review(FOLDER_A, CardStatus.GOOD, tenOClock.minusNanos(1_000));
+        review(FOLDER_A, CardStatus.BAD, tenOClock);
+        review(FOLDER_B, CardStatus.MEDIUM, midnight.minusSeconds(1));
+        review(FOLDER_A, CardStatus.GOOD, midnight);
+        awaitReviews(4);
+
+        assertThat(reviewRollupRepository.sumByBucket(USER_ID, FOLDER_A, RollupGranularity.HOUR, tenOClock.minusHours(1), tenOClock.plusHours(1)))
+                .extracting(ProgressBucket::getBucketStart, ProgressBucket::getGoodCount, ProgressBucket::getBadCount)
+                .containsExactly(tuple(tenOClock.minusHours(1), 1L, 0L), tuple(tenOClock, 0L, 1L));
+        // a null folder sums up all folders of the user
+        assertThat(reviewRollupRepository.sumByBucket(USER_ID, null, RollupGranularity.DAY, midnight.minusDays(1), midnight.plusDays(1)))
+                .extracting(ProgressBucket::getBucketStart, ProgressBucket::getGoodCount, ProgressBucket::getMediumCount, ProgressBucket::getBadCount)
+                .containsExactly(tuple(midnight.minusDays(1), 1L, 1L, 1L), tuple(midnight, 1L, 0L, 0L));
+    }
+
+    @Test
+    public void TestThatTheRangeIncludesItsStartAndExcludesItsEnd() {
+        LocalDateTime tenOClock = LocalDateTime.of(2026, 1, 1, 10, 0);
+        review(FOLDER_A, CardStatus.GOOD, tenOClock.minusMinutes(1));
+        review(FOLDER_A, CardStatus.GOOD, tenOClock);
+        review(FOLDER_A, CardStatus.GOOD, tenOClock.plusHours(1));
+        awaitReviews(3);
+
+        List<ProgressBucket> buckets = reviewRollupRepository.sumByBucket(USER_ID, FOLDER_A, RollupGranularity.HOUR,
+                tenOClock, tenOClock.plusHours(1));
+
+        assertThat(buckets).extracting(ProgressBucket::getBucketStart).containsExactly(tenOClock);
+    }
+
+    // both listeners of a status change, the review is stored right away and counted into the rollups later
+    private void review(Long folderId, CardStatus status, LocalDateTime reviewedAt) {
+        UserChangeEvent event = new UserChangeEvent("keycloak-id-1", USER_ID, ChangeEventDto.builder()
+                .type(ChangeType.CARD_STATUS_CHANGED)
+                .folderId(folderId)
+                .cardId(100L)
+                .status(status)
+                .occurredAt(reviewedAt)
+                .build());
+        reviewLogWriter.logReview(event);
+        reviewLogWriter.onChange(event);
+    }
+
+    // every review is counted once into a daily rollup
+    private void awaitReviews(long count) {
+        assertThat(cardReviewRepository.count()).isEqualTo(count);
+        await().atMost(Duration.ofSeconds(5)).until(() -> reviewRollupRepository.findAll().stream()
+                .filter(rollup -> rollup.getGranularity() == RollupGranularity.DAY)
+                .mapToLong(rollup -> rollup.getGoodCount() + rollup.getMediumCount() + rollup.getBadCount())
+                .sum() == count);
+    }
+}
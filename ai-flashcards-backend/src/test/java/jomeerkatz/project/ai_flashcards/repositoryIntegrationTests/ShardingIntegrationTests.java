@@ -0,0 +1,181 @@
+package jomeerkatz.project.ai_flashcards.repositoryIntegrationTests;
+
+import jakarta.persistence.EntityManagerFactory;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.UserRepository;
+import jomeerkatz.project.ai_flashcards.services.ShardMigrationService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.sharding.ShardIds;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ActiveProfiles("test")
+@Testcontainers
+public class ShardingIntegrationTests {
+    @Container
+    static PostgreSQLContainer<?> shard0 = new PostgreSQLContainer<>("postgres:17");
+
+    @Container
+    static PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:17");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("flashcards.sharding.enabled", () -> "true");
+        registry.add("flashcards.sharding.directory-shard", () -> "0");
+        registry.add("flashcards.sharding.assignment-cache-ttl", () -> "100ms");
+        registry.add("flashcards.sharding.copy-batch-size", () -> "2");
+        registry.add("flashcards.sharding.shards[0].id", () -> "0");
+        registry.add("flashcards.sharding.shards[0].url", shard0::getJdbcUrl);
+        registry.add("flashcards.sharding.shards[0].username", shard0::getUsername);
+        registry.add("flashcards.sharding.shards[0].password", shard0::getPassword);
+        registry.add("flashcards.sharding.shards[1].id", () -> "1");
+        registry.add("flashcards.sharding.shards[1].url", shard1::getJdbcUrl);
+        registry.add("flashcards.sharding.shards[1].username", shard1::getUsername);
+        registry.add("flashcards.sharding.shards[1].password", shard1::getPassword);
+        registry.add("flashcards.outbox.relay-enabled", () -> "false");
+        registry.add("flashcards.cache.invalidation.enabled", () -> "false");
+    }
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final FolderRepository folderRepository;
+    private final CardRepository cardRepository;
+    private final ShardDataSources shardDataSources;
+    private final ShardDirectory shardDirectory;
+    private final ShardMigrationService shardMigrationService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MockMvc mockMvc;
+
+    @Autowired
+    public ShardingIntegrationTests(final UserService userService, final UserRepository userRepository,
+                                    final FolderRepository folderRepository, final CardRepository cardRepository,
+                                    final ShardDataSources shardDataSources, final ShardDirectory shardDirectory,
+                                    final ShardMigrationService shardMigrationService,
+                                    final EntityManagerFactory entityManagerFactory, final MockMvc mockMvc) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.folderRepository = folderRepository;
+        this.cardRepository = cardRepository;
+        this.shardDataSources = shardDataSources;
+        this.shardDirectory = shardDirectory;
+        this.shardMigrationService = shardMigrationService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.mockMvc = mockMvc;
+    }
+
+    // hibernate only creates the schema on the directory shard
+    @BeforeEach
+    public void createSchemaOnShard1() {
+        ShardContext.callOn(1, () -> {
+            entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().dropMappedObjects(false);
+            entityManagerFactory.unwrap(SessionFactory.class).getSchemaManager().exportMappedObjects(false);
+            return null;
+        });
+    }
+
+    @Test
+    public void TestThatAUserCreatedOnAShardGetsAnIdComposedWithThatShard() {
+        User savedUser = ShardContext.callOn(1, () -> userService.createOrFindUser(DataUtil.getUserExample1()));
+
+        assertThat(ShardIds.isComposed(savedUser.getId())).isTrue();
+        assertThat(ShardIds.shardOf(savedUser.getId())).isEqualTo(1);
+        assertThat(countUsers(1, savedUser.getId())).isEqualTo(1);
+        assertThat(countUsers(0, savedUser.getId())).isZero();
+    }
+
+    @Test
+    public void TestThatRequestsOfAUserAreRoutedToItsShard() throws Exception {
+        User user = DataUtil.getUserExample1();
+        int shardId = shardDirectory.resolve(user.getKeycloakId()).getShardId();
+        ShardContext.callOn(shardId, () -> {
+            User savedUser = userRepository.save(user);
+            return folderRepository.save(DataUtil.getFolderExample1(savedUser));
+        });
+
+        mockMvc.perform(get("/api/folders").with(jwt().jwt(jwt -> jwt.subject(user.getKeycloakId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("folder-name-1"));
+    }
+
+    @Test
+    public void TestThatMovingALegacyUserKeepsItsIdsWithoutCollidingWithTheTargetShard() {
+        // a user of the target shard, its id without the composed base is what a legacy id can look like
+        User shard1User = ShardContext.callOn(1, () -> userRepository.save(DataUtil.getUserExample2()));
+        long legacyId = shard1User.getId() - ShardIds.COMPOSED_ID_BASE;
+        new JdbcTemplate(shardDataSources.get(0)).update(
+                "insert into users (id, keycloak_id, created_at, updated_at) values (?, ?, ?, ?)",
+                legacyId, "legacy-user", LocalDateTime.now(), LocalDateTime.now());
+        Card legacyCard = ShardContext.callOn(0, () -> {
+            User legacyUser = userRepository.findById(legacyId).orElseThrow();
+            Folder folder = folderRepository.save(DataUtil.getFolderExample1(legacyUser));
+            cardRepository.save(DataUtil.getCardExample2(legacyUser, folder));
+            cardRepository.save(DataUtil.getCardExample3(legacyUser, folder));
+            return cardRepository.save(DataUtil.getCardExample1(legacyUser, folder));
+        });
+        // more rows than one batch of the copy, the rollups are paged by their composite key
+        LocalDateTime tenOClock = LocalDateTime.of(2026, 1, 1, 10, 0);
+        for (int hour = 0; hour < 3; hour++) {
+            new JdbcTemplate(shardDataSources.get(0)).update(
+                    "insert into review_rollups (user_id, folder_id, granularity, bucket_start, good_count, medium_count, bad_count) " +
+                            "values (?, ?, 'HOUR', ?, 1, 0, 0)",
+                    legacyId, legacyCard.getFolder().getId(), tenOClock.plusHours(hour));
+        }
+        assertThat(shardDirectory.resolve("legacy-user").getShardId()).isZero();
+
+        shardMigrationService.moveUser("legacy-user", 1);
+
+        // the copy runs in the background, the old rows are deleted last
+        await().atMost(Duration.ofSeconds(10)).until(() -> countUsers(0, legacyId) == 0);
+        assertThat(new JdbcTemplate(shardDataSources.get(0)).queryForObject(
+                "select shard_id from user_shard_directory where keycloak_id = ?", Integer.class, "legacy-user")).isEqualTo(1);
+        assertThat(countUsers(1, legacyId)).isEqualTo(1);
+        assertThat(countUsers(1, shard1User.getId())).isEqualTo(1);
+        assertThat(new JdbcTemplate(shardDataSources.get(1)).queryForObject(
+                "select count(*) from cards where id = ? and user_id = ?", Long.class, legacyCard.getId(), legacyId)).isEqualTo(1);
+        assertThat(new JdbcTemplate(shardDataSources.get(1)).queryForObject(
+                "select count(*) from cards where user_id = ?", Long.class, legacyId)).isEqualTo(3);
+        assertThat(new JdbcTemplate(shardDataSources.get(1)).queryForObject(
+                "select count(*) from review_rollups where user_id = ?", Long.class, legacyId)).isEqualTo(3);
+        assertThat(new JdbcTemplate(shardDataSources.get(0)).queryForObject(
+                "select count(*) from cards where user_id = ?", Long.class, legacyId)).isZero();
+    }
+
+    private long countUsers(int shardId, Long userId) {
+        return new JdbcTemplate(shardDataSources.get(shardId))
+                .queryForObject("select count(*) from users where id = ?", Long.class, userId);
+    }
+}
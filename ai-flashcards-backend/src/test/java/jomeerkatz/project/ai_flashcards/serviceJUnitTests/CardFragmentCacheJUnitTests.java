@@ -0,0 +1,49 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.config.CardFragmentCacheProperties;
+import jomeerkatz.project.ai_flashcards.streaming.CardFragmentCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CardFragmentCacheJUnitTests {
+    private SimpleMeterRegistry meterRegistry;
+    private CardFragmentCache cardFragmentCache;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cardFragmentCache = new CardFragmentCache(new CardFragmentCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    public void TestThatAFragmentIsOnlyServedForTheVersionItWasEncodedFrom() {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 1, 10, 0);
+        byte[] json = "{\"id\":5}".getBytes(StandardCharsets.UTF_8);
+
+        cardFragmentCache.put(5L, updatedAt, json);
+
+        assertThat(cardFragmentCache.get(5L, updatedAt)).isEqualTo(json);
+        assertThat(cardFragmentCache.get(5L, updatedAt.plusSeconds(1))).isNull();
+        assertThat(cardFragmentCache.get(6L, updatedAt)).isNull();
+        assertThat(meterRegistry.counter("flashcards.card.fragments.lookups", "outcome", "hit").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("flashcards.card.fragments.lookups", "outcome", "miss").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void TestThatAnEditedCardReplacesItsOldFragment() {
+        LocalDateTime updatedAt = LocalDateTime.of(2026, 1, 1, 10, 0);
+
+        cardFragmentCache.put(5L, updatedAt, "{\"id\":5,\"version\":0}".getBytes(StandardCharsets.UTF_8));
+        cardFragmentCache.put(5L, updatedAt.plusMinutes(1), "{\"id\":5,\"version\":1}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(cardFragmentCache.get(5L, updatedAt)).isNull();
+        assertThat(new String(cardFragmentCache.get(5L, updatedAt.plusMinutes(1)), StandardCharsets.UTF_8))
+                .isEqualTo("{\"id\":5,\"version\":1}");
+    }
+}
@@ -0,0 +1,51 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import jomeerkatz.project.ai_flashcards.config.PartitioningProperties;
+import jomeerkatz.project.ai_flashcards.domain.dtos.PartitionMigrationDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.PartitionMigrationStatus;
+import jomeerkatz.project.ai_flashcards.services.impl.CardPartitioningServiceImpl;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDataSources;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CardPartitioningServiceImplJUnitTests {
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private ObjectProvider<ShardDataSources> shardDataSources;
+
+    private CardPartitioningServiceImpl cardPartitioningService;
+
+    @AfterEach
+    public void close() {
+        cardPartitioningService.close();
+    }
+
+    @Test
+    public void TestThatAFailedBackgroundMigrationIsReportedAndCanBeStartedAgain() throws SQLException {
+        cardPartitioningService = new CardPartitioningServiceImpl(new PartitioningProperties(), dataSource, shardDataSources);
+        when(dataSource.getConnection()).thenThrow(new SQLException("database is down"));
+
+        PartitionMigrationDto started = cardPartitioningService.startMigration();
+
+        assertThat(started.getStatus()).isEqualTo(PartitionMigrationStatus.RUNNING);
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> cardPartitioningService.getMigration().getStatus() == PartitionMigrationStatus.FAILED);
+        assertThat(cardPartitioningService.getMigration().getError()).isNotBlank();
+        assertThat(cardPartitioningService.startMigration().getStatus()).isEqualTo(PartitionMigrationStatus.RUNNING);
+    }
+}
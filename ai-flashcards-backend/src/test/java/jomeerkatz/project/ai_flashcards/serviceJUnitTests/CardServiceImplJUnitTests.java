@@ -0,0 +1,257 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.capabilities.FolderCapabilityContext;
+import jomeerkatz.project.ai_flashcards.coalescing.ReadCoalescer;
+import jomeerkatz.project.ai_flashcards.config.LearningQueueProperties;
+import jomeerkatz.project.ai_flashcards.config.ReadCoalescingProperties;
+import jomeerkatz.project.ai_flashcards.config.ReadFallbackProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.exceptions.CardException;
+import jomeerkatz.project.ai_flashcards.exceptions.CardVersionConflictException;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.CardSchedule;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
+import jomeerkatz.project.ai_flashcards.reviews.SpacedRepetition;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.services.impl.CardServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CardServiceImplJUnitTests {
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Spy
+    private StaleReadCache staleReadCache = new StaleReadCache(new ReadFallbackProperties(),
+            new ReadCoalescer(new ReadCoalescingProperties(), new SimpleMeterRegistry()), new SimpleMeterRegistry());
+
+    @Spy
+    private LearningQueueProperties learningQueueProperties = new LearningQueueProperties();
+
+    @InjectMocks
+    private CardServiceImpl cardService;
+
+    @Test
+    public void TestThatUpdateCardIsOneConditionalUpdateWithoutLoadingTheCard() {
+        User newUser = DataUtil.getUserExample1WithId();
+        CardCreateUpdateRequest request = CardCreateUpdateRequest.builder()
+                .question("question")
+                .answer("answer")
+                .version(3L)
+                .build();
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(cardRepository.updateTextByIdAndUserIdAndFolderId(eq(5L), eq(newUser.getId()), eq(1L), eq(3L), eq("question"), eq("answer"), any()))
+                .thenReturn(1);
+
+        cardService.updateCard(newUser, 1L, request, 5L);
+
+        verify(cardRepository, never()).findByIdAndUserIdAndFolderId(any(), any(), any());
+        verifyNoInteractions(folderRepository);
+        verify(applicationEventPublisher).publishEvent(any(UserChangeEvent.class));
+    }
+
+    @Test
+    public void TestThatAGrantedFolderCapabilitySkipsTheOwnershipCheck() {
+        User newUser = DataUtil.getUserExample1WithId();
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(folderRepository.getReferenceById(1L))
+                .thenReturn(Folder.builder().id(1L).build());
+        when(cardRepository.countByUserIdAndFolderId(newUser.getId(), 1L))
+                .thenReturn(3L);
+
+        FolderCapabilityContext.grant(1L);
+        try {
+            assertThat(cardService.getCountOfCardsByFoldeId(newUser, 1L)).isEqualTo(3L);
+        } finally {
+            FolderCapabilityContext.clear();
+        }
+
+        verify(folderRepository, never()).findById(any());
+        verify(folderRepository, never()).existsByUserIdAndName(any(), any());
+    }
+
+    @Test
+    public void TestThatUpdatedCardStatusWithOutdatedVersionThrowsCardVersionConflictException() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(cardRepository.findScheduleByIdAndUserIdAndFolderId(5L, newUser.getId(), newFolder.getId()))
+                .thenReturn(Optional.of(schedule(3L, 2.5, 0, 0)));
+
+        assertThatThrownBy(() -> cardService.updatedCardStatus(newUser, newFolder.getId(), 5L, CardStatus.GOOD, 2L))
+                .isInstanceOf(CardVersionConflictException.class);
+        verify(cardRepository, never()).updateReviewByIdAndUserIdAndFolderId(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(applicationEventPublisher);
+    }
+
+    @Test
+    public void TestThatUpdatedCardStatusSchedulesTheNextReviewBySm2() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(cardRepository.findScheduleByIdAndUserIdAndFolderId(5L, newUser.getId(), newFolder.getId()))
+                .thenReturn(Optional.of(schedule(4L, 2.5, 6, 2)));
+        when(cardRepository.updateReviewByIdAndUserIdAndFolderId(eq(5L), eq(newUser.getId()), eq(newFolder.getId()), eq(4L),
+                eq(CardStatus.GOOD), eq(2.6), eq(15), eq(3), any(), any()))
+                .thenReturn(1);
+
+        LocalDateTime before = LocalDateTime.now();
+        cardService.updatedCardStatus(newUser, newFolder.getId(), 5L, CardStatus.GOOD, null);
+
+        ArgumentCaptor<LocalDateTime> dueAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(cardRepository).updateReviewByIdAndUserIdAndFolderId(any(), any(), any(), any(), any(), any(), any(), any(), dueAt.capture(), any());
+        assertThat(dueAt.getValue()).isAfterOrEqualTo(before.plusDays(15));
+    }
+
+    @Test
+    public void TestThatAFailedAnswerMakesTheCardDueAgainAndLowersTheEaseFactor() {
+        LocalDateTime answeredAt = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+        SpacedRepetition.Schedule schedule = SpacedRepetition.next(1.5, 20, 5, CardStatus.BAD, answeredAt);
+
+        assertThat(schedule.repetitions()).isZero();
+        assertThat(schedule.intervalDays()).isZero();
+        assertThat(schedule.dueAt()).isEqualTo(answeredAt);
+        assertThat(schedule.easeFactor()).isEqualTo(1.3);
+    }
+
+    @Test
+    public void TestThatUpdatedCardStatusOfMissingCardThrowsCardException() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(cardRepository.findScheduleByIdAndUserIdAndFolderId(5L, newUser.getId(), newFolder.getId()))
+                .thenReturn(Optional.empty());
+        when(folderRepository.findById(newFolder.getId()))
+                .thenReturn(Optional.of(newFolder));
+        when(folderRepository.existsByUserIdAndName(newUser.getId(), newFolder.getName()))
+                .thenReturn(true);
+        when(cardRepository.existsByIdAndUserIdAndFolderId(5L, newUser.getId(), newFolder.getId()))
+                .thenReturn(false);
+
+        assertThatThrownBy(() -> cardService.updatedCardStatus(newUser, newFolder.getId(), 5L, CardStatus.GOOD, null))
+                .isInstanceOf(CardException.class);
+    }
+
+    @Test
+    public void TestThatGetLearningQueueMergesTheHeadsOfAllFoldersByStatusAndOldestUpdate() {
+        User newUser = DataUtil.getUserExample1WithId();
+        LocalDateTime now = LocalDateTime.now();
+        Card badInFolder1 = Card.builder().id(1L).status(CardStatus.BAD).updatedAt(now.minusHours(1)).build();
+        Card goodInFolder1 = Card.builder().id(2L).status(CardStatus.GOOD).updatedAt(now.minusDays(9)).build();
+        Card badInFolder2 = Card.builder().id(3L).status(CardStatus.BAD).updatedAt(now.minusHours(5)).build();
+        Card mediumInFolder2 = Card.builder().id(4L).status(CardStatus.MEDIUM).updatedAt(now.minusDays(3)).build();
+        Map<String, List<Card>> heads = Map.of(
+                "1:BAD", List.of(badInFolder1),
+                "1:GOOD", List.of(goodInFolder1),
+                "2:BAD", List.of(badInFolder2),
+                "2:MEDIUM", List.of(mediumInFolder2));
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(folderRepository.findIdsByUserId(newUser.getId(), Limit.of(50)))
+                .thenReturn(List.of(1L, 2L));
+        when(cardRepository.findLearningHeadByUserIdAndFolderId(eq(newUser.getId()), any(), any(), eq(Limit.of(3))))
+                .thenAnswer(invocation -> heads.getOrDefault(invocation.getArgument(1) + ":" + invocation.getArgument(2), List.of()));
+
+        List<Card> learningQueue = cardService.getLearningQueue(newUser, null, 3);
+
+        assertThat(learningQueue).containsExactly(badInFolder2, badInFolder1, mediumInFolder2);
+        verify(cardRepository, never()).findLearningHeadByUserIdAndFolderIdAfter(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void TestThatGetLearningQueueReadsTheHeadsWithTheDeadlineOfTheRequest() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<Long> readDeadlines = new CopyOnWriteArrayList<>();
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(folderRepository.findIdsByUserId(newUser.getId(), Limit.of(50)))
+                .thenReturn(List.of(1L, 2L));
+        when(cardRepository.findLearningHeadByUserIdAndFolderId(eq(newUser.getId()), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    readDeadlines.add(RequestDeadline.current());
+                    return List.of();
+                });
+
+        RequestDeadline.callWith(deadline, () -> cardService.getLearningQueue(newUser, null, 3));
+
+        // three statuses of two folders, all read on the worker threads
+        assertThat(readDeadlines).hasSize(6).containsOnly(deadline);
+    }
+
+    private static CardSchedule schedule(Long version, Double easeFactor, Integer intervalDays, Integer repetitions) {
+        return new CardSchedule() {
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public Double getEaseFactor() {
+                return easeFactor;
+            }
+
+            @Override
+            public Integer getIntervalDays() {
+                return intervalDays;
+            }
+
+            @Override
+            public Integer getRepetitions() {
+                return repetitions;
+            }
+        };
+    }
+}
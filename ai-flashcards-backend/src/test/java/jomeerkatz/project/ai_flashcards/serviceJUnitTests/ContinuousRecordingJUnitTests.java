@@ -0,0 +1,109 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.config.FlightRecorderProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.exceptions.UserNotFoundException;
+import jomeerkatz.project.ai_flashcards.flightrecorder.ContinuousRecording;
+import jomeerkatz.project.ai_flashcards.flightrecorder.ServiceCallPostProcessor;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ContinuousRecordingJUnitTests {
+    private final ContinuousRecording continuousRecording = new ContinuousRecording(new FlightRecorderProperties());
+
+    private final UserService userService = (UserService) new ServiceCallPostProcessor()
+            .postProcessAfterInitialization(new KnownUsersService(), "userService");
+
+    @BeforeEach
+    public void startRecording() {
+        continuousRecording.start();
+    }
+
+    @AfterEach
+    public void stopRecording() {
+        continuousRecording.stop();
+    }
+
+    @Test
+    public void TestThatTheDumpContainsAnEventPerServiceCallWithTheUserAndTheRows() throws IOException {
+        User user = DataUtil.getUserExample1WithId();
+
+        userService.getUserOrThrow(user);
+
+        List<RecordedEvent> events = serviceCalls(dump(), user);
+        assertThat(events).hasSize(1);
+        assertThat(events.getFirst().getString("service")).isEqualTo("KnownUsersService");
+        assertThat(events.getFirst().getString("method")).isEqualTo("getUserOrThrow");
+        assertThat(events.getFirst().getString("user")).isEqualTo(user.getKeycloakId());
+        assertThat(events.getFirst().getLong("rows")).isEqualTo(1);
+        assertThat(events.getFirst().getString("exception")).isNull();
+    }
+
+    @Test
+    public void TestThatAFailedServiceCallIsRecordedWithItsException() throws IOException {
+        User unknownUser = User.builder().keycloakId("unknown").build();
+
+        assertThatThrownBy(() -> userService.getUserOrThrow(unknownUser))
+                .isInstanceOf(UserNotFoundException.class);
+
+        List<RecordedEvent> events = serviceCalls(dump(), unknownUser);
+        assertThat(events).hasSize(1);
+        assertThat(events.getFirst().getString("exception")).isEqualTo(UserNotFoundException.class.getName());
+        assertThat(events.getFirst().getLong("rows")).isZero();
+    }
+
+    private Path dump() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        continuousRecording.dump(Duration.ofMinutes(1), out);
+        Path file = Files.createTempFile("flashcards-test-", ".jfr");
+        Files.write(file, out.toByteArray());
+        return file;
+    }
+
+    // other recordings of the jvm (e.g. of spring contexts of other tests) end up in the dump as well
+    private static List<RecordedEvent> serviceCalls(Path file, User user) throws IOException {
+        try {
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("jomeerkatz.flashcards.ServiceCall"))
+                    .filter(event -> user.getKeycloakId().equals(event.getString("user")))
+                    .toList();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public static class KnownUsersService implements UserService {
+        @Override
+        public User createOrFindUser(User user) {
+            return user;
+        }
+
+        @Override
+        public User getUserOrThrow(User user) {
+            if (!DataUtil.getUserExample1WithId().getKeycloakId().equals(user.getKeycloakId())) {
+                throw new UserNotFoundException("User not found with keycloak id!");
+            }
+            return user;
+        }
+
+        @Override
+        public boolean provisionUser(String keycloakId) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import jomeerkatz.project.ai_flashcards.config.FolderCapabilityProperties;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.services.impl.FolderCapabilityServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FolderCapabilityServiceImplJUnitTests {
+    @Mock
+    private FolderRepository folderRepository;
+
+    private FolderCapabilityServiceImpl folderCapabilityService;
+
+    @BeforeEach
+    public void setUp() {
+        FolderCapabilityProperties properties = new FolderCapabilityProperties();
+        properties.setSecret("test-secret");
+        folderCapabilityService = new FolderCapabilityServiceImpl(folderRepository, properties);
+    }
+
+    @Test
+    public void TestThatAnIssuedCapabilityIsOnlyValidForItsUserAndFolder() {
+        when(folderRepository.existsByIdAndUserKeycloakId(1L, "owner"))
+                .thenReturn(true);
+
+        String token = folderCapabilityService.issueIfOwner("owner", 1L).orElseThrow();
+
+        assertThat(folderCapabilityService.verify(token, "owner", 1L)).isTrue();
+        assertThat(folderCapabilityService.verify(token, "someone-else", 1L)).isFalse();
+        assertThat(folderCapabilityService.verify(token, "owner", 2L)).isFalse();
+        assertThat(folderCapabilityService.verify(token.replace("1.", "2."), "owner", 2L)).isFalse();
+    }
+
+    @Test
+    public void TestThatNoCapabilityIsIssuedForAForeignFolder() {
+        when(folderRepository.existsByIdAndUserKeycloakId(1L, "someone-else"))
+                .thenReturn(false);
+
+        Optional<String> token = folderCapabilityService.issueIfOwner("someone-else", 1L);
+
+        assertThat(token).isEmpty();
+    }
+
+    @Test
+    public void TestThatARevokedFolderRejectsOlderCapabilities() throws InterruptedException {
+        when(folderRepository.existsByIdAndUserKeycloakId(1L, "owner"))
+                .thenReturn(true);
+        String token = folderCapabilityService.issueIfOwner("owner", 1L).orElseThrow();
+
+        folderCapabilityService.revoke(1L);
+        Thread.sleep(2);
+
+        assertThat(folderCapabilityService.verify(token, "owner", 1L)).isFalse();
+        String reissued = folderCapabilityService.issueIfOwner("owner", 1L).orElseThrow();
+        assertThat(folderCapabilityService.verify(reissued, "owner", 1L)).isTrue();
+    }
+}
@@ -1,9 +1,14 @@
 package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
 
 import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.domain.FolderSummary;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
 import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
 import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.exceptions.FolderAccessDeniedException;
 import jomeerkatz.project.ai_flashcards.exceptions.FolderAlreadyExistsException;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderCardCount;
 import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
 import jomeerkatz.project.ai_flashcards.services.UserService;
 import jomeerkatz.project.ai_flashcards.services.impl.FolderServiceImpl;
@@ -12,11 +17,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +39,12 @@ public class FolderServiceImplJUnitTests {
     @Mock
     private UserService userService;
 
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Mock
+    private CardRepository cardRepository;
+
     @InjectMocks
     private FolderServiceImpl folderService;
 
@@ -64,6 +82,54 @@ public class FolderServiceImplJUnitTests {
                         .hasMessage("folder with name " + DataUtil.getFolderCreateUpdateRequest().getName() + " already exists!");
 
     }
+    @Test
+    public void TestThatFolderSummariesContainCountsAndFirstCardsInRequestedOrder() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder folderWithCards = DataUtil.getFolderExample1WithId(newUser);
+        Folder emptyFolder = DataUtil.getFolderExample1WithId(newUser);
+        emptyFolder.setId(2L);
+        Card card = DataUtil.getCardExample1(newUser, folderWithCards);
+        FolderCardCount count = new FolderCardCount() {
+            public Long getFolderId() { return folderWithCards.getId(); }
+            public long getCardCount() { return 7; }
+        };
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(folderRepository.findAllByUserIdAndIdIn(eq(newUser.getId()), any()))
+                .thenReturn(List.of(folderWithCards, emptyFolder));
+        when(cardRepository.countByUserIdGroupedByFolderId(eq(newUser.getId()), any()))
+                .thenReturn(List.of(count));
+        when(cardRepository.findAllByUserIdAndFolderId(eq(newUser.getId()), eq(folderWithCards.getId()), any()))
+                .thenReturn(new PageImpl<>(List.of(card)));
+        when(cardRepository.findAllByUserIdAndFolderId(eq(newUser.getId()), eq(emptyFolder.getId()), any()))
+                .thenReturn(Page.empty());
+
+        List<FolderSummary> result = folderService.getFolderSummaries(newUser, List.of(emptyFolder.getId(), folderWithCards.getId()), 3);
+
+        assertThat(result).extracting(summary -> summary.getFolder().getId())
+                .containsExactly(emptyFolder.getId(), folderWithCards.getId());
+        assertThat(result.get(0).getCardCount()).isZero();
+        assertThat(result.get(0).getFirstCards()).isEmpty();
+        assertThat(result.get(1).getCardCount()).isEqualTo(7);
+        assertThat(result.get(1).getFirstCards()).containsExactly(card);
+    }
+
+    @Test
+    public void TestThatFolderSummariesFailWhenOneFolderIsNotTheUsers() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+
+        when(userService.getUserOrThrow(newUser))
+                .thenReturn(newUser);
+        when(folderRepository.findAllByUserIdAndIdIn(eq(newUser.getId()), any()))
+                .thenReturn(List.of(newFolder));
+
+        assertThatThrownBy(() -> folderService.getFolderSummaries(newUser, List.of(newFolder.getId(), 99L), 3))
+                .isInstanceOf(FolderAccessDeniedException.class);
+        verifyNoInteractions(cardRepository);
+    }
+
     // more tests could be implemented later. todo:
     //    Folder saveFolder(User user, FolderCreateUpdateRequest folderCreateUpdateRequest);
     //    Page<Folder> getAllFolders(User user, Pageable pageable);
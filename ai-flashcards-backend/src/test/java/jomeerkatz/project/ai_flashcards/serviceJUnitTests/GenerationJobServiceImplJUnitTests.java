@@ -0,0 +1,158 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import com.sun.net.httpserver.HttpServer;
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.ai.OpenAiCompatibleClient;
+import jomeerkatz.project.ai_flashcards.config.AiGenerationProperties;
+import jomeerkatz.project.ai_flashcards.domain.CardCreateUpdateRequest;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.GenerationJob;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.enums.GenerationJobStatus;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.repositories.GenerationJobRepository;
+import jomeerkatz.project.ai_flashcards.services.CardService;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.services.impl.GenerationJobServiceImpl;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class GenerationJobServiceImplJUnitTests {
+    private static final String MODEL_ANSWER =
+            "{\"flashcards\": [{\"question\": \"What is {x}?\", \"answer\": \"A \\\"placeholder\\\"\"},"
+                    + " {\"question\": \"Why?\", \"answer\": \"Because [reasons]\"}]}";
+
+    @Mock
+    private GenerationJobRepository generationJobRepository;
+
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private ObjectProvider<ShardDirectory> shardDirectory;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private HttpServer stubModelServer;
+    private GenerationJobServiceImpl generationJobService;
+
+    @BeforeEach
+    public void startStubModelServer() throws IOException {
+        // local stand-in for the OpenAI compatible api, streams the answer in chunks of a few characters
+        stubModelServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubModelServer.createContext("/v1/chat/completions", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                for (int i = 0; i < MODEL_ANSWER.length(); i += 7) {
+                    String content = MODEL_ANSWER.substring(i, Math.min(MODEL_ANSWER.length(), i + 7));
+                    String chunk = objectMapper.writeValueAsString(
+                            Map.of("choices", List.of(Map.of("delta", Map.of("content", content)))));
+                    body.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                }
+                body.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        stubModelServer.start();
+
+        AiGenerationProperties properties = new AiGenerationProperties();
+        properties.setBaseUrl("http://localhost:" + stubModelServer.getAddress().getPort() + "/v1");
+        // jobs run right away on the calling thread
+        generationJobService = new GenerationJobServiceImpl(generationJobRepository, folderRepository, userService,
+                cardService, new OpenAiCompatibleClient(properties, objectMapper), objectMapper, properties, Runnable::run,
+                shardDirectory);
+    }
+
+    @AfterEach
+    public void stopStubModelServer() {
+        stubModelServer.stop(0);
+    }
+
+    @Test
+    public void TestThatStreamedCardsAreStoredOneByOneAndJobSucceeds() {
+        User user = DataUtil.getUserExample1WithId();
+        Folder folder = DataUtil.getFolderExample1WithId(user);
+
+        when(userService.getUserOrThrow(user)).thenReturn(user);
+        when(folderRepository.findById(folder.getId())).thenReturn(Optional.of(folder));
+        when(folderRepository.existsByUserIdAndName(user.getId(), folder.getName())).thenReturn(true);
+        when(generationJobRepository.save(any())).thenAnswer(invocation -> {
+            GenerationJob savedJob = invocation.getArgument(0);
+            if (savedJob.getId() == null) {
+                savedJob.setId(1L);
+            }
+            return savedJob;
+        });
+
+        GenerationJob job = generationJobService.submitJob(user, folder.getId(), "placeholders");
+
+        ArgumentCaptor<CardCreateUpdateRequest> cards = ArgumentCaptor.forClass(CardCreateUpdateRequest.class);
+        verify(cardService, times(2)).createCard(eq(user), eq(folder.getId()), cards.capture());
+        assertThat(cards.getAllValues())
+                .extracting(CardCreateUpdateRequest::getQuestion, CardCreateUpdateRequest::getAnswer)
+                .containsExactly(
+                        tuple("What is {x}?", "A \"placeholder\""),
+                        tuple("Why?", "Because [reasons]"));
+        assertThat(job.getStatus()).isEqualTo(GenerationJobStatus.SUCCEEDED);
+        assertThat(job.getCardsCreated()).isEqualTo(2);
+    }
+
+    @Test
+    public void TestThatAJobOfAUserBeingMovedStoresNoCardsAndFails() {
+        User user = DataUtil.getUserExample1WithId();
+        Folder folder = DataUtil.getFolderExample1WithId(user);
+        ShardDirectory directory = mock(ShardDirectory.class);
+
+        when(userService.getUserOrThrow(user)).thenReturn(user);
+        when(folderRepository.findById(folder.getId())).thenReturn(Optional.of(folder));
+        when(folderRepository.existsByUserIdAndName(user.getId(), folder.getName())).thenReturn(true);
+        when(generationJobRepository.save(any())).thenAnswer(invocation -> {
+            GenerationJob savedJob = invocation.getArgument(0);
+            if (savedJob.getId() == null) {
+                savedJob.setId(1L);
+            }
+            return savedJob;
+        });
+        when(shardDirectory.getIfAvailable()).thenReturn(directory);
+        when(directory.isMoving(user.getKeycloakId())).thenReturn(true);
+
+        GenerationJob job = generationJobService.submitJob(user, folder.getId(), "placeholders");
+
+        verify(cardService, never()).createCard(any(), any(), any());
+        assertThat(job.getStatus()).isEqualTo(GenerationJobStatus.FAILED);
+    }
+}
@@ -0,0 +1,177 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import jomeerkatz.project.ai_flashcards.DataUtil;
+import jomeerkatz.project.ai_flashcards.config.LearningSessionProperties;
+import jomeerkatz.project.ai_flashcards.domain.entities.Card;
+import jomeerkatz.project.ai_flashcards.domain.entities.Folder;
+import jomeerkatz.project.ai_flashcards.domain.entities.User;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.exceptions.LearningSessionNotFoundException;
+import jomeerkatz.project.ai_flashcards.repositories.CardRepository;
+import jomeerkatz.project.ai_flashcards.repositories.FolderRepository;
+import jomeerkatz.project.ai_flashcards.services.UserService;
+import jomeerkatz.project.ai_flashcards.services.impl.LearningSessionServiceImpl;
+import jomeerkatz.project.ai_flashcards.sessions.LearningSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.AdditionalAnswers.answer;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LearningSessionServiceImplJUnitTests {
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private FolderRepository folderRepository;
+
+    @Mock
+    private UserService userService;
+
+    private LearningSessionServiceImpl learningSessionService;
+
+    @BeforeEach
+    public void setUp() {
+        learningSessionService = new LearningSessionServiceImpl(cardRepository, folderRepository, userService, new LearningSessionProperties());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        learningSessionService.close();
+    }
+
+    @Test
+    public void TestThatNextCardsServesTheSessionInOrderWithoutCheckingTheFolderAgain() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+        mockFolderAccess(newUser, newFolder);
+        when(cardRepository.findIdsByUserIdAndFolderIdAndStatus(eq(newUser.getId()), eq(newFolder.getId()), eq(CardStatus.BAD), eq(0L), any()))
+                .thenReturn(List.of(3L, 7L, 9L));
+        when(cardRepository.findAllByUserIdAndIdIn(eq(newUser.getId()), anyCollection()))
+                .thenAnswer(answer((Long userId, Collection<Long> cardIds) -> cardIds.stream()
+                        .map(cardId -> Card.builder().id(cardId).question("question " + cardId).build())
+                        .toList()));
+
+        LearningSession session = learningSessionService.startSession(newUser, newFolder.getId(), CardStatus.BAD, false, null);
+        List<Card> firstCards = learningSessionService.nextCards(newUser, session.getId(), 2);
+        List<Card> lastCards = learningSessionService.nextCards(newUser, session.getId(), 2);
+        List<Card> noCards = learningSessionService.nextCards(newUser, session.getId(), 2);
+
+        assertThat(firstCards).extracting(Card::getId).containsExactly(3L, 7L);
+        assertThat(lastCards).extracting(Card::getId).containsExactly(9L);
+        assertThat(noCards).isEmpty();
+        verify(folderRepository, times(1)).findById(newFolder.getId());
+        verify(userService, times(1)).getUserOrThrow(newUser);
+        verify(cardRepository, times(1)).findIdsByUserIdAndFolderIdAndStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void TestThatNextCardsOfAnotherUsersSessionThrowsLearningSessionNotFoundException() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+        mockFolderAccess(newUser, newFolder);
+        when(cardRepository.findIdsByUserIdAndFolderIdAndStatus(any(), any(), any(), any(), any()))
+                .thenReturn(List.of());
+
+        LearningSession session = learningSessionService.startSession(newUser, newFolder.getId(), CardStatus.BAD, false, null);
+        User otherUser = User.builder().id(99L).keycloakId("other-keycloak-id").build();
+
+        assertThatThrownBy(() -> learningSessionService.nextCards(otherUser, session.getId(), 1))
+                .isInstanceOf(LearningSessionNotFoundException.class);
+    }
+
+    @Test
+    public void TestThatAShuffledSessionServesEveryCardOnceInTheSameOrderForTheSameSeed() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+        mockFolderAccess(newUser, newFolder);
+        List<Long> cardIds = LongStream.rangeClosed(1, 30).boxed().toList();
+        when(cardRepository.findAllIdsByUserIdAndFolderIdAndStatus(newUser.getId(), newFolder.getId(), CardStatus.BAD))
+                .thenReturn(cardIds);
+        when(cardRepository.findAllByUserIdAndIdIn(eq(newUser.getId()), anyCollection()))
+                .thenAnswer(answer((Long userId, Collection<Long> requestedIds) -> requestedIds.stream()
+                        .map(cardId -> Card.builder().id(cardId).build())
+                        .toList()));
+
+        LearningSession session = learningSessionService.startSession(newUser, newFolder.getId(), CardStatus.BAD, true, 42L);
+        LearningSession sameSeed = learningSessionService.startSession(newUser, newFolder.getId(), CardStatus.BAD, true, 42L);
+        List<Long> order = pullAll(newUser, session);
+        List<Long> sameSeedOrder = pullAll(newUser, sameSeed);
+
+        assertThat(order).containsExactlyInAnyOrderElementsOf(cardIds);
+        assertThat(order).isNotEqualTo(cardIds);
+        assertThat(sameSeedOrder).isEqualTo(order);
+        verify(cardRepository, never()).findIdsByUserIdAndFolderIdAndStatus(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void TestThatAStatusChangeDropsThePrefetchedCopyOfTheCard() {
+        User newUser = DataUtil.getUserExample1WithId();
+        Folder newFolder = DataUtil.getFolderExample1WithId(newUser);
+        mockFolderAccess(newUser, newFolder);
+        when(cardRepository.findIdsByUserIdAndFolderIdAndStatus(any(), any(), any(), any(), any()))
+                .thenReturn(List.of(3L, 7L));
+        Map<Long, CardStatus> storedStatus = new ConcurrentHashMap<>(Map.of(3L, CardStatus.BAD, 7L, CardStatus.BAD));
+        when(cardRepository.findAllByUserIdAndIdIn(eq(newUser.getId()), anyCollection()))
+                .thenAnswer(answer((Long userId, Collection<Long> cardIds) -> cardIds.stream()
+                        .map(cardId -> Card.builder().id(cardId).status(storedStatus.get(cardId)).build())
+                        .toList()));
+
+        LearningSession session = learningSessionService.startSession(newUser, newFolder.getId(), CardStatus.BAD, false, null);
+        await().until(() -> session.upcomingWithoutTexts(2).isEmpty());
+        storedStatus.put(3L, CardStatus.GOOD);
+        learningSessionService.onChange(new UserChangeEvent(newUser.getKeycloakId(), newUser.getId(), ChangeEventDto.builder()
+                .type(ChangeType.CARD_STATUS_CHANGED)
+                .folderId(newFolder.getId())
+                .cardId(3L)
+                .status(CardStatus.GOOD)
+                .occurredAt(LocalDateTime.now())
+                .build()));
+
+        assertThat(learningSessionService.nextCards(newUser, session.getId(), 2))
+                .extracting(Card::getId, Card::getStatus)
+                .containsExactly(tuple(3L, CardStatus.GOOD), tuple(7L, CardStatus.BAD));
+    }
+
+    private List<Long> pullAll(User user, LearningSession session) {
+        List<Long> cardIds = new ArrayList<>();
+        List<Card> cards;
+        while (!(cards = learningSessionService.nextCards(user, session.getId(), 7)).isEmpty()) {
+            cards.forEach(card -> cardIds.add(card.getId()));
+        }
+        return cardIds;
+    }
+
+    private void mockFolderAccess(User user, Folder folder) {
+        when(userService.getUserOrThrow(user))
+                .thenReturn(user);
+        when(folderRepository.findById(folder.getId()))
+                .thenReturn(Optional.of(folder));
+        when(folderRepository.existsByUserIdAndName(user.getId(), folder.getName()))
+                .thenReturn(true);
+    }
+}
@@ -0,0 +1,135 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.coalescing.ReadCoalescer;
+import jomeerkatz.project.ai_flashcards.config.ReadCoalescingProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadCoalescerJUnitTests {
+    private SimpleMeterRegistry meterRegistry;
+    private ReadCoalescer readCoalescer;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        readCoalescer = new ReadCoalescer(new ReadCoalescingProperties(), meterRegistry);
+    }
+
+    @Test
+    public void TestThatIdenticalConcurrentReadsShareOneCall() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> readCoalescer.read("card-count", "user", List.of(1L), () -> {
+            calls.incrementAndGet();
+            readStarted.countDown();
+            await(releaseRead);
+            return 7L;
+        }));
+        readStarted.await();
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> readCoalescer.read("card-count", "user", List.of(1L), () -> {
+            calls.incrementAndGet();
+            return 8L;
+        }));
+        while (meterRegistry.counter("flashcards.reads", "operation", "card-count", "outcome", "coalesced").count() == 0) {
+            Thread.onSpinWait();
+        }
+        releaseRead.countDown();
+
+        assertThat(first.get()).isEqualTo(7L);
+        assertThat(second.get()).isEqualTo(7L);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    public void TestThatReadsOfOtherUsersOrAfterAChangeAreNotShared() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> readCoalescer.read("card-count", "user", List.of(1L), () -> {
+            readStarted.countDown();
+            await(releaseRead);
+            return 7L;
+        }));
+        readStarted.await();
+
+        Long otherUser = readCoalescer.read("card-count", "other-user", List.of(1L), () -> 3L);
+        readCoalescer.onChange(new UserChangeEvent("user", 1L, ChangeEventDto.builder().type(ChangeType.CARD_CREATED).folderId(1L).build()));
+        Long afterChange = readCoalescer.read("card-count", "user", List.of(1L), () -> 8L);
+        releaseRead.countDown();
+
+        assertThat(otherUser).isEqualTo(3L);
+        assertThat(afterChange).isEqualTo(8L);
+        assertThat(first.get()).isEqualTo(7L);
+    }
+
+    @Test
+    public void TestThatWaitingReadsGetTheirOwnCopyOfTheResult() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+        List<Integer> firstResult = new ArrayList<>(List.of(1, 2));
+
+        CompletableFuture<List<Integer>> first = CompletableFuture.supplyAsync(() -> readCoalescer.read("cards", "user", List.of(1L), () -> {
+            readStarted.countDown();
+            await(releaseRead);
+            return firstResult;
+        }, ArrayList::new));
+        readStarted.await();
+        CompletableFuture<List<Integer>> second = CompletableFuture.supplyAsync(() -> readCoalescer.read("cards", "user", List.of(1L),
+                () -> List.of(3), ArrayList::new));
+        CompletableFuture<List<Integer>> third = CompletableFuture.supplyAsync(() -> readCoalescer.read("cards", "user", List.of(1L),
+                () -> List.of(3), ArrayList::new));
+        while (meterRegistry.counter("flashcards.reads", "operation", "cards", "outcome", "coalesced").count() < 2) {
+            Thread.onSpinWait();
+        }
+        releaseRead.countDown();
+
+        assertThat(first.get()).isSameAs(firstResult);
+        assertThat(second.get()).isEqualTo(firstResult).isNotSameAs(firstResult).isNotSameAs(third.get());
+        assertThat(third.get()).isEqualTo(firstResult).isNotSameAs(firstResult);
+    }
+
+    @Test
+    public void TestThatAWaitingReadGivesUpAtTheDeadlineOfItsRequest() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch releaseRead = new CountDownLatch(1);
+
+        CompletableFuture<Long> first = CompletableFuture.supplyAsync(() -> readCoalescer.read("card-count", "user", List.of(1L), () -> {
+            readStarted.countDown();
+            await(releaseRead);
+            return 7L;
+        }));
+        readStarted.await();
+
+        assertThatThrownBy(() -> RequestDeadline.callWith(System.nanoTime() + Duration.ofMillis(50).toNanos(),
+                () -> readCoalescer.read("card-count", "user", List.of(1L), () -> 8L)))
+                .isInstanceOf(QueryTimeoutException.class);
+        releaseRead.countDown();
+        assertThat(first.get()).isEqualTo(7L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
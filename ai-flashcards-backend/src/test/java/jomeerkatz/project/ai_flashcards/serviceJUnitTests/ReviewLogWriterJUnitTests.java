@@ -0,0 +1,132 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import jomeerkatz.project.ai_flashcards.config.ReviewLogProperties;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.entities.CardReview;
+import jomeerkatz.project.ai_flashcards.domain.enums.CardStatus;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.repositories.CardReviewRepository;
+import jomeerkatz.project.ai_flashcards.reviews.ReviewLogWriter;
+import jomeerkatz.project.ai_flashcards.sharding.ShardAssignment;
+import jomeerkatz.project.ai_flashcards.sharding.ShardDirectory;
+import jomeerkatz.project.ai_flashcards.sharding.ShardState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReviewLogWriterJUnitTests {
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CardReviewRepository cardReviewRepository;
+
+    @Mock
+    private ObjectProvider<ShardDirectory> shardDirectory;
+
+    private ReviewLogProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ReviewLogProperties();
+        properties.setFlushInterval(Duration.ofMillis(10));
+    }
+
+    @Test
+    public void TestThatTheReviewIsSavedWithTheStatusChange() {
+        ReviewLogWriter reviewLogWriter = new ReviewLogWriter(jdbcTemplate, transactionManager, cardReviewRepository, properties, shardDirectory);
+
+        reviewLogWriter.logReview(statusChange());
+
+        ArgumentCaptor<CardReview> captor = ArgumentCaptor.forClass(CardReview.class);
+        verify(cardReviewRepository).save(captor.capture());
+        assertThat(captor.getValue().getCardId()).isEqualTo(100L);
+        assertThat(captor.getValue().getStatus()).isEqualTo(CardStatus.GOOD);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void TestThatAFailedRollupBatchIsWrittenAgain() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new CannotAcquireLockException("deadlock"))
+                .thenReturn(new int[]{1, 1});
+        ReviewLogWriter reviewLogWriter = new ReviewLogWriter(jdbcTemplate, transactionManager, cardReviewRepository, properties, shardDirectory);
+        reviewLogWriter.start();
+        try {
+            reviewLogWriter.onChange(statusChange());
+
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                    verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList()));
+        } finally {
+            reviewLogWriter.stop();
+        }
+    }
+
+    @Test
+    public void TestThatAFullQueueMakesTheRequestWriteItsRollup() {
+        properties.setQueueCapacity(1);
+        // without a running writer nothing takes reviews out of the queue
+        ReviewLogWriter reviewLogWriter = new ReviewLogWriter(jdbcTemplate, transactionManager, cardReviewRepository, properties, shardDirectory);
+
+        reviewLogWriter.onChange(statusChange());
+        verifyNoInteractions(jdbcTemplate);
+        reviewLogWriter.onChange(statusChange());
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void TestThatTheRollupOfAUserBeingMovedWaitsForTheNewShard() {
+        ShardDirectory directory = mock(ShardDirectory.class);
+        when(shardDirectory.getIfAvailable()).thenReturn(directory);
+        when(directory.resolve("keycloak-id-1"))
+                .thenReturn(new ShardAssignment(0, ShardState.MOVING, Instant.now()))
+                .thenReturn(new ShardAssignment(1, ShardState.ACTIVE, Instant.now()));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+        ReviewLogWriter reviewLogWriter = new ReviewLogWriter(jdbcTemplate, transactionManager, cardReviewRepository, properties, shardDirectory);
+        reviewLogWriter.start();
+        try {
+            reviewLogWriter.onChange(statusChange());
+
+            // nothing is written while the user is MOVING, the next attempt finds the user on its new shard
+            await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                    verify(jdbcTemplate).batchUpdate(anyString(), anyList()));
+            verify(directory, times(2)).resolve("keycloak-id-1");
+        } finally {
+            reviewLogWriter.stop();
+        }
+    }
+
+    private static UserChangeEvent statusChange() {
+        return new UserChangeEvent("keycloak-id-1", 1L, ChangeEventDto.builder()
+                .type(ChangeType.CARD_STATUS_CHANGED)
+                .folderId(10L)
+                .cardId(100L)
+                .status(CardStatus.GOOD)
+                .occurredAt(LocalDateTime.of(2026, 1, 1, 10, 0))
+                .build());
+    }
+}
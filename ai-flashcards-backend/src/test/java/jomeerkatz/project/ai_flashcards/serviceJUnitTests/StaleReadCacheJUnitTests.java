@@ -0,0 +1,187 @@
+package jomeerkatz.project.ai_flashcards.serviceJUnitTests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jomeerkatz.project.ai_flashcards.coalescing.ReadCoalescer;
+import jomeerkatz.project.ai_flashcards.config.ReadCoalescingProperties;
+import jomeerkatz.project.ai_flashcards.config.ReadFallbackProperties;
+import jomeerkatz.project.ai_flashcards.deadline.RequestDeadline;
+import jomeerkatz.project.ai_flashcards.domain.dtos.ChangeEventDto;
+import jomeerkatz.project.ai_flashcards.domain.enums.ChangeType;
+import jomeerkatz.project.ai_flashcards.events.UserChangeEvent;
+import jomeerkatz.project.ai_flashcards.exceptions.DatabaseUnavailableException;
+import jomeerkatz.project.ai_flashcards.resilience.DatabaseCircuitBreaker;
+import jomeerkatz.project.ai_flashcards.resilience.StaleReadCache;
+import jomeerkatz.project.ai_flashcards.sharding.ShardContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+public class StaleReadCacheJUnitTests {
+    private ReadFallbackProperties properties;
+    private StaleReadCache staleReadCache;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new ReadFallbackProperties();
+        properties.setWindowSize(4);
+        properties.setMinimumCalls(3);
+        properties.setOpenDuration(Duration.ofMinutes(1));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        staleReadCache = new StaleReadCache(properties, new ReadCoalescer(new ReadCoalescingProperties(), meterRegistry), meterRegistry);
+    }
+
+    @Test
+    public void TestThatAFailedReadFallsBackToTheLastGoodResult() {
+        staleReadCache.read("folders", "user", List.of(0), () -> "page 0");
+
+        String result = staleReadCache.read("folders", "user", List.of(0), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        });
+
+        assertThat(result).isEqualTo("page 0");
+        assertThatThrownBy(() -> staleReadCache.read("folders", "user", List.of(1), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    public void TestThatAnOpenCircuitServesStaleReadsWithoutTheDatabaseAndRejectsTheRest() {
+        AtomicInteger queries = new AtomicInteger();
+        staleReadCache.read("folders", "user", List.of(0), () -> "page 0");
+        for (int i = 0; i < 2; i++) {
+            staleReadCache.read("folders", "user", List.of(0), () -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            });
+        }
+
+        assertThat(staleReadCache.isDatabaseUnavailable()).isTrue();
+        assertThat(staleReadCache.read("folders", "user", List.of(0), () -> "page " + queries.incrementAndGet())).isEqualTo("page 0");
+        assertThat(queries).hasValue(0);
+        assertThatThrownBy(() -> staleReadCache.read("folders", "other-user", List.of(0), () -> "page 0"))
+                .isInstanceOf(DatabaseUnavailableException.class);
+    }
+
+    @Test
+    public void TestThatEveryStaleReadGetsItsOwnCopyOfTheCachedResult() {
+        List<String> page = new ArrayList<>(List.of("folder 1"));
+        assertThat(staleReadCache.read("folders", "user", List.of(0), () -> page, ArrayList::new)).isSameAs(page);
+        page.add("changed after the read");
+
+        List<String> firstStale = staleReadCache.read("folders", "user", List.of(0), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        }, ArrayList::new);
+        List<String> secondStale = staleReadCache.read("folders", "user", List.of(0), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        }, ArrayList::new);
+
+        assertThat(firstStale).containsExactly("folder 1");
+        assertThat(secondStale).containsExactly("folder 1").isNotSameAs(firstStale);
+    }
+
+    @Test
+    public void TestThatASlowShardOnlyOpensItsOwnCircuit() {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> ShardContext.callOn(1, () -> staleReadCache.read("folders", "user", List.of(1), () -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            }))).isInstanceOf(DataAccessResourceFailureException.class);
+        }
+
+        assertThat(ShardContext.callOn(1, staleReadCache::isDatabaseUnavailable)).isTrue();
+        assertThat(ShardContext.callOn(2, staleReadCache::isDatabaseUnavailable)).isFalse();
+        assertThat(ShardContext.callOn(2, () -> staleReadCache.read("folders", "other-user", List.of(0), () -> "page 0")))
+                .isEqualTo("page 0");
+    }
+
+    @Test
+    public void TestThatASuccessfulProbeClosesTheCircuitAndASlowOneKeepsItOpen() {
+        DatabaseCircuitBreaker circuitBreaker = new DatabaseCircuitBreaker(properties);
+        long slow = properties.getSlowCallThreshold().toNanos() + 1;
+        long openNanos = properties.getOpenDuration().toNanos();
+        circuitBreaker.onSuccess(1, 0);
+        circuitBreaker.onSuccess(slow, 0);
+        circuitBreaker.onFailure(0);
+
+        assertThat(circuitBreaker.tryAcquirePermission(openNanos - 1)).isFalse();
+        assertThat(circuitBreaker.tryAcquirePermission(openNanos)).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission(openNanos)).isFalse();
+        circuitBreaker.onSuccess(slow, openNanos);
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.OPEN);
+
+        assertThat(circuitBreaker.tryAcquirePermission(2 * openNanos)).isTrue();
+        circuitBreaker.onSuccess(1, 2 * openNanos);
+        assertThat(circuitBreaker.getState()).isEqualTo(DatabaseCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void TestThatAChangeDropsAllResultsOfItsUserOnly() {
+        staleReadCache.read("folders", "user", List.of(0), () -> "page 0");
+        staleReadCache.read("folders", "user", List.of(1), () -> "page 1");
+        staleReadCache.read("folders", "other-user", List.of(0), () -> "other page 0");
+
+        staleReadCache.onChange(change("user"));
+
+        for (int page = 0; page < 2; page++) {
+            int failedPage = page;
+            assertThatThrownBy(() -> staleReadCache.read("folders", "user", List.of(failedPage), () -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            })).isInstanceOf(DataAccessResourceFailureException.class);
+        }
+        String otherUsersPage = staleReadCache.read("folders", "other-user", List.of(0), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        });
+        assertThat(otherUsersPage).isEqualTo("other page 0");
+    }
+
+    @Test
+    public void TestThatAResultReadBeforeAChangeIsNotCached() {
+        // the change commits while the read is still running
+        assertThat(staleReadCache.read("folders", "user", List.of(0), () -> {
+            staleReadCache.onChange(change("user"));
+            return "page 0 before the change";
+        })).isEqualTo("page 0 before the change");
+
+        assertThatThrownBy(() -> staleReadCache.read("folders", "user", List.of(0), () -> {
+            throw new DataAccessResourceFailureException("connection refused");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    public void TestThatTheProbeRunsWithTheSlowCallThresholdAsDeadline() {
+        properties.setOpenDuration(Duration.ofMillis(10));
+        staleReadCache.read("folders", "user", List.of(0), () -> "page 0");
+        for (int i = 0; i < 2; i++) {
+            staleReadCache.read("folders", "user", List.of(0), () -> {
+                throw new DataAccessResourceFailureException("connection refused");
+            });
+        }
+        AtomicReference<Duration> probeDeadline = new AtomicReference<>();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            staleReadCache.read("folders", "user", List.of(0), () -> {
+                probeDeadline.set(RequestDeadline.remaining());
+                return "page 0 again";
+            });
+            return probeDeadline.get() != null;
+        });
+
+        assertThat(probeDeadline.get()).isPositive().isLessThanOrEqualTo(properties.getSlowCallThreshold());
+        await().atMost(Duration.ofSeconds(5)).until(() -> !staleReadCache.isDatabaseUnavailable());
+    }
+
+    private static UserChangeEvent change(String keycloakId) {
+        return new UserChangeEvent(keycloakId, 1L, ChangeEventDto.builder()
+                .type(ChangeType.FOLDER_RENAMED)
+                .folderId(1L)
+                .build());
+    }
+}
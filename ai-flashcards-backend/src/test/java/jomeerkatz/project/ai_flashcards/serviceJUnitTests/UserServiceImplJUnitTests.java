@@ -16,6 +16,7 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -83,6 +84,20 @@ public class UserServiceImplJUnitTests {
                 .hasMessage("User exists but could not be loaded after constraint violation");
     }
 
+//    boolean provisionUser(String keycloakId);
+
+    @Test
+    public void TestThatProvisionUserIsOneInsertWithoutLookup() {
+        when(userRepository.insertIfAbsent(eq("keycloak-id"), any()))
+                .thenReturn(false);
+
+        boolean created = userService.provisionUser("keycloak-id");
+
+        assertThat(created).isFalse();
+        verify(userRepository, never()).findByKeycloakId(any());
+        verify(userRepository, never()).save(any());
+    }
+
 //    User getUserOrThrow(User user);
 
     @Test